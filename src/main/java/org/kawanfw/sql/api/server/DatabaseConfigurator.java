@@ -16,6 +16,7 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
 
+import org.kawanfw.sql.servlet.injection.properties.ConfPropertiesStore;
 import org.slf4j.Logger;
 
 /**
@@ -104,6 +105,23 @@ public interface DatabaseConfigurator {
      */
     long getMaxBlobLength(String username, String database) throws IOException, SQLException;
 
+    /**
+     * Allows to define the maximum time a SQL statement of a client may run. If
+     * this limit is exceeded, the statement is cancelled by the JDBC driver and
+     * the client receives the driver {@code SQLException}. <br>
+     * The default implementation returns the {@code queryTimeout} property of
+     * the database defined in the {@code aceql-server.properties} file.
+     *
+     * @param username the client username
+     * @param database the database name as defined in the JDBC URL field
+     * @return the query timeout in seconds, 0 means there is no limit
+     * @throws IOException  if an IOException occurs
+     * @throws SQLException if a SQLException occurs
+     */
+    public default int getQueryTimeout(String username, String database) throws IOException, SQLException {
+	return ConfPropertiesStore.get().getQueryTimeout(database);
+    }
+
     /**
      * Allows to define the directory into which Blobs/Clobs are uploaded by client
      * side, and from which Blobs/Clobs are downloaded by client side. <br>
@@ -35,7 +35,12 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.SystemUtils;
 import org.apache.tomcat.jdbc.pool.DataSourceProxy;
 import org.apache.tomcat.util.http.fileupload.FileUploadException;
+import org.kawanfw.sql.servlet.BannedUsernamesCache;
 import org.kawanfw.sql.servlet.ServerSqlManager;
+import org.kawanfw.sql.servlet.sql.AsyncSqlEventPipeline;
+import org.kawanfw.sql.servlet.sql.PostgreSqlOidColumnsCache;
+import org.kawanfw.sql.servlet.sql.PreparedStatementCache;
+import org.kawanfw.sql.servlet.sql.QueryResultCache;
 import org.kawanfw.sql.servlet.sql.json_return.ExceptionReturner;
 import org.kawanfw.sql.servlet.sql.json_return.JsonErrorReturn;
 import org.kawanfw.sql.servlet.sql.json_return.JsonUtil;
@@ -85,6 +90,11 @@ import org.kawanfw.sql.util.FrameworkDebug;
  * <li>int_value= the number to pass to the set_method.</li>
  * </ul>
  *
+ * To clear the server side caches of a database (or of all databases if
+ * database is not specified):<br>
+ * {@code http(s)://host:port/default_pools_info?password=<password_value>&database=database_name&clearCaches=true}
+ * <br>
+ *
  * <br>
  * Note that You can create your own servlet if you want to develop you own
  * interaction with the JDBC pools.<br>
@@ -271,6 +281,13 @@ public class DefaultPoolsInfo extends HttpServlet {
 	    if (doSet != null && !doSet.isEmpty() && StringUtils.isNumeric(doSet) && StringUtils.isNumeric(doSet)) {
 		dataSourceProxy.setMaxActive(Integer.parseInt(doSet));
 	    }
+
+	    if (Boolean.parseBoolean(request.getParameter("clearCaches"))) {
+		PostgreSqlOidColumnsCache.clear(database);
+		BannedUsernamesCache.clear(database);
+		PreparedStatementCache.clear(database);
+		QueryResultCache.clear(database);
+	    }
 	}
 
 	gen.writeStartObject().write("database", database).writeEnd();
@@ -288,6 +305,11 @@ public class DefaultPoolsInfo extends HttpServlet {
 	gen.writeStartObject().write("getReturnedCount()", dataSourceProxy.getReturnedCount()).writeEnd();
 	gen.writeStartObject().write("getSize()", dataSourceProxy.getSize()).writeEnd();
 	gen.writeStartObject().write("getWaitCount()", dataSourceProxy.getWaitCount()).writeEnd();
+	gen.writeStartObject().write("preparedStatementCacheHits", PreparedStatementCache.getHits(database)).writeEnd();
+	gen.writeStartObject().write("preparedStatementCacheMisses", PreparedStatementCache.getMisses(database)).writeEnd();
+	gen.writeStartObject().write("queryResultCacheHits", QueryResultCache.getHits(database)).writeEnd();
+	gen.writeStartObject().write("queryResultCacheMisses", QueryResultCache.getMisses(database)).writeEnd();
+	gen.writeStartObject().write("asyncEventsDiscardedCount", AsyncSqlEventPipeline.getDiscardedCount(database)).writeEnd();
     }
 
     /**
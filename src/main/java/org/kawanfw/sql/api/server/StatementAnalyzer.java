@@ -13,6 +13,7 @@ package org.kawanfw.sql.api.server;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -20,6 +21,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.kawanfw.sql.api.util.JsqlParserWrapper;
 import org.kawanfw.sql.api.util.StatementAnalyzerUtil;
 import org.kawanfw.sql.util.FrameworkDebug;
+import org.kawanfw.sql.util.LruCache;
 import org.kawanfw.sql.util.Tag;
 
 import net.sf.jsqlparser.JSQLParserException;
@@ -49,6 +51,8 @@ import net.sf.jsqlparser.statement.Statement;
  * statement/</li>
  * <li>Extract the table name in use in the statement.</li>
  * </ul>
+ * The analysis results of the most recently used SQL statements are cached, so
+ * that a SQL text is parsed only once.
  *
  * @author Nicolas de Pomereu
  * @since 1.0
@@ -60,6 +64,15 @@ public class StatementAnalyzer {
 
     private static final String BLANK = " ";
 
+    /** The maximum number of analyzed SQL statements kept in cache */
+    public static final int CACHE_MAX_SIZE = 2000;
+
+    /** Longer SQL statements are not cached */
+    public static final int CACHE_MAX_SQL_LENGTH = 10000;
+
+    /** The (SQL statement, analysis results) cache */
+    private static LruCache<String, StatementInfo> statementInfoCache = new LruCache<>(CACHE_MAX_SIZE);
+
     /** The base parsed Statement name */
     private String statementName;
 
@@ -103,61 +116,44 @@ public class StatementAnalyzer {
 	    throw new IllegalArgumentException(Tag.PRODUCT_PRODUCT_FAIL + "parameterValues can not be null!");
 	}
 
-	
-	this.sql = trimAndremoveTrailingSemicolons(sql);
-
-	this.tables = new ArrayList<>();
-	String theStatementName = StringUtils.substringBefore(this.sql, BLANK);
-
-	// Can not treat GRANT, REVOKE or ROLLBACK here, not supported by
-	// CCJSqlParserUtil
-	if (theStatementName.equalsIgnoreCase("GRANT")) {
-	    this.statementName = "GRANT";
-	    this.isDCL = true;
-	    this.tables = new ArrayList<>();
-	} else if (theStatementName.equalsIgnoreCase("REVOKE")) {
-	    this.statementName = "REVOKE";
-	    this.isDCL = true;
-	    this.tables = new ArrayList<>();
-	} else if (theStatementName.equalsIgnoreCase("ROLLBACK")) {
-	    this.statementName = "ROLLBACK";
-	    this.isTCL = true;
-	    this.tables = new ArrayList<>();
-	} else if (theStatementName.equalsIgnoreCase("DROP")) {
-	    this.statementName = "DROP";
-	    this.isDDL = true;
-	    this.tables = new ArrayList<>();
-	} else {
-	    parsedStatement = null;
-	    try {
-		parsedStatement = CCJSqlParserUtil.parse(this.sql);
-		JsqlParserWrapper jsqlParserWrapper = new JsqlParserWrapper(parsedStatement);
-		this.isDCL = jsqlParserWrapper.isDCL();
-		this.isDDL = jsqlParserWrapper.isDDL();
-		this.isDML = jsqlParserWrapper.isDML();
-		this.isTCL = jsqlParserWrapper.isTCL();
+	StatementInfo statementInfo = getStatementInfo(sql);
 
-		this.tables = jsqlParserWrapper.getTables();
-		this.statementName = jsqlParserWrapper.getStatementName();
+	this.sql = statementInfo.sql;
+	this.statementName = statementInfo.statementName;
+	this.tables = new ArrayList<>(statementInfo.tables);
 
-	    } catch (JSQLParserException e) {
-		if (DEBUG) {
-		    e.printStackTrace(System.err);
-		}
-		this.parseException = new SQLException(e);
-	    }
-	}
+	this.isDCL = statementInfo.isDCL;
+	this.isDDL = statementInfo.isDDL;
+	this.isDML = statementInfo.isDML;
+	this.isTCL = statementInfo.isTCL;
 
-	// If returned parsedStatement is null, let's assume it was not parsed
-	if (parsedStatement == null) {
-	    this.statementTypeNotParsed = true;
+	this.statementTypeNotParsed = statementInfo.statementTypeNotParsed;
+	// A new instance per analyzer: an Exception is not shared between requests
+	if (statementInfo.parseExceptionMessage != null) {
+	    this.parseException = new SQLException(statementInfo.parseExceptionMessage);
 	}
 
-	if (this.statementName == null) {
-	    this.statementName = StringUtils.substringBefore(this.sql, BLANK);
+	this.parameterValues = parameterValues;
+    }
+
+    /**
+     * Returns the analysis results of a SQL statement, from cache if the
+     * statement was already analyzed.
+     *
+     * @param sql the string content of the SQL statement
+     * @return the analysis results
+     */
+    private static StatementInfo getStatementInfo(final String sql) {
+	StatementInfo statementInfo = statementInfoCache.get(sql);
+	if (statementInfo != null) {
+	    return statementInfo;
 	}
 
-	this.parameterValues = parameterValues;
+	statementInfo = new StatementInfo(sql);
+	if (sql.length() <= CACHE_MAX_SQL_LENGTH) {
+	    statementInfoCache.put(sql, statementInfo);
+	}
+	return statementInfo;
     }
 
     /**
@@ -166,9 +162,95 @@ public class StatementAnalyzer {
      * @return statement parsed with JSQLParser
      */
     public Statement getParsedStatement() {
+	// The parsed Statement is mutable and is thus not cached
+	if (parsedStatement == null && !statementTypeNotParsed) {
+	    try {
+		parsedStatement = CCJSqlParserUtil.parse(this.sql);
+	    } catch (JSQLParserException e) {
+		if (DEBUG) {
+		    e.printStackTrace(System.err);
+		}
+	    }
+	}
 	return parsedStatement;
     }
 
+    /**
+     * The immutable analysis results of a SQL statement that do not depend on
+     * the parameter values.
+     */
+    private static class StatementInfo {
+
+	private String sql;
+	private String statementName;
+	private List<String> tables = new ArrayList<>();
+
+	private boolean isDCL = false;
+	private boolean isDDL = false;
+	private boolean isDML = false;
+	private boolean isTCL = false;
+
+	private boolean statementTypeNotParsed = false;
+	private String parseExceptionMessage;
+
+	private StatementInfo(final String sqlToAnalyze) {
+
+	    this.sql = trimAndremoveTrailingSemicolons(sqlToAnalyze);
+
+	    Statement parsedStatement = null;
+	    String theStatementName = StringUtils.substringBefore(this.sql, BLANK);
+
+	    // Can not treat GRANT, REVOKE or ROLLBACK here, not supported by
+	    // CCJSqlParserUtil
+	    if (theStatementName.equalsIgnoreCase("GRANT")) {
+		this.statementName = "GRANT";
+		this.isDCL = true;
+		this.tables = new ArrayList<>();
+	    } else if (theStatementName.equalsIgnoreCase("REVOKE")) {
+		this.statementName = "REVOKE";
+		this.isDCL = true;
+		this.tables = new ArrayList<>();
+	    } else if (theStatementName.equalsIgnoreCase("ROLLBACK")) {
+		this.statementName = "ROLLBACK";
+		this.isTCL = true;
+		this.tables = new ArrayList<>();
+	    } else if (theStatementName.equalsIgnoreCase("DROP")) {
+		this.statementName = "DROP";
+		this.isDDL = true;
+		this.tables = new ArrayList<>();
+	    } else {
+		try {
+		    parsedStatement = CCJSqlParserUtil.parse(this.sql);
+		    JsqlParserWrapper jsqlParserWrapper = new JsqlParserWrapper(parsedStatement);
+		    this.isDCL = jsqlParserWrapper.isDCL();
+		    this.isDDL = jsqlParserWrapper.isDDL();
+		    this.isDML = jsqlParserWrapper.isDML();
+		    this.isTCL = jsqlParserWrapper.isTCL();
+
+		    this.tables = jsqlParserWrapper.getTables();
+		    this.statementName = jsqlParserWrapper.getStatementName();
+
+		} catch (JSQLParserException e) {
+		    if (DEBUG) {
+			e.printStackTrace(System.err);
+		    }
+		    this.parseExceptionMessage = e.toString();
+		}
+	    }
+
+	    // If returned parsedStatement is null, let's assume it was not parsed
+	    if (parsedStatement == null) {
+		this.statementTypeNotParsed = true;
+	    }
+
+	    if (this.statementName == null) {
+		this.statementName = StringUtils.substringBefore(this.sql, BLANK);
+	    }
+
+	    this.tables = Collections.unmodifiableList(this.tables);
+	}
+    }
+
     /**
      * Says if a statement contains semicolons (';') that are not trailing. Use this
      * to prevent attacks when a parsedStatement is multi-statements.
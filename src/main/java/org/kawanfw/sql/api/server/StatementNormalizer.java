@@ -21,6 +21,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.kawanfw.sql.api.server.firewall.SqlFirewallManager;
 import org.kawanfw.sql.util.FrameworkDebug;
+import org.kawanfw.sql.util.LruCache;
 import org.kawanfw.sql.util.parser.SqlCommentsDetector;
 import org.kawanfw.sql.util.parser.SqlStringTokenizer;
 
@@ -70,7 +71,8 @@ import org.kawanfw.sql.util.parser.SqlStringTokenizer;
  * {@link StatementNormalizer#getException()} call. <br>
  * Note that normalization is used in all provided {@link SqlFirewallManager}
  * implementations, this means that the SQL statements are all normalized before
- * the applying the firewall rules and security checks.
+ * the applying the firewall rules and security checks. <br>
+ * The normalized texts of the most recently used SQL statements are cached.
  * 
  * @author Nicolas de Pomereu
  * @since 1.0
@@ -79,6 +81,12 @@ public class StatementNormalizer {
 
     private static boolean DEBUG = FrameworkDebug.isSet(StatementNormalizer.class);
 
+    /** The (SQL statement, normalization result) cache */
+    private static LruCache<String, StatementNormalizer> normalizerCache = new LruCache<>(
+	    StatementAnalyzer.CACHE_MAX_SIZE);
+
+    private String normalized;
+
     private String sql;
 
     private boolean success;
@@ -105,15 +113,45 @@ public class StatementNormalizer {
      * @return the normalized text of the SQL statement.
      */
     public String getNormalized() {
+	if (sql == null) {
+	    return normalizeAndStore();
+	}
+
+	StatementNormalizer cached = normalizerCache.get(sql);
+	if (cached == null) {
+	    cached = new StatementNormalizer(sql);
+	    cached.normalizeAndStore();
+	    // Failures are not cached, so that their Exception is not shared
+	    if (cached.success && sql.length() <= StatementAnalyzer.CACHE_MAX_SQL_LENGTH) {
+		normalizerCache.put(sql, cached);
+	    }
+	}
+
+	this.success = cached.success;
+	this.withNestedComments = cached.withNestedComments;
+	this.withOddQuotesNumber = cached.withOddQuotesNumber;
+	this.exception = cached.exception;
+	this.normalized = cached.normalized;
+	return normalized;
+    }
+
+    /**
+     * Does the normalization and stores the results in this instance.
+     * 
+     * @return the normalized text of the SQL statement.
+     */
+    private String normalizeAndStore() {
 	String sqlOut = sql;
 	try {
 	    sqlOut = getNormalizedWithLevel(sql, true);
 	} catch (Exception exception) {
 	    this.success = false;
 	    this.exception = exception;
+	    this.normalized = sql;
 	    return sql;
 	}
 	this.success = true;
+	this.normalized = sqlOut;
 	return sqlOut;
     }
 
@@ -21,7 +21,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 
-import javax.json.Json;
 import javax.json.JsonObject;
 import javax.json.JsonReader;
 import javax.json.JsonString;
@@ -33,6 +32,7 @@ import org.kawanfw.sql.api.server.util.SimpleHttpClient;
 import org.kawanfw.sql.servlet.injection.classes.InjectedClassesStore;
 import org.kawanfw.sql.servlet.injection.properties.PropertiesFileStore;
 import org.kawanfw.sql.servlet.injection.properties.PropertiesFileUtil;
+import org.kawanfw.sql.servlet.sql.json_return.JsonUtil;
 import org.kawanfw.sql.util.Tag;
 import org.slf4j.Logger;
 
@@ -147,7 +147,7 @@ public class WebServiceUserAuthenticator implements UserAuthenticator {
     private boolean statusIsOk(String jsonResult) throws IOException {
 
 	try {
-	    JsonReader reader = Json.createReader(new StringReader(jsonResult));
+	    JsonReader reader = JsonUtil.getJsonReaderFactory().createReader(new StringReader(jsonResult));
 	    JsonStructure jsonst = reader.read();
 
 	    JsonObject object = (JsonObject) jsonst;
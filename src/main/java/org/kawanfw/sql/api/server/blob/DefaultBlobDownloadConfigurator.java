@@ -15,9 +15,14 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 /**
  *
@@ -28,6 +33,15 @@ import javax.servlet.http.HttpServletRequest;
  * {@link #download(HttpServletRequest, File, OutputStream)} only if you want to
  * implement your own advanced download mechanism with special features: file
  * chunking, recovery mechanisms, etc.
+ * <br>
+ * The download sets the {@code Content-Length}, {@code ETag} and
+ * {@code Last-Modified} headers, and honors a single range {@code Range}
+ * header with an optional {@code If-Range} header, so that an interrupted
+ * download may be resumed and a large Blob downloaded in parallel segments.
+ * <br>
+ * The file is always written on the servlet stream with
+ * {@code FileChannel.transferTo}: Tomcat sendfile is not used, as it is only
+ * done for synchronous requests and all the AceQL requests are asynchronous.
  *
  * @author Nicolas de Pomereu
  *
@@ -48,4 +62,155 @@ public class DefaultBlobDownloadConfigurator implements BlobDownloadConfigurator
 
     }
 
+    /**
+     * Download of the whole file or of the requested range, with the length,
+     * ETag and range headers set.
+     */
+    @Override
+    public void download(HttpServletRequest request, HttpServletResponse response, File file,
+	    OutputStream outputStream) throws IOException {
+
+	if (!file.exists()) {
+	    throw new FileNotFoundException("File does not exist: " + file.getName());
+	}
+
+	long length = file.length();
+	long lastModified = file.lastModified();
+	String eTag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+	response.setHeader("Accept-Ranges", "bytes");
+	response.setHeader("ETag", eTag);
+	response.setDateHeader("Last-Modified", lastModified);
+
+	long start = 0;
+	long end = length - 1;
+
+	String range = request.getHeader("Range");
+	if (range != null && isIfRangeValid(request, eTag, lastModified)) {
+	    long[] bounds = parseRange(range, length);
+	    if (bounds == null) {
+		response.setHeader("Content-Range", "bytes */" + length);
+		response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+		return;
+	    }
+
+	    if (bounds.length == 2) {
+		start = bounds[0];
+		end = bounds[1];
+		response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+		response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+	    }
+	}
+
+	long count = end - start + 1;
+	response.setContentLengthLong(count);
+
+	if (count <= 0) {
+	    return;
+	}
+
+	try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);) {
+	    WritableByteChannel outChannel = Channels.newChannel(outputStream);
+	    long position = start;
+	    while (count > 0) {
+		long transferred = fileChannel.transferTo(position, count, outChannel);
+		if (transferred <= 0) {
+		    break;
+		}
+		position += transferred;
+		count -= transferred;
+	    }
+	}
+    }
+
+    /**
+     * Says if the Range header must be honored: there is no If-Range header, or
+     * it matches the current ETag or last modification date. The ETag
+     * comparison is strong: a weak ETag never matches.
+     */
+    private static boolean isIfRangeValid(HttpServletRequest request, String eTag, long lastModified) {
+	String ifRange = request.getHeader("If-Range");
+	if (ifRange == null) {
+	    return true;
+	}
+
+	ifRange = ifRange.trim();
+	if (ifRange.startsWith("W/")) {
+	    return false;
+	}
+	if (ifRange.startsWith("\"")) {
+	    return ifRange.equals(eTag);
+	}
+
+	try {
+	    long ifRangeDate = request.getDateHeader("If-Range");
+	    // HTTP dates have a one second precision
+	    return ifRangeDate != -1 && lastModified / 1000 <= ifRangeDate / 1000;
+	} catch (IllegalArgumentException e) {
+	    return false;
+	}
+    }
+
+    /**
+     * Parses a {@code bytes=start-end}, {@code bytes=start-} or
+     * {@code bytes=-suffixLength} Range header.
+     *
+     * @param range  the Range header value
+     * @param length the file length
+     * @return the {start, end} bounds, an empty array if the header must be
+     *         ignored and the whole file sent, or null if the range is not
+     *         satisfiable
+     */
+    static long[] parseRange(String range, long length) {
+	range = range.trim();
+	if (!range.startsWith("bytes=") || range.contains(",")) {
+	    // Multiple ranges are not supported: send the whole file
+	    return new long[0];
+	}
+
+	String spec = range.substring("bytes=".length()).trim();
+	int dash = spec.indexOf('-');
+	if (dash < 0) {
+	    return new long[0];
+	}
+
+	try {
+	    String startStr = spec.substring(0, dash).trim();
+	    String endStr = spec.substring(dash + 1).trim();
+
+	    long start;
+	    long end;
+	    if (startStr.isEmpty()) {
+		long suffixLength = Long.parseLong(endStr);
+		if (suffixLength < 0) {
+		    return new long[0];
+		}
+		if (suffixLength == 0) {
+		    return null;
+		}
+		start = Math.max(0, length - suffixLength);
+		end = length - 1;
+	    } else {
+		start = Long.parseLong(startStr);
+		if (endStr.isEmpty()) {
+		    end = length - 1;
+		} else {
+		    end = Long.parseLong(endStr);
+		    // A last position before the first one is an invalid header
+		    if (end < start) {
+			return new long[0];
+		    }
+		    end = Math.min(end, length - 1);
+		}
+	    }
+
+	    if (start >= length) {
+		return null;
+	    }
+	    return new long[] { start, end };
+	} catch (NumberFormatException e) {
+	    return new long[0];
+	}
+    }
+
 }
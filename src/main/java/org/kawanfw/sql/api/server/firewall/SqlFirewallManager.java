@@ -135,4 +135,21 @@ public interface SqlFirewallManager {
      */
     public boolean allowMetadataQuery(String username, String database, Connection connection)
 	    throws IOException, SQLException;
+
+    /**
+     * Says if {@link #allowSqlRunAfterAnalysis(SqlEvent, Connection)} analyzes
+     * the parameter values of prepared statements, and thus must be called for
+     * each row of a prepared statement batch. <br>
+     * If false, the manager is called only once per batch, with the parameter
+     * values of the first row, as the SQL statement is the same for all the
+     * rows. <br>
+     * Defaults to false. Implementations that analyze the parameter values must
+     * override this method to return true.
+     *
+     * @return <code>true</code> if the manager must be called for each row of a
+     *         prepared statement batch, else <code>false</code>
+     */
+    public default boolean analyzeParameterValuesPerBatchRow() {
+	return false;
+    }
 }
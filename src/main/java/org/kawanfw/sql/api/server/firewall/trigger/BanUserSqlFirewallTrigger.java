@@ -16,9 +16,12 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
 
 import org.kawanfw.sql.api.server.SqlEvent;
 import org.kawanfw.sql.api.server.firewall.SqlFirewallManager;
+import org.kawanfw.sql.servlet.BannedUsernamesCache;
 
 /**
  * A trigger that will insert into the following table the info detected by the
@@ -45,6 +48,14 @@ import org.kawanfw.sql.api.server.firewall.SqlFirewallManager;
  * <br>Any new access
  * attempt of a banned user will be blocked by returning the ambiguous error
  * message "Access Forbidden for Username". <br>
+ * The banned usernames are kept in memory by the AceQL Server and the table is
+ * reloaded every minute, so that the bans done by other AceQL Servers are
+ * applied. <br>
+ * The in-memory ban is always applied at once, before the statement is
+ * refused to the client. When the events are run asynchronously with the
+ * {@code asyncEventsQueueSize} property, only the insert is queued: a ban
+ * whose event is discarded on queue overflow stays effective on this server,
+ * but is not seen by the other AceQL Servers. <br>
  * <br>
  * Activation of this trigger requires to define the
  * {@code BanUserSqlFirewallTrigger} as a value in the
@@ -62,28 +73,56 @@ import org.kawanfw.sql.api.server.firewall.SqlFirewallManager;
 public class BanUserSqlFirewallTrigger implements SqlFirewallTrigger {
 
     /**
-     * Inserts the {@code SqlEvent} info into the {@code aceql_banned_user} SQL table.
+     * Bans the user on this server and inserts the {@code SqlEvent} info into
+     * the {@code aceql_banned_user} SQL table.
      */
     @Override
     public void runIfStatementRefused(SqlEvent sqlEvent, SqlFirewallManager sqlFirewallManager, Connection connection)
 	    throws IOException, SQLException {
+	ban(sqlEvent);
+	runIfStatementsRefused(Collections.singletonList(sqlEvent), Collections.singletonList(sqlFirewallManager),
+		connection);
+    }
+
+    /**
+     * Inserts all the events with one JDBC batch. <br>
+     * The users are not banned in memory here: it has been done by
+     * {@link #ban(SqlEvent)} when the events were queued.
+     */
+    @Override
+    public void runIfStatementsRefused(List<SqlEvent> sqlEvents, List<SqlFirewallManager> sqlFirewallManagers,
+	    Connection connection) throws IOException, SQLException {
 
 	// We use SQL int type for SQLEvent boolean values to be compatible with all db vendors
 	
 	String sql = "insert into aceql_banned_user values (?, ?, ?, ?, ?, ?, ?)";
 	try (PreparedStatement preparedStatement = connection.prepareStatement(sql);) {
-	    int i = 1;
-	    preparedStatement.setString(i++, sqlEvent.getUsername());
-	    preparedStatement.setString(i++, sqlEvent.getIpAddress());
-	    preparedStatement.setString(i++, sqlEvent.getDatabase());
-	    preparedStatement.setString(i++, sqlFirewallManager.getClass().getName());
-	    preparedStatement.setString(i++, sqlEvent.getSql());
-	    preparedStatement.setInt(i++, sqlEvent.isMetadataQuery() ? 1 : 0); // We don't use other type, not
-									       // compatible with all db vendors
-	    preparedStatement.setTimestamp(i++, new Timestamp(System.currentTimeMillis()));
-	    preparedStatement.executeUpdate();
+	    for (int j = 0; j < sqlEvents.size(); j++) {
+		SqlEvent sqlEvent = sqlEvents.get(j);
+		int i = 1;
+		preparedStatement.setString(i++, sqlEvent.getUsername());
+		preparedStatement.setString(i++, sqlEvent.getIpAddress());
+		preparedStatement.setString(i++, sqlEvent.getDatabase());
+		preparedStatement.setString(i++, sqlFirewallManagers.get(j).getClass().getName());
+		preparedStatement.setString(i++, sqlEvent.getSql());
+		preparedStatement.setInt(i++, sqlEvent.isMetadataQuery() ? 1 : 0); // We don't use other type, not
+										   // compatible with all db vendors
+		preparedStatement.setTimestamp(i++, new Timestamp(System.currentTimeMillis()));
+		preparedStatement.addBatch();
+	    }
+	    preparedStatement.executeBatch();
 	}
 
     }
 
+    /**
+     * Bans the user of the {@code SqlEvent} on this server, without waiting for
+     * the insert into the {@code aceql_banned_user} SQL table.
+     *
+     * @param sqlEvent the refused SQL event
+     */
+    public static void ban(SqlEvent sqlEvent) {
+	BannedUsernamesCache.add(sqlEvent.getDatabase(), sqlEvent.getUsername());
+    }
+
 }
@@ -16,6 +16,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
 
 import org.kawanfw.sql.api.server.SqlEvent;
 import org.kawanfw.sql.api.server.firewall.SqlFirewallManager;
@@ -56,22 +58,36 @@ public class JdbcLoggerSqlFirewallTrigger implements SqlFirewallTrigger {
     @Override
     public void runIfStatementRefused(SqlEvent sqlEvent, SqlFirewallManager sqlFirewallManager, Connection connection)
 	    throws IOException, SQLException {
+	runIfStatementsRefused(Collections.singletonList(sqlEvent), Collections.singletonList(sqlFirewallManager),
+		connection);
+    }
+
+    /**
+     * Inserts all the events with one JDBC batch.
+     */
+    @Override
+    public void runIfStatementsRefused(List<SqlEvent> sqlEvents, List<SqlFirewallManager> sqlFirewallManagers,
+	    Connection connection) throws IOException, SQLException {
 	
 	// We use SQL int type for SQLEvent boolean values to be compatible with all db vendors
 	
 	String sql = "insert into aceql_denied_request values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
 	try (PreparedStatement preparedStatement = connection.prepareStatement(sql);) {
-	    int i = 1;
-	    preparedStatement.setTimestamp(i++, new Timestamp(System.currentTimeMillis()));
-	    preparedStatement.setString(i++, sqlEvent.getUsername());
-	    preparedStatement.setString(i++, sqlEvent.getIpAddress());
-	    preparedStatement.setString(i++, sqlEvent.getDatabase());
-	    preparedStatement.setString(i++, sqlFirewallManager.getClass().getName());
-	    preparedStatement.setString(i++, sqlEvent.getSql());
-	    preparedStatement.setInt(i++, sqlEvent.isMetadataQuery() ? 1 : 0);
-	    preparedStatement.setInt(i++, sqlEvent.isPreparedStatement() ? 1 : 0);
-	    preparedStatement.setString(i++, sqlEvent.getParameterStringValues().toString());
-	    preparedStatement.executeUpdate();
+	    for (int j = 0; j < sqlEvents.size(); j++) {
+		SqlEvent sqlEvent = sqlEvents.get(j);
+		int i = 1;
+		preparedStatement.setTimestamp(i++, new Timestamp(System.currentTimeMillis()));
+		preparedStatement.setString(i++, sqlEvent.getUsername());
+		preparedStatement.setString(i++, sqlEvent.getIpAddress());
+		preparedStatement.setString(i++, sqlEvent.getDatabase());
+		preparedStatement.setString(i++, sqlFirewallManagers.get(j).getClass().getName());
+		preparedStatement.setString(i++, sqlEvent.getSql());
+		preparedStatement.setInt(i++, sqlEvent.isMetadataQuery() ? 1 : 0);
+		preparedStatement.setInt(i++, sqlEvent.isPreparedStatement() ? 1 : 0);
+		preparedStatement.setString(i++, sqlEvent.getParameterStringValues().toString());
+		preparedStatement.addBatch();
+	    }
+	    preparedStatement.executeBatch();
 	}
     }
 
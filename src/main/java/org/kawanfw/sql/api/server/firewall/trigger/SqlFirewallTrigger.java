@@ -14,6 +14,7 @@ package org.kawanfw.sql.api.server.firewall.trigger;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
 
 import org.kawanfw.sql.api.server.SqlEvent;
 import org.kawanfw.sql.api.server.firewall.SqlFirewallManager;
@@ -79,4 +80,27 @@ public interface SqlFirewallTrigger {
     public void runIfStatementRefused(SqlEvent sqlEvent, SqlFirewallManager sqlFirewallManager, Connection connection)
 	    throws IOException, SQLException;
 
+    /**
+     * Called instead of
+     * {@link #runIfStatementRefused(SqlEvent, SqlFirewallManager, Connection)}
+     * when the events are run asynchronously with the
+     * {@code asyncEventsQueueSize} property: the queued events are passed by
+     * batch, with a Connection of the pool that is not the client one. <br>
+     * Defaults to a call of {@code runIfStatementRefused} per event. Override it
+     * to write all the events at once, for example with a JDBC batch.
+     * 
+     * @param sqlEvents           the refused SQL events
+     * @param sqlFirewallManagers the instance that refused each SQL event. Same
+     *                            size as {@code sqlEvents}.
+     * @param connection          a SQL/JDBC <code>Connection</code> of the pool
+     * @throws IOException  if an IOException occurs
+     * @throws SQLException if a SQLException occurs
+     */
+    public default void runIfStatementsRefused(List<SqlEvent> sqlEvents,
+	    List<SqlFirewallManager> sqlFirewallManagers, Connection connection) throws IOException, SQLException {
+	for (int i = 0; i < sqlEvents.size(); i++) {
+	    runIfStatementRefused(sqlEvents.get(i), sqlFirewallManagers.get(i), connection);
+	}
+    }
+
 }
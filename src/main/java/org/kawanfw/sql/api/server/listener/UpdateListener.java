@@ -14,6 +14,7 @@ package org.kawanfw.sql.api.server.listener;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
 
 import org.kawanfw.sql.api.server.SqlEvent;
 
@@ -49,4 +50,24 @@ public interface UpdateListener {
      * @throws SQLException if a SQLException occurs
      */
     public void updateActionPerformed(SqlEvent sqlEvent, Connection connection) throws IOException, SQLException;
+
+    /**
+     * Called instead of {@link #updateActionPerformed(SqlEvent, Connection)}
+     * when the events are run asynchronously with the
+     * {@code asyncEventsQueueSize} property: the queued events are passed by
+     * batch, with a Connection of the pool that is not the client one. <br>
+     * Defaults to a call of {@code updateActionPerformed} per event.
+     * 
+     * @param sqlEvents  the SQL update events that are successfully processed
+     * @param connection a Connection of the pool
+     * 
+     * @throws IOException  if an IOException occurs
+     * @throws SQLException if a SQLException occurs
+     */
+    public default void updateActionsPerformed(List<SqlEvent> sqlEvents, Connection connection)
+	    throws IOException, SQLException {
+	for (SqlEvent sqlEvent : sqlEvents) {
+	    updateActionPerformed(sqlEvent, connection);
+	}
+    }
 }
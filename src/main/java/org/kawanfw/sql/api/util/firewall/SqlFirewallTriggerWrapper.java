@@ -19,8 +19,10 @@ import java.util.Set;
 
 import org.kawanfw.sql.api.server.SqlEvent;
 import org.kawanfw.sql.api.server.firewall.SqlFirewallManager;
+import org.kawanfw.sql.api.server.firewall.trigger.BanUserSqlFirewallTrigger;
 import org.kawanfw.sql.api.server.firewall.trigger.SqlFirewallTrigger;
 import org.kawanfw.sql.servlet.injection.classes.InjectedClassesStore;
+import org.kawanfw.sql.servlet.sql.AsyncSqlEventPipeline;
 
 /**
  * @author Nicolas de Pomereu
@@ -39,6 +41,23 @@ public class SqlFirewallTriggerWrapper {
 	Set<SqlFirewallTrigger> sqlFirewallTriggers = InjectedClassesStore.get().getSqlFirewallTriggerMap()
 		.get(database);
 
+	if (sqlFirewallTriggers == null || sqlFirewallTriggers.isEmpty()) {
+	    return;
+	}
+
+	// The ban must not wait for the async queue, nor be lost if the event is
+	// discarded: it is applied now and only the insert may be queued
+	for (SqlFirewallTrigger sqlFirewallTrigger : sqlFirewallTriggers) {
+	    if (sqlFirewallTrigger instanceof BanUserSqlFirewallTrigger) {
+		BanUserSqlFirewallTrigger.ban(sqlEvent);
+	    }
+	}
+
+	// Run in background if asyncEventsQueueSize is set for the database
+	if (AsyncSqlEventPipeline.submitRefused(sqlEvent, sqlFirewallManager)) {
+	    return;
+	}
+
 	for (SqlFirewallTrigger sqlFirewallTrigger : sqlFirewallTriggers) {
 	    sqlFirewallTrigger.runIfStatementRefused(sqlEvent, sqlFirewallManager, connection);
 	}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.kawanfw.sql.api.server.DatabaseConfigurator;
+import org.kawanfw.sql.api.util.SqlUtil;
+import org.kawanfw.sql.servlet.injection.classes.InjectedClassesStore;
+import org.kawanfw.sql.util.FrameworkDebug;
+import org.kawanfw.sql.util.SqlTag;
+
+/**
+ * Per database in memory copy of the usernames stored in the
+ * {@code aceql_banned_user} table by the {@code BanUserSqlFirewallTrigger}.
+ * <br>
+ * The usernames are loaded at server startup, added when the trigger bans a
+ * user, and reloaded every {@link #REFRESH_MILLISECONDS} to get the bans done
+ * by the other AceQL servers that share the database. <br>
+ * Only one thread reloads an expired entry: the other threads keep on using
+ * the previous usernames meanwhile. The usernames banned by this server are
+ * kept until a reload finds them in the table, so that a ban not yet inserted
+ * is not lost, or at most {@link #PENDING_ADD_MILLISECONDS}, so that a ban
+ * whose insert failed or was rolled back is lifted. <br>
+ * Usernames are compared ignoring case on MySQL, MariaDB, SQL Server, SQL
+ * Anywhere and Access, whose default collations are case insensitive, as
+ * the former {@code WHERE username = ?} query did. They are compared exactly
+ * on the other databases. A database with a non default collation must keep
+ * its usernames in a single case.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class BannedUsernamesCache {
+
+    private static boolean DEBUG = FrameworkDebug.isSet(BannedUsernamesCache.class);
+
+    /** Time between two reloads of a database entry: 1 minute */
+    public static final long REFRESH_MILLISECONDS = 60 * 1000;
+
+    /** Time a ban done here is kept if a reload does not find it: 10 minutes */
+    public static final long PENDING_ADD_MILLISECONDS = 10 * 60 * 1000;
+
+    /** The (database, banned usernames) Map */
+    private static Map<String, Set<String>> usernamesMap = new ConcurrentHashMap<>();
+
+    /** The (database, load time) Map */
+    private static Map<String, Long> snapshotMap = new ConcurrentHashMap<>();
+
+    /**
+     * The (database, (username banned here and not yet read in the table, add
+     * time)) Map
+     */
+    private static Map<String, Map<String, Long>> pendingAddsMap = new ConcurrentHashMap<>();
+
+    /** The (database, reload lock) Map */
+    private static Map<String, ReentrantLock> lockMap = new ConcurrentHashMap<>();
+
+    /** The databases whose usernames are compared ignoring case */
+    private static Set<String> ignoreCaseDatabases = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Static class.
+     */
+    protected BannedUsernamesCache() {
+
+    }
+
+    /**
+     * Loads the banned usernames of all the databases that use the
+     * {@code BanUserSqlFirewallTrigger}. To be called at server startup. <br>
+     * A database that can not be loaded is only reported: it will be loaded on
+     * first client request.
+     *
+     * @param databases the database names
+     */
+    public static void loadAll(Set<String> databases) {
+	for (String database : databases) {
+	    if (!BannerOnTester.isBanUserSqlFirewallTriggerActivated(database)) {
+		continue;
+	    }
+
+	    DatabaseConfigurator databaseConfigurator = InjectedClassesStore.get().getDatabaseConfigurators()
+		    .get(database);
+	    Connection connection = null;
+	    try {
+		connection = databaseConfigurator.getConnection(database);
+		load(database, connection);
+	    } catch (SQLException e) {
+		System.out.println(SqlTag.SQL_PRODUCT_START + " WARNING: Impossible to load aceql_banned_user for "
+			+ database + ": " + e.getMessage());
+	    } finally {
+		if (connection != null) {
+		    try {
+			databaseConfigurator.close(connection);
+		    } catch (SQLException e) {
+			// Ignore
+		    }
+		}
+	    }
+	}
+    }
+
+    /**
+     * Says if a username is banned for a database. The usernames are reloaded
+     * from the {@code aceql_banned_user} table only if not loaded or expired.
+     *
+     * @param database   the database name
+     * @param username   the client username
+     * @param connection the JDBC Connection to use if a load is necessary
+     * @return true if the user is banned
+     * @throws SQLException if any SQLException occurs
+     */
+    public static boolean isBanned(String database, String username, Connection connection) throws SQLException {
+	Objects.requireNonNull(database, "database cannot be null!");
+
+	Set<String> usernames = usernamesMap.get(database);
+	if (usernames == null || isExpired(database)) {
+	    usernames = reload(database, connection, usernames);
+	}
+
+	return username != null && usernames.contains(normalize(database, username));
+    }
+
+    /**
+     * Adds a banned username to the cache of a database, without waiting for the
+     * next reload.
+     *
+     * @param database the database name
+     * @param username the banned username
+     */
+    public static void add(String database, String username) {
+	Objects.requireNonNull(database, "database cannot be null!");
+	if (username == null) {
+	    return;
+	}
+
+	String normalized = normalize(database, username);
+	pendingAddsMap.computeIfAbsent(database, k -> new ConcurrentHashMap<>()).put(normalized, new Date().getTime());
+
+	Set<String> usernames = usernamesMap.get(database);
+	if (usernames != null) {
+	    usernames.add(normalized);
+	}
+    }
+
+    /**
+     * Clears the cache for a database, including the bans done here and not yet
+     * read in the table. Next request will reload the usernames.
+     *
+     * @param database the database name
+     */
+    public static void clear(String database) {
+	Objects.requireNonNull(database, "database cannot be null!");
+	pendingAddsMap.remove(database);
+	usernamesMap.remove(database);
+	snapshotMap.remove(database);
+    }
+
+    private static boolean isExpired(String database) {
+	Long snapshot = snapshotMap.get(database);
+	return snapshot == null || new Date().getTime() - snapshot > REFRESH_MILLISECONDS;
+    }
+
+    /**
+     * Reloads the usernames of a database, one thread at a time. If the usernames
+     * are already loaded and another thread is reloading them, they are returned
+     * as is.
+     */
+    private static Set<String> reload(String database, Connection connection, Set<String> currentUsernames)
+	    throws SQLException {
+	ReentrantLock lock = lockMap.computeIfAbsent(database, k -> new ReentrantLock());
+	if (currentUsernames != null) {
+	    if (!lock.tryLock()) {
+		return currentUsernames;
+	    }
+	} else {
+	    lock.lock();
+	}
+
+	try {
+	    // May have been reloaded while waiting for the lock
+	    Set<String> usernames = usernamesMap.get(database);
+	    if (usernames != null && !isExpired(database)) {
+		return usernames;
+	    }
+	    return load(database, connection);
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    private static Set<String> load(String database, Connection connection) throws SQLException {
+	debug("Loading banned usernames for database: " + database);
+
+	if (isIgnoreCase(connection)) {
+	    ignoreCaseDatabases.add(database);
+	} else {
+	    ignoreCaseDatabases.remove(database);
+	}
+
+	Set<String> usernames = ConcurrentHashMap.newKeySet();
+	String sql = "SELECT username FROM aceql_banned_user";
+
+	try (Statement statement = connection.createStatement();
+		ResultSet rs = statement.executeQuery(sql);) {
+	    while (rs.next()) {
+		String username = rs.getString(1);
+		if (username != null) {
+		    usernames.add(normalize(database, username));
+		}
+	    }
+	}
+
+	// The bans done here and not yet in the table are kept, until they expire
+	Map<String, Long> pendingAdds = pendingAddsMap.get(database);
+	if (pendingAdds != null) {
+	    long now = new Date().getTime();
+	    for (Map.Entry<String, Long> entry : pendingAdds.entrySet()) {
+		String username = entry.getKey();
+		// May have been added before the first load
+		if (usernames.contains(normalize(database, username))) {
+		    pendingAdds.remove(username);
+		} else if (now - entry.getValue() > PENDING_ADD_MILLISECONDS) {
+		    debug("Ban not found in aceql_banned_user is lifted: " + username);
+		    pendingAdds.remove(username);
+		} else {
+		    usernames.add(normalize(database, username));
+		}
+	    }
+	}
+
+	usernamesMap.put(database, usernames);
+	snapshotMap.put(database, new Date().getTime());
+
+	// An add done during the put is in pendingAdds but maybe not in usernames
+	if (pendingAdds != null) {
+	    for (String username : pendingAdds.keySet()) {
+		usernames.add(normalize(database, username));
+	    }
+	}
+	return usernames;
+    }
+
+    private static boolean isIgnoreCase(Connection connection) throws SQLException {
+	SqlUtil sqlUtil = new SqlUtil(connection);
+	String productName = sqlUtil.getDatabaseProductName();
+	return sqlUtil.isMySQL() || sqlUtil.isSQLServer() || sqlUtil.isSQLAnywhere() || sqlUtil.isAccess()
+		|| (productName != null && productName.toLowerCase(Locale.ENGLISH).contains("mariadb"));
+    }
+
+    private static String normalize(String database, String username) {
+	return ignoreCaseDatabases.contains(database) ? username.toLowerCase(Locale.ENGLISH) : username;
+    }
+
+    private static void debug(String s) {
+	if (DEBUG) {
+	    System.out.println(new Date() + " " + s);
+	}
+    }
+}
@@ -77,6 +77,10 @@ public class BaseActionTreater {
 	    return false;
 	}
 
+	if (isActionBlobChunkUpload(action, username)) {
+	    return false;
+	}
+
 	if (action.equals(HttpParameter.LOGOUT) || action.equals(HttpParameter.DISCONNECT)) {
 	    ServerLogout.logout(request, response, out, databaseConfigurator);
 	    return false;
@@ -104,6 +108,24 @@ public class BaseActionTreater {
 	return false;
     }
 
+    /**
+     * Treats the chunked Blob upload actions. No SQL connection is needed.
+     * 
+     * @param action
+     * @param username
+     * @throws IOException
+     * @throws SQLException
+     */
+    private boolean isActionBlobChunkUpload(String action, String username) throws IOException, SQLException {
+	if (BlobChunkUploader.isChunkUploadAction(action)) {
+	    BlobChunkUploader blobChunkUploader = new BlobChunkUploader(request, response, out, username,
+		    databaseConfigurator);
+	    blobChunkUploader.treat(action);
+	    return true;
+	}
+	return false;
+    }
+
     /**
      * @param action
      * @param username
@@ -0,0 +1,386 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.UUID;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.codec.binary.Hex;
+import org.kawanfw.sql.api.server.DatabaseConfigurator;
+import org.kawanfw.sql.servlet.sql.json_return.JsonErrorReturn;
+import org.kawanfw.sql.servlet.sql.json_return.JsonOkReturn;
+import org.kawanfw.sql.util.FrameworkDebug;
+import org.kawanfw.sql.util.Tag;
+
+/**
+ * Resumable chunked Blob upload. <br>
+ * <ul>
+ * <li>{@code blob_upload_start} creates an upload and returns its
+ * {@code upload_id}.</li>
+ * <li>{@code blob_upload_chunk} writes the request body at the passed
+ * {@code offset} of the upload file. A chunk may be sent again from any
+ * offset already written, so an interrupted chunk is just resent.</li>
+ * <li>{@code blob_upload_status} returns the current {@code offset}, that is
+ * the number of bytes received, to resume after a dropped connection.</li>
+ * <li>{@code blob_upload_commit} checks the optional {@code length} and
+ * {@code sha256} values and renames the upload file to the {@code blob_id}
+ * file.</li>
+ * </ul>
+ * The chunks are streamed directly into the upload file of the blobs
+ * directory, without temporary copy. The upload files are stored in the
+ * blobs directory, so an upload may be resumed on any server that shares it.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class BlobChunkUploader {
+
+    private static boolean DEBUG = FrameworkDebug.isSet(BlobChunkUploader.class);
+
+    /** The suffix of the files of the uploads not yet committed */
+    public static final String UPLOAD_FILE_SUFFIX = ".upload";
+
+    /** Uploads not modified since 24 hours are deleted on next upload start */
+    private static final long UPLOAD_MAX_IDLE_MILLISECONDS = 24 * 60 * 60 * 1000L;
+
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private OutputStream out;
+    private String username;
+    private DatabaseConfigurator databaseConfigurator;
+
+    public BlobChunkUploader(HttpServletRequest request, HttpServletResponse response, OutputStream out,
+	    String username, DatabaseConfigurator databaseConfigurator) {
+	this.request = request;
+	this.response = response;
+	this.out = out;
+	this.username = username;
+	this.databaseConfigurator = databaseConfigurator;
+    }
+
+    /**
+     * Says if an action is a chunked Blob upload action.
+     *
+     * @param action the action asked by the client side
+     * @return true if the action is a chunked Blob upload action
+     */
+    public static boolean isChunkUploadAction(String action) {
+	return action.equals(HttpParameter.BLOB_UPLOAD_START) || action.equals(HttpParameter.BLOB_UPLOAD_CHUNK)
+		|| action.equals(HttpParameter.BLOB_UPLOAD_STATUS) || action.equals(HttpParameter.BLOB_UPLOAD_COMMIT);
+    }
+
+    /**
+     * Treats the chunked Blob upload action.
+     *
+     * @param action the chunked Blob upload action
+     * @throws IOException
+     * @throws SQLException
+     */
+    public void treat(String action) throws IOException, SQLException {
+
+	File blobDirectory = databaseConfigurator.getBlobsDirectory(username);
+
+	if (blobDirectory != null && !blobDirectory.exists()) {
+	    blobDirectory.mkdirs();
+	}
+
+	if (blobDirectory == null || !blobDirectory.exists()) {
+	    JsonErrorReturn errorReturn = new JsonErrorReturn(response, HttpServletResponse.SC_NOT_FOUND,
+		    JsonErrorReturn.ERROR_ACEQL_ERROR,
+		    JsonErrorReturn.BLOB_DIRECTORY_DOES_NOT_EXIST + blobDirectory.getName());
+	    ServerSqlManager.writeLine(out, errorReturn.build());
+	    return;
+	}
+
+	if (action.equals(HttpParameter.BLOB_UPLOAD_START)) {
+	    start(blobDirectory);
+	    return;
+	}
+
+	String uploadId = request.getParameter(HttpParameter.UPLOAD_ID);
+	if (uploadId == null || !uploadId.matches("[0-9a-f]{32}")) {
+	    writeError(HttpServletResponse.SC_BAD_REQUEST, JsonErrorReturn.INVALID_UPLOAD_ID + uploadId);
+	    return;
+	}
+
+	File uploadFile = new File(blobDirectory, uploadId + UPLOAD_FILE_SUFFIX);
+	if (!uploadFile.exists()) {
+	    writeError(HttpServletResponse.SC_NOT_FOUND, JsonErrorReturn.INVALID_UPLOAD_ID + uploadId);
+	    return;
+	}
+
+	if (action.equals(HttpParameter.BLOB_UPLOAD_CHUNK)) {
+	    chunk(uploadFile);
+	} else if (action.equals(HttpParameter.BLOB_UPLOAD_STATUS)) {
+	    status(uploadFile);
+	} else {
+	    commit(blobDirectory, uploadFile);
+	}
+    }
+
+    private void start(File blobDirectory) throws IOException {
+	deleteIdleUploads(blobDirectory);
+
+	String uploadId = UUID.randomUUID().toString().replace("-", "");
+	File uploadFile = new File(blobDirectory, uploadId + UPLOAD_FILE_SUFFIX);
+	Files.createFile(uploadFile.toPath());
+
+	debug("Chunked upload started: " + uploadFile);
+	ServerSqlManager.writeLine(out, JsonOkReturn.build(HttpParameter.UPLOAD_ID, uploadId));
+    }
+
+    private void status(File uploadFile) throws IOException {
+	try (FileChannel fileChannel = openUpload(uploadFile); FileLock fileLock = tryLock(fileChannel);) {
+	    if (fileChannel == null || !uploadFile.exists()) {
+		writeError(HttpServletResponse.SC_NOT_FOUND, JsonErrorReturn.INVALID_UPLOAD_ID + uploadFile.getName());
+		return;
+	    }
+
+	    // The length is partial while a chunk is written
+	    if (fileLock == null) {
+		writeError(HttpServletResponse.SC_CONFLICT, JsonErrorReturn.UPLOAD_CHUNK_IN_PROGRESS);
+		return;
+	    }
+
+	    ServerSqlManager.writeLine(out, JsonOkReturn.build(HttpParameter.OFFSET, fileChannel.size() + ""));
+	}
+    }
+
+    private void chunk(File uploadFile) throws IOException, SQLException {
+	long offset = -1;
+	try {
+	    offset = Long.parseLong(request.getParameter(HttpParameter.OFFSET));
+	} catch (NumberFormatException e) {
+	    // Error returned below
+	}
+
+	String database = request.getParameter(HttpParameter.DATABASE);
+	long maxBlobLength = databaseConfigurator.getMaxBlobLength(username, database);
+
+	try (FileChannel fileChannel = openUpload(uploadFile); FileLock fileLock = tryLock(fileChannel);) {
+
+	    // The upload may have been committed since the request start
+	    if (fileChannel == null || !uploadFile.exists()) {
+		writeError(HttpServletResponse.SC_NOT_FOUND, JsonErrorReturn.INVALID_UPLOAD_ID + uploadFile.getName());
+		return;
+	    }
+
+	    if (fileLock == null) {
+		writeError(HttpServletResponse.SC_CONFLICT, JsonErrorReturn.UPLOAD_CHUNK_IN_PROGRESS);
+		return;
+	    }
+
+	    // A chunk may overwrite the end of the file, but no hole is allowed
+	    long size = fileChannel.size();
+	    if (offset < 0 || offset > size) {
+		writeError(HttpServletResponse.SC_BAD_REQUEST, JsonErrorReturn.INVALID_UPLOAD_OFFSET + size);
+		return;
+	    }
+
+	    fileChannel.truncate(offset);
+
+	    long position = offset;
+	    try (InputStream in = request.getInputStream();
+		    ReadableByteChannel inChannel = Channels.newChannel(in);) {
+		long transferred;
+		while ((transferred = fileChannel.transferFrom(inChannel, position, 64 * 1024)) > 0) {
+		    position += transferred;
+		    if (maxBlobLength > 0 && position > maxBlobLength) {
+			fileChannel.truncate(offset);
+			throw new IOException(Tag.PRODUCT_SECURITY + " Blob length exceeds maximum permitted size of "
+				+ maxBlobLength + " bytes.");
+		    }
+		}
+	    }
+
+	    debug("Chunk written in " + uploadFile + " from offset " + offset + " to " + position);
+	    ServerSqlManager.writeLine(out, JsonOkReturn.build(HttpParameter.OFFSET, position + ""));
+	}
+    }
+
+    private void commit(File blobDirectory, File uploadFile) throws IOException {
+	String blobId = request.getParameter(HttpParameter.BLOB_ID);
+	if (blobId == null || blobId.isEmpty() || blobId.contains("/") || blobId.contains("\\")
+		|| blobId.contains("..")) {
+	    writeError(HttpServletResponse.SC_BAD_REQUEST, JsonErrorReturn.INVALID_BLOB_ID_UPLOAD + blobId);
+	    return;
+	}
+
+	File blobFile = new File(blobDirectory, blobId);
+	String sha256 = request.getParameter(HttpParameter.SHA256);
+	String fileSha256 = null;
+	boolean moved = false;
+
+	// Same lock as the chunks: the file is checked and moved only once complete
+	try (FileChannel fileChannel = openUpload(uploadFile); FileLock fileLock = tryLock(fileChannel);) {
+	    if (fileChannel == null || !uploadFile.exists()) {
+		writeError(HttpServletResponse.SC_NOT_FOUND, JsonErrorReturn.INVALID_UPLOAD_ID + uploadFile.getName());
+		return;
+	    }
+
+	    if (fileLock == null) {
+		writeError(HttpServletResponse.SC_CONFLICT, JsonErrorReturn.UPLOAD_CHUNK_IN_PROGRESS);
+		return;
+	    }
+
+	    long size = fileChannel.size();
+	    String length = request.getParameter(HttpParameter.LENGTH);
+	    if (length != null && !length.equals(size + "")) {
+		writeError(HttpServletResponse.SC_BAD_REQUEST, JsonErrorReturn.INVALID_UPLOAD_LENGTH + size + " / " + length);
+		return;
+	    }
+
+	    if (sha256 != null) {
+		fileSha256 = getSha256(fileChannel);
+	    }
+
+	    if (fileSha256 == null || fileSha256.equalsIgnoreCase(sha256)) {
+		try {
+		    move(uploadFile, blobFile);
+		    moved = true;
+		} catch (FileSystemException e) {
+		    // Windows does not move an open file: moved once the lock is released
+		    debug("Upload not moved while locked: " + e.getMessage());
+		}
+	    }
+	}
+
+	if (fileSha256 != null && !fileSha256.equalsIgnoreCase(sha256)) {
+	    // The corrupted bytes can not be located: the upload must restart
+	    Files.deleteIfExists(uploadFile.toPath());
+	    writeError(HttpServletResponse.SC_BAD_REQUEST, JsonErrorReturn.INVALID_UPLOAD_SHA256 + fileSha256);
+	    return;
+	}
+
+	if (!moved) {
+	    move(uploadFile, blobFile);
+	}
+
+	debug("Chunked upload committed: " + blobFile);
+	ServerSqlManager.writeLine(out, JsonOkReturn.build());
+    }
+
+    private static void move(File uploadFile, File blobFile) throws IOException {
+	try {
+	    Files.move(uploadFile.toPath(), blobFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+		    StandardCopyOption.ATOMIC_MOVE);
+	} catch (AtomicMoveNotSupportedException e) {
+	    Files.move(uploadFile.toPath(), blobFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+    }
+
+    /**
+     * Opens the upload file for writing, so that it can be locked. Returns null
+     * if the upload file does not exist anymore.
+     */
+    private static FileChannel openUpload(File uploadFile) throws IOException {
+	try {
+	    return FileChannel.open(uploadFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+	} catch (NoSuchFileException e) {
+	    return null;
+	}
+    }
+
+    private void writeError(int httpStatus, String errorMessage) throws IOException {
+	JsonErrorReturn errorReturn = new JsonErrorReturn(response, httpStatus, JsonErrorReturn.ERROR_ACEQL_ERROR,
+		errorMessage);
+	ServerSqlManager.writeLine(out, errorReturn.build());
+    }
+
+    /**
+     * Returns an exclusive lock on the upload file, or null if another request
+     * is writing a chunk of the same upload or if the file is not opened.
+     */
+    private static FileLock tryLock(FileChannel fileChannel) throws IOException {
+	if (fileChannel == null) {
+	    return null;
+	}
+
+	try {
+	    return fileChannel.tryLock();
+	} catch (OverlappingFileLockException e) {
+	    return null;
+	}
+    }
+
+    /**
+     * Computes the SHA-256 of the upload file with its locked channel, which is
+     * not closed.
+     */
+    private static String getSha256(FileChannel fileChannel) throws IOException {
+	MessageDigest messageDigest = null;
+	try {
+	    messageDigest = MessageDigest.getInstance("SHA-256");
+	} catch (NoSuchAlgorithmException e) {
+	    throw new IOException(e);
+	}
+
+	ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+	long position = 0;
+	int read;
+	while ((read = fileChannel.read(buffer, position)) != -1) {
+	    buffer.flip();
+	    messageDigest.update(buffer);
+	    buffer.clear();
+	    position += read;
+	}
+	return Hex.encodeHexString(messageDigest.digest());
+    }
+
+    /**
+     * Deletes the upload files not modified since
+     * {@link #UPLOAD_MAX_IDLE_MILLISECONDS}.
+     */
+    private static void deleteIdleUploads(File blobDirectory) {
+	File[] uploadFiles = blobDirectory.listFiles((dir, name) -> name.endsWith(UPLOAD_FILE_SUFFIX));
+	if (uploadFiles == null) {
+	    return;
+	}
+
+	long now = new Date().getTime();
+	for (File uploadFile : uploadFiles) {
+	    if (now - uploadFile.lastModified() > UPLOAD_MAX_IDLE_MILLISECONDS) {
+		debug("Deleting idle upload: " + uploadFile);
+		uploadFile.delete();
+	    }
+	}
+    }
+
+    private static void debug(String s) {
+	if (DEBUG) {
+	    System.out.println(new Date() + " " + s);
+	}
+    }
+
+}
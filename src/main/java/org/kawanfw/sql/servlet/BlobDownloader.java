@@ -78,8 +78,14 @@ public class BlobDownloader {
 
 	try {
 	    BlobDownloadConfigurator BlobDownloader = InjectedClassesStore.get().getBlobDownloadConfigurator();
-	    BlobDownloader.download(request, file, out);
+	    BlobDownloader.download(request, response, file, out);
 	} catch (Exception e) {
+	    // Drop the 206 status and the Content-Range, Content-Length & ETag headers
+	    if (!response.isCommitted()) {
+		response.reset();
+		response.setContentType("text/html; charset=UTF-8");
+	    }
+
 	    JsonErrorReturn errorReturn = new JsonErrorReturn(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
 		    JsonErrorReturn.ERROR_ACEQL_ERROR, JsonErrorReturn.ERROR_DOWNLOADING_BLOB + e.getMessage(),
 		    ExceptionUtils.getStackTrace(e));
@@ -31,6 +31,12 @@ public class HttpParameter {
     public static final String PRETTY_PRINTING = "pretty_printing";
     public static final String COLUMN_TYPES = "column_types";
 
+    // Result set wire format & values
+    public static final String RESULT_SET_FORMAT = "result_set_format";
+    public static final String JSON = "json";
+    public static final String COMPACT = "compact";
+    public static final String INLINE_LOBS = "inline_lobs";
+
     public static final String ACTION = "action";
     public static final String ACTION_VALUE = "action_value";
 
@@ -125,6 +131,16 @@ public class HttpParameter {
     public static final String GET_BLOB_LENGTH = "get_blob_length";
     public static final String BLOB_ID = "blob_id";
 
+    // Chunked Blob upload actions & parameters
+    public static final String BLOB_UPLOAD_START = "blob_upload_start";
+    public static final String BLOB_UPLOAD_CHUNK = "blob_upload_chunk";
+    public static final String BLOB_UPLOAD_STATUS = "blob_upload_status";
+    public static final String BLOB_UPLOAD_COMMIT = "blob_upload_commit";
+    public static final String UPLOAD_ID = "upload_id";
+    public static final String OFFSET = "offset";
+    public static final String LENGTH = "length";
+    public static final String SHA256 = "sha256";
+
     public static final String HTML_ENCODING = "html_encoding";
     public static final String FILENAME = "filename";
 
@@ -136,6 +152,21 @@ public class HttpParameter {
 
     public static final String FILL_RESULT_SET_META_DATA = "fill_result_set_meta_data";
     public static final String MAX_ROWS = "max_rows";
+
+    // Server-side cursor actions & parameters
+    public static final String FETCH = "fetch";
+    public static final String CLOSE_CURSOR = "close_cursor";
+    public static final String CURSOR = "cursor";
+    public static final String CURSOR_ID = "cursor_id";
+    public static final String PAGE_SIZE = "page_size";
+
+    // Running query cancel action & parameter
+    public static final String CANCEL = "cancel";
+    public static final String REQUEST_ID = "request_id";
+
+    // Statements bundle action & parameter
+    public static final String BUNDLE = "bundle";
+    public static final String STATEMENTS_BUNDLE = "statements_bundle";
     
     public static final String STATEMENT_EXECUTE_BATCH = "statement_execute_batch";
     public static final String PREPARED_STATEMENT_EXECUTE_BATCH = "prepared_statement_execute_batch";
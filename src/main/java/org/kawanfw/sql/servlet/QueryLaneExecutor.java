@@ -0,0 +1,158 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The bounded admission queue of the query lane, in front of the main
+ * executor. <br>
+ * The query lane keeps the main executor (ThreadPoolExecutor or virtual
+ * threads), but at most {@code maximumPoolSize} of its requests are run at
+ * once: the others wait in a queue of {@code capacity} requests, and are
+ * rejected when it is full. <br>
+ * Each running request holds a permit. When a request ends, its thread runs
+ * the next queued request, so that the permit is never released while
+ * requests are waiting.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+class QueryLaneExecutor {
+
+    private final int maximumPoolSize;
+    private final BlockingQueue<Runnable> queue;
+
+    /** The number of permits in use: the requests being run by the executor */
+    private final AtomicInteger running = new AtomicInteger();
+
+    /**
+     * Constructor.
+     *
+     * @param maximumPoolSize the maximum number of requests run at once
+     * @param capacity        the capacity of the queue
+     */
+    QueryLaneExecutor(int maximumPoolSize, int capacity) {
+	if (maximumPoolSize <= 0) {
+	    throw new IllegalArgumentException("maximumPoolSize must be > 0!");
+	}
+	if (capacity <= 0) {
+	    throw new IllegalArgumentException("capacity must be > 0!");
+	}
+
+	this.maximumPoolSize = maximumPoolSize;
+	this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Queues a task, and runs it with the executor if a permit is free.
+     *
+     * @param task     the request task
+     * @param executor the main executor
+     * @throws RejectedExecutionException if the queue is full, or if the main
+     *                                    executor refused the task
+     */
+    void execute(Runnable task, Executor executor) {
+	if (!queue.offer(task)) {
+	    throw new RejectedExecutionException("Query lane queue is full.");
+	}
+
+	if (!tryAcquire()) {
+	    // A running request will take it
+	    return;
+	}
+
+	try {
+	    executor.execute(this::drain);
+	} catch (RejectedExecutionException e) {
+	    running.decrementAndGet();
+	    // The task is rejected only if no running request took it meanwhile
+	    if (queue.remove(task)) {
+		throw e;
+	    }
+	}
+    }
+
+    /**
+     * Runs the queued tasks until the queue is empty, then releases the permit.
+     */
+    private void drain() {
+	Runnable task;
+	while ((task = next()) != null) {
+	    boolean done = false;
+	    try {
+		task.run();
+		done = true;
+	    } catch (RuntimeException e) {
+		e.printStackTrace(System.out);
+		done = true;
+	    } finally {
+		if (!done) {
+		    // An Error: the permit must not be lost
+		    running.decrementAndGet();
+		}
+	    }
+	}
+    }
+
+    /**
+     * Returns the next queued task, or releases the permit and returns null if
+     * there is none.
+     */
+    private Runnable next() {
+	while (true) {
+	    Runnable task = queue.poll();
+	    if (task != null) {
+		return task;
+	    }
+
+	    running.decrementAndGet();
+
+	    // A task queued while all the permits were in use must not be forgotten
+	    if (queue.isEmpty() || !tryAcquire()) {
+		return null;
+	    }
+	}
+    }
+
+    private boolean tryAcquire() {
+	while (true) {
+	    int current = running.get();
+	    if (current >= maximumPoolSize) {
+		return false;
+	    }
+	    if (running.compareAndSet(current, current + 1)) {
+		return true;
+	    }
+	}
+    }
+
+    int getMaximumPoolSize() {
+	return maximumPoolSize;
+    }
+
+    int getQueueDepth() {
+	return queue.size();
+    }
+
+    int getQueueRemainingCapacity() {
+	return queue.remainingCapacity();
+    }
+
+    int getRunning() {
+	return running.get();
+    }
+}
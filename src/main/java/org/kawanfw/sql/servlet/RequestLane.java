@@ -0,0 +1,30 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet;
+
+/**
+ * The classes of traffic that are executed by separate pools when the request
+ * lanes are activated.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public enum RequestLane {
+    /** Login, connection modifiers & readers, metadata and info requests */
+    login,
+    /** SQL statements executions. Uses the main executor behind a bounded queue */
+    query,
+    /** Schema downloads and queries flagged with {@code lane=export} */
+    export,
+    /** Blob uploads and downloads */
+    blob
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.kawanfw.sql.servlet.injection.properties.ConfPropertiesStore;
+import org.kawanfw.sql.tomcat.properties.threadpool.RequestLanesProperties;
+import org.kawanfw.sql.util.FrameworkDebug;
+import org.kawanfw.sql.util.SqlTag;
+
+/**
+ * Admission control of the servlet requests. <br>
+ * When activated with the {@code requestLanesActivated} property, each request
+ * is classified in a {@link RequestLane} and executed by the bounded pool of
+ * its lane, so that a burst of one class of traffic does not starve or reject
+ * the others:
+ * <ul>
+ * <li>The query lane uses the main executor, with its own bounded admission
+ * queue: see {@link QueryLaneExecutor}.</li>
+ * <li>The login, export and blob lanes use their own pool and bounded
+ * queue.</li>
+ * </ul>
+ * A request is rejected when its lane queue is full, or when it waited in the
+ * queue more than {@code requestLaneWaitTimeoutMillis}. The queue depth and
+ * the wait times are available per lane with {@link #getLaneInfos()}.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class RequestLanes {
+
+    private static boolean DEBUG = FrameworkDebug.isSet(RequestLanes.class);
+
+    /** The request parameter that sends a query in the export lane */
+    public static final String LANE = "lane";
+
+    private static boolean activated = false;
+    private static int waitTimeoutMillis = 0;
+
+    /** The (lane, executor) Map of the lanes that have their own pool */
+    private static Map<RequestLane, ThreadPoolExecutor> executorMap = new ConcurrentHashMap<>();
+
+    /** The admission queue of the query lane */
+    private static QueryLaneExecutor queryLaneExecutor = null;
+
+    /** The (lane, statistics) Map */
+    private static Map<RequestLane, LaneStats> statsMap = new ConcurrentHashMap<>();
+
+    /**
+     * Static class.
+     */
+    protected RequestLanes() {
+
+    }
+
+    /**
+     * Creates the query lane queue and the pools of the login, export and blob
+     * lanes. To be called once at server startup.
+     *
+     * @param requestLanesProperties          the request lanes properties
+     * @param defaultQueryLaneMaximumPoolSize the query lane maximumPoolSize if
+     *                                        not set in the properties
+     */
+    public static synchronized void init(RequestLanesProperties requestLanesProperties,
+	    int defaultQueryLaneMaximumPoolSize) {
+	shutdown();
+
+	activated = requestLanesProperties.isActivated();
+	waitTimeoutMillis = requestLanesProperties.getWaitTimeoutMillis();
+
+	if (!activated) {
+	    return;
+	}
+
+	int queryLaneMaximumPoolSize = requestLanesProperties.getQueryLaneMaximumPoolSize();
+	if (queryLaneMaximumPoolSize <= 0) {
+	    queryLaneMaximumPoolSize = defaultQueryLaneMaximumPoolSize;
+	}
+	queryLaneExecutor = new QueryLaneExecutor(queryLaneMaximumPoolSize,
+		requestLanesProperties.getQueryLaneCapacity());
+
+	executorMap.put(RequestLane.login, createExecutor(RequestLane.login,
+		requestLanesProperties.getLoginLaneMaximumPoolSize(), requestLanesProperties.getLoginLaneCapacity()));
+	executorMap.put(RequestLane.export, createExecutor(RequestLane.export,
+		requestLanesProperties.getExportLaneMaximumPoolSize(), requestLanesProperties.getExportLaneCapacity()));
+	executorMap.put(RequestLane.blob, createExecutor(RequestLane.blob,
+		requestLanesProperties.getBlobLaneMaximumPoolSize(), requestLanesProperties.getBlobLaneCapacity()));
+
+	for (RequestLane lane : RequestLane.values()) {
+	    statsMap.put(lane, new LaneStats());
+	}
+
+	System.out.println(SqlTag.SQL_PRODUCT_START + " Loading Request Lanes:");
+	System.out.println(SqlTag.SQL_PRODUCT_START + "  -> [query lane maximumPoolSize: "
+		+ queryLaneExecutor.getMaximumPoolSize() + ", capacity: "
+		+ queryLaneExecutor.getQueueRemainingCapacity() + "]");
+	for (RequestLane lane : RequestLane.values()) {
+	    ThreadPoolExecutor threadPoolExecutor = executorMap.get(lane);
+	    if (threadPoolExecutor == null) {
+		continue;
+	    }
+	    System.out.println(SqlTag.SQL_PRODUCT_START + "  -> [" + lane + " lane maximumPoolSize: "
+		    + threadPoolExecutor.getMaximumPoolSize() + ", capacity: "
+		    + threadPoolExecutor.getQueue().remainingCapacity() + "]");
+	}
+	System.out.println(SqlTag.SQL_PRODUCT_START + "  -> [requestLaneWaitTimeoutMillis: " + waitTimeoutMillis + "]");
+    }
+
+    /**
+     * Shuts down the pools of the lanes.
+     */
+    public static synchronized void shutdown() {
+	for (ThreadPoolExecutor threadPoolExecutor : executorMap.values()) {
+	    threadPoolExecutor.shutdown();
+	}
+	executorMap.clear();
+	queryLaneExecutor = null;
+	statsMap.clear();
+	activated = false;
+    }
+
+    /**
+     * Says if the requests are dispatched in lanes.
+     *
+     * @return true if the requests are dispatched in lanes
+     */
+    public static boolean isActivated() {
+	return activated;
+    }
+
+    /**
+     * Executes a request in its lane. If the lanes are not activated, the task is
+     * executed by the main executor, as is.
+     *
+     * @param request         the http request, used to find the lane
+     * @param executor        the main executor, used for the query lane behind
+     *                        its admission queue: the ThreadPoolExecutor or the
+     *                        virtual thread executor
+     * @param task            the request task
+     * @param waitTimeoutTask the task run instead of the request task if the
+     *                        request waited too long in the queue
+     * @throws RejectedExecutionException if the lane queue is full
+     */
+    public static void execute(HttpServletRequest request, Executor executor, final Runnable task,
+	    final Runnable waitTimeoutTask) {
+	if (!activated) {
+	    executor.execute(task);
+	    return;
+	}
+
+	RequestLane lane = getLane(request);
+	final LaneStats laneStats = statsMap.get(lane);
+	final long queuedAt = System.currentTimeMillis();
+
+	try {
+	    Runnable laneTask = new Runnable() {
+		@Override
+		public void run() {
+		    long waitMillis = System.currentTimeMillis() - queuedAt;
+		    laneStats.waited(waitMillis);
+
+		    if (waitTimeoutMillis > 0 && waitMillis > waitTimeoutMillis) {
+			debug(lane + " lane request rejected after waiting " + waitMillis + " ms");
+			laneStats.waitTimedOut.increment();
+			waitTimeoutTask.run();
+			return;
+		    }
+
+		    task.run();
+		}
+	    };
+
+	    if (lane == RequestLane.query) {
+		queryLaneExecutor.execute(laneTask, executor);
+	    } else {
+		executorMap.get(lane).execute(laneTask);
+	    }
+	    laneStats.submitted.increment();
+	} catch (RejectedExecutionException e) {
+	    debug(lane + " lane queue is full");
+	    laneStats.rejected.increment();
+	    throw e;
+	}
+    }
+
+    /**
+     * Classifies a request in a lane, from its URL. The request body is not
+     * read.
+     *
+     * @param request the http request
+     * @return the lane of the request
+     */
+    public static RequestLane getLane(HttpServletRequest request) {
+	String action = null;
+	try {
+	    String servletCallName = ConfPropertiesStore.get().getServletCallName();
+	    ServletPathAnalyzer servletPathAnalyzer = new ServletPathAnalyzer(request.getRequestURI(),
+		    servletCallName);
+	    action = servletPathAnalyzer.getAction();
+	} catch (Exception e) {
+	    // Bad request, that will be quickly answered
+	    return RequestLane.login;
+	}
+
+	if (ServerSqlDispatchUtil.isActionForBlob(action) || action.equals(HttpParameter.GET_BLOB_LENGTH)
+		|| BlobChunkUploader.isChunkUploadAction(action)) {
+	    return RequestLane.blob;
+	}
+
+	if (action.equals(HttpParameter.METADATA_QUERY_DB_SCHEMA_DOWNLOAD) || isExportAsked(request)) {
+	    return RequestLane.export;
+	}
+
+	if (isLoginLaneAction(action)) {
+	    return RequestLane.login;
+	}
+
+	return RequestLane.query;
+    }
+
+    private static boolean isLoginLaneAction(String action) {
+	return action.equals(HttpParameter.LOGIN) || action.equals(HttpParameter.GET_VERSION)
+		|| action.equals(HttpParameter.GET_DATABASE_INFO) || action.equals(HttpParameter.GET_LIMITS_INFO)
+		|| action.equals(HttpParameter.GET_CONNECTION) || action.equals(HttpParameter.DISCONNECT)
+		|| action.equals(HttpParameter.LOGOUT) || ServerSqlDispatchUtil.isConnectionModifier(action)
+		|| ServerSqlDispatchUtil.isConnectionReader(action) || ServerSqlDispatchUtil.isSavepointModifier(action)
+		|| ActionUtil.isJdbcDatabaseMetaDataQuery(action) || ActionUtil.isHealthCheckInfo(action)
+		|| action.startsWith("metadata_query_") || action.equals(HttpParameter.CANCEL);
+    }
+
+    /**
+     * Says if the query string contains {@code lane=export}. Only the query
+     * string is analyzed, so that the request body is not read by the
+     * container thread.
+     */
+    private static boolean isExportAsked(HttpServletRequest request) {
+	String queryString = request.getQueryString();
+	if (queryString == null) {
+	    return false;
+	}
+
+	for (String parameter : queryString.split("&")) {
+	    if (parameter.equals(LANE + "=" + RequestLane.export)) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Returns the metrics of each lane: queue depth, active threads, submitted,
+     * rejected and timed out requests, and wait times in milliseconds.
+     *
+     * @return the (lane name, (metric name, value)) Map. Empty if the lanes are
+     *         not activated.
+     */
+    public static Map<String, Map<String, Long>> getLaneInfos() {
+	Map<String, Map<String, Long>> laneInfos = new LinkedHashMap<>();
+	if (!activated) {
+	    return laneInfos;
+	}
+
+	for (RequestLane lane : RequestLane.values()) {
+	    LaneStats laneStats = statsMap.get(lane);
+	    if (laneStats == null) {
+		continue;
+	    }
+
+	    Map<String, Long> laneInfo = new LinkedHashMap<>();
+	    ThreadPoolExecutor threadPoolExecutor = executorMap.get(lane);
+	    if (lane == RequestLane.query) {
+		laneInfo.put("queueDepth", (long) queryLaneExecutor.getQueueDepth());
+		laneInfo.put("queueRemainingCapacity", (long) queryLaneExecutor.getQueueRemainingCapacity());
+		laneInfo.put("activeThreads", (long) queryLaneExecutor.getRunning());
+	    } else if (threadPoolExecutor != null) {
+		laneInfo.put("queueDepth", (long) threadPoolExecutor.getQueue().size());
+		laneInfo.put("queueRemainingCapacity", (long) threadPoolExecutor.getQueue().remainingCapacity());
+		laneInfo.put("activeThreads", (long) threadPoolExecutor.getActiveCount());
+	    }
+
+	    long submitted = laneStats.submitted.sum();
+	    long executed = laneStats.executed.sum();
+	    laneInfo.put("submitted", submitted);
+	    laneInfo.put("rejected", laneStats.rejected.sum());
+	    laneInfo.put("waitTimedOut", laneStats.waitTimedOut.sum());
+	    laneInfo.put("averageWaitMillis", executed == 0 ? 0 : laneStats.totalWaitMillis.sum() / executed);
+	    laneInfo.put("maxWaitMillis", laneStats.maxWaitMillis.get());
+	    laneInfos.put(lane.name(), laneInfo);
+	}
+	return laneInfos;
+    }
+
+    private static ThreadPoolExecutor createExecutor(final RequestLane lane, int maximumPoolSize, int capacity) {
+	BlockingQueue<Runnable> workQueue = capacity > 0 ? new ArrayBlockingQueue<>(capacity)
+		: new SynchronousQueue<>();
+	final AtomicInteger threadNumber = new AtomicInteger();
+
+	ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(maximumPoolSize, maximumPoolSize, 60,
+		TimeUnit.SECONDS, workQueue, runnable -> {
+		    Thread thread = new Thread(runnable, "AceQL-" + lane + "-lane-" + threadNumber.incrementAndGet());
+		    thread.setDaemon(true);
+		    return thread;
+		});
+	threadPoolExecutor.allowCoreThreadTimeOut(true);
+	return threadPoolExecutor;
+    }
+
+    /**
+     * The counters of a lane.
+     */
+    private static class LaneStats {
+	private LongAdder submitted = new LongAdder();
+	private LongAdder executed = new LongAdder();
+	private LongAdder rejected = new LongAdder();
+	private LongAdder waitTimedOut = new LongAdder();
+	private LongAdder totalWaitMillis = new LongAdder();
+	private AtomicLong maxWaitMillis = new AtomicLong();
+
+	private void waited(long waitMillis) {
+	    executed.increment();
+	    totalWaitMillis.add(waitMillis);
+	    maxWaitMillis.accumulateAndGet(waitMillis, Math::max);
+	}
+    }
+
+    private static void debug(String s) {
+	if (DEBUG) {
+	    System.out.println(new Date() + " " + s);
+	}
+    }
+}
@@ -21,6 +21,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.kawanfw.sql.servlet.sql.LoggerUtil;
+import org.kawanfw.sql.servlet.sql.RunningStatements;
 
 public class ServerAsyncListener implements AsyncListener {
 
@@ -38,6 +39,9 @@ public class ServerAsyncListener implements AsyncListener {
     public void onError(AsyncEvent event) throws IOException {
 	AsyncDebug.debug("ASYNC ERROR:" + event.getThrowable());
 
+	// Client is gone: don't let its query run until the end
+	RunningStatements.cancelQuietly((HttpServletRequest) event.getSuppliedRequest());
+
 	if (AsyncDebug.DEBUG) {
 	    event.getThrowable().printStackTrace(System.out);
 	}
@@ -65,11 +69,7 @@ public class ServerAsyncListener implements AsyncListener {
 
 	// Rejected response means server is timeout
 	if ( event.getThrowable() instanceof RejectedExecutionException) {
-	    AsyncDebug.debug("set reponse status to SC_SERVICE_UNAVAILABLE");
-	    response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
-	    String message = "Server is too busy and not available for now. Please try later.";
-	    out.write(("<font face=\"arial\"><h3>" + message + "</h3>").getBytes());
-	    LoggerUtil.log(request, event.getThrowable());
+	    writeServiceUnavailable(request, response, out, event.getThrowable());
 	}
 	else {
 	    AsyncDebug.debug("Set reponse status to SC_INTERNAL_SERVER_ERROR");
@@ -81,6 +81,29 @@ public class ServerAsyncListener implements AsyncListener {
 	}
     }
 
+    /**
+     * Writes the "Server is too busy" response, when a request is rejected by
+     * the ThreadPoolExecutor or by its request lane.
+     *
+     * @param request   the http request
+     * @param response  the http response
+     * @param throwable the rejection cause, to log
+     * @throws IOException if any I/O error occurs
+     */
+    public static void writeServiceUnavailable(HttpServletRequest request, HttpServletResponse response,
+	    Throwable throwable) throws IOException {
+	writeServiceUnavailable(request, response, response.getOutputStream(), throwable);
+    }
+
+    private static void writeServiceUnavailable(HttpServletRequest request, HttpServletResponse response,
+	    OutputStream out, Throwable throwable) throws IOException {
+	AsyncDebug.debug("set reponse status to SC_SERVICE_UNAVAILABLE");
+	response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+	String message = "Server is too busy and not available for now. Please try later.";
+	out.write(("<font face=\"arial\"><h3>" + message + "</h3>").getBytes());
+	LoggerUtil.log(request, throwable);
+    }
+
     @Override
     public void onTimeout(AsyncEvent event) throws IOException {
 	HttpServletRequest request = (HttpServletRequest)event.getSuppliedRequest();
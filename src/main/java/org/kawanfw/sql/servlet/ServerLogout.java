@@ -61,6 +61,9 @@ public class ServerLogout {
 	    deleteOldBlobFiles(databaseConfigurator, username);
 
 	    if (!ConfPropertiesUtil.isStatelessMode()) {
+		// Cursors must be closed before the Connections are released in the pool
+		ConnectionStore.closeAllCursors(username, sessionId);
+
 		Set<Connection> connections = ConnectionStore.getAllConnections(username, sessionId);
 
 		for (Connection connection : connections) {
@@ -41,7 +41,10 @@ import org.kawanfw.sql.servlet.connection.TransactionUtil;
 import org.kawanfw.sql.servlet.injection.classes.InjectedClassesStore;
 import org.kawanfw.sql.servlet.injection.properties.ConfPropertiesUtil;
 import org.kawanfw.sql.servlet.jdbc.metadata.DefaultJdbcDatabaseMetadataActionManagerWrap;
+import org.kawanfw.sql.servlet.sql.RunningStatements;
+import org.kawanfw.sql.servlet.sql.ServerCursorManager;
 import org.kawanfw.sql.servlet.sql.ServerStatement;
+import org.kawanfw.sql.servlet.sql.ServerStatementBundle;
 import org.kawanfw.sql.servlet.sql.ServerStatementRawExecute;
 import org.kawanfw.sql.servlet.sql.batch.ServerPreparedStatementBatch;
 import org.kawanfw.sql.servlet.sql.batch.ServerStatementBatch;
@@ -110,6 +113,11 @@ public class ServerSqlDispatch {
 	    return;
 	}
 
+	// No Connection: it's used by the running statement to cancel
+	if (isCancel(request, response, out, action, username, sessionId)) {
+	    return;
+	}
+
 	Connection connection = null;
 
 	try {
@@ -327,6 +335,43 @@ public class ServerSqlDispatch {
 	}
     }
 
+    /**
+     * Treat if action is cancel: cancels the running statement of the passed
+     * request_id. The result is false if the statement is already finished.
+     *
+     * @param request
+     * @param response
+     * @param out
+     * @param action
+     * @param username
+     * @param sessionId
+     * @throws IOException
+     */
+    private boolean isCancel(HttpServletRequest request, HttpServletResponse response, OutputStream out,
+	    String action, String username, String sessionId) throws IOException {
+	if (!action.equals(HttpParameter.CANCEL)) {
+	    return false;
+	}
+
+	String requestId = request.getParameter(HttpParameter.REQUEST_ID);
+	if (requestId == null || requestId.isEmpty()) {
+	    JsonErrorReturn errorReturn = new JsonErrorReturn(response, HttpServletResponse.SC_BAD_REQUEST,
+		    JsonErrorReturn.ERROR_ACEQL_ERROR, "A 'request_id' is required.");
+	    ServerSqlManager.writeLine(out, errorReturn.build());
+	    return true;
+	}
+
+	try {
+	    boolean cancelled = RunningStatements.cancel(username, sessionId, requestId);
+	    ServerSqlManager.writeLine(out, JsonOkReturn.build("result", Boolean.toString(cancelled)));
+	} catch (SQLException e) {
+	    JsonErrorReturn errorReturn = new JsonErrorReturn(response, HttpServletResponse.SC_BAD_REQUEST,
+		    JsonErrorReturn.ERROR_JDBC_ERROR, e.getMessage());
+	    ServerSqlManager.writeLine(out, errorReturn.build());
+	}
+	return true;
+    }
+
     /**
      * Dispatch the request.
      *
@@ -362,6 +407,9 @@ public class ServerSqlDispatch {
 		&& !ServerSqlDispatchUtil.isStoredProcedure(request)) {
 	    ServerStatement serverStatement = new ServerStatement(request, response, sqlFirewallManagers, connection);
 	    serverStatement.executeQueryOrUpdate(out);
+	} else if (ServerCursorManager.isCursorAction(action)) {
+	    ServerCursorManager serverCursorManager = new ServerCursorManager(request, response, connection);
+	    serverCursorManager.executeCursorAction(out);
 	} else if (ServerSqlDispatchUtil.isStatementExecuteBatch(action)) {
 	    ServerStatementBatch serverStatement = new ServerStatementBatch(request, response, sqlFirewallManagers,
 		    connection, databaseConfigurator);
@@ -370,6 +418,10 @@ public class ServerSqlDispatch {
 	    ServerPreparedStatementBatch serverPreparedStatementBatch = new ServerPreparedStatementBatch(request,
 		    response, sqlFirewallManagers, connection, databaseConfigurator);
 	    serverPreparedStatementBatch.executeBatch(out);
+	} else if (ServerSqlDispatchUtil.isStatementBundle(action)) {
+	    ServerStatementBundle serverStatementBundle = new ServerStatementBundle(request, response,
+		    sqlFirewallManagers, connection);
+	    serverStatementBundle.executeBundle(out);
 	} else if (ServerSqlDispatchUtil.isStoredProcedure(request)) {
 
 	    
@@ -487,13 +539,16 @@ public class ServerSqlDispatch {
 		return;
 	    }
 
-	    databaseConfigurator.close(connection);
-
 	    String connectionIdNew = connectionId;
 	    if (connectionIdNew == null) {
 		connectionIdNew = ConnectionIdUtil.getConnectionId(connection);
 	    }
 	    ConnectionStore connectionStore = new ConnectionStore(username, sessionId, connectionIdNew);
+
+	    // Cursors must be closed before the Connection is released in the pool
+	    connectionStore.closeCursors();
+	    databaseConfigurator.close(connection);
+
 	    connectionStore.remove();
 	    ServerSqlManager.writeLine(out, JsonOkReturn.build());
 	} catch (SQLException e) {
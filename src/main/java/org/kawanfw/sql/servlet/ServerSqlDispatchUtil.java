@@ -13,8 +13,6 @@ package org.kawanfw.sql.servlet;
 
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -109,6 +107,10 @@ public class ServerSqlDispatchUtil {
 	return action.equals(HttpParameter.PREPARED_STATEMENT_EXECUTE_BATCH);
     }
 
+    public static boolean isStatementBundle(String action) {
+	return action.equals(HttpParameter.BUNDLE);
+    }
+
     public static void checkMetadataAuthorized(HttpServletRequest request, Connection connection,
 	    Set<SqlFirewallManager> sqlFirewallManagers) throws IOException, SQLException {
 
@@ -145,7 +147,8 @@ public class ServerSqlDispatchUtil {
     /**
      * Says if a username is banned, aka it exists in aceql_banned_user table/
      * This is checked only if the {@code SqlFirewallTrigger} {@code BanUserSqlFirewallTrigger} 
-     * has been added in the {@code aceql-properties file}
+     * has been added in the {@code aceql-properties file}. <br>
+     * The table is not queried at each call: see {@link BannedUsernamesCache}.
      * 
      * @param username   the client username
      * @param database   the database name
@@ -161,15 +164,7 @@ public class ServerSqlDispatchUtil {
 	    return false;
 	}
 	
-	String sql = "SELECT username FROM aceql_banned_user WHERE username = ?";
-
-	try (PreparedStatement prepStatement = connection.prepareStatement(sql);) {
-	    prepStatement.setString(1, username);
-
-	    try (ResultSet rs = prepStatement.executeQuery();) {
-		return rs.next();
-	    }
-	}
+	return BannedUsernamesCache.isBanned(database, username, connection);
     }
 
 }
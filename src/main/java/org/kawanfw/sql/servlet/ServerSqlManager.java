@@ -21,6 +21,9 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import javax.servlet.AsyncContext;
@@ -34,6 +37,7 @@ import org.apache.commons.lang3.SystemUtils;
 import org.apache.tomcat.util.http.fileupload.FileUploadException;
 import org.kawanfw.sql.api.server.auth.headers.RequestHeadersAuthenticator;
 import org.kawanfw.sql.api.server.session.SessionConfigurator;
+import org.kawanfw.sql.servlet.connection.ServerCursorReaper;
 import org.kawanfw.sql.servlet.injection.classes.InjectedClassesManagerNew;
 import org.kawanfw.sql.servlet.injection.classes.InjectedClassesStore;
 import org.kawanfw.sql.servlet.injection.properties.ConfPropertiesStore;
@@ -41,6 +45,7 @@ import org.kawanfw.sql.servlet.injection.properties.PropertiesFileStore;
 import org.kawanfw.sql.servlet.sql.json_return.ExceptionReturner;
 import org.kawanfw.sql.servlet.sql.json_return.JsonErrorReturn;
 import org.kawanfw.sql.servlet.sql.json_return.JsonOkReturn;
+import org.kawanfw.sql.tomcat.StaticParms;
 import org.kawanfw.sql.tomcat.TomcatSqlModeStore;
 import org.kawanfw.sql.util.FrameworkDebug;
 import org.kawanfw.sql.util.IpUtil;
@@ -119,6 +124,13 @@ public class ServerSqlManager extends HttpServlet {
 	    }
 	}
 
+	if (InjectedClassesStore.get() != null && InjectedClassesStore.get().getVirtualThreadExecutor() != null) {
+	    InjectedClassesStore.get().getVirtualThreadExecutor().shutdown();
+	}
+
+	RequestLanes.shutdown();
+	ServerCursorReaper.shutdown();
+
     }
 
     /**
@@ -140,7 +152,12 @@ public class ServerSqlManager extends HttpServlet {
 	// Just in case
 	Objects.requireNonNull(threadPoolExecutor, "threadPoolExecutor cannot be null!");
 
-	threadPoolExecutor.execute(new Runnable() {
+	// In virtual_threads mode, each request has its own virtual thread
+	ExecutorService virtualThreadExecutor = InjectedClassesStore.get().getVirtualThreadExecutor();
+	Executor executor = virtualThreadExecutor != null ? virtualThreadExecutor : threadPoolExecutor;
+
+	// Executed in the request lane if lanes are activated, else in executor
+	RequestLanes.execute(request, executor, new Runnable() {
 	    @Override
 	    public void run() {
 
@@ -153,6 +170,22 @@ public class ServerSqlManager extends HttpServlet {
 		    asyncContext.complete();
 		}
 	    }
+	}, new Runnable() {
+	    @Override
+	    public void run() {
+
+		HttpServletRequest request = (HttpServletRequest) asyncContext.getRequest();
+		HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+
+		try {
+		    ServerAsyncListener.writeServiceUnavailable(request, response,
+			    new RejectedExecutionException("Request waited too long in its lane queue."));
+		} catch (IOException e) {
+		    e.printStackTrace(System.out);
+		} finally {
+		    asyncContext.complete();
+		}
+	    }
 	});
     }
 
@@ -185,6 +218,10 @@ public class ServerSqlManager extends HttpServlet {
 
 	OutputStream out = null;
 	try {
+	    // Must be set before any content is written
+	    if (StaticParms.RESPONSE_BUFFER_SIZE > 0) {
+		response.setBufferSize(StaticParms.RESPONSE_BUFFER_SIZE);
+	    }
 	    out = response.getOutputStream();
 	    handleRequest(request, response, out);
 	} catch (Throwable e) {
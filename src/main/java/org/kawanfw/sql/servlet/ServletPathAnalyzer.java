@@ -329,6 +329,15 @@ public class ServletPathAnalyzer {
             return true;
         }
 
+        // Chunked upload actions
+        String lastElement = StringUtils.substringAfterLast(urlContent, "/");
+        if (lastElement.equals(HttpParameter.BLOB_UPLOAD_START) || lastElement.equals(HttpParameter.BLOB_UPLOAD_CHUNK)
+        	|| lastElement.equals(HttpParameter.BLOB_UPLOAD_STATUS)
+        	|| lastElement.equals(HttpParameter.BLOB_UPLOAD_COMMIT)) {
+            blobAction = lastElement;
+            return true;
+        }
+
         return false;
 
     }
@@ -371,6 +380,26 @@ public class ServletPathAnalyzer {
             return true;
         }
 
+        if (urlContent.endsWith("/fetch")) {
+            sqlStatement = "fetch";
+            return true;
+        }
+
+        if (urlContent.endsWith("/close_cursor")) {
+            sqlStatement = "close_cursor";
+            return true;
+        }
+
+        if (urlContent.endsWith("/cancel")) {
+            sqlStatement = "cancel";
+            return true;
+        }
+
+        if (urlContent.endsWith("/bundle")) {
+            sqlStatement = "bundle";
+            return true;
+        }
+
         return false;
 
     }
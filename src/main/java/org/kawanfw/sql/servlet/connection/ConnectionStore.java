@@ -16,23 +16,29 @@ import java.sql.Connection;
 import java.sql.RowId;
 import java.sql.SQLException;
 import java.sql.Savepoint;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedHashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.kawanfw.sql.api.server.connectionstore.ConnectionKey;
+import org.kawanfw.sql.servlet.sql.ServerCursor;
 import org.kawanfw.sql.util.FrameworkDebug;
 
 /**
  *
  * Stores the Connection in static for subsequent new calls by remote device/PC
- * clients.
+ * clients. <br>
+ * The Connections are indexed per session (username + sessionId), so that the
+ * Connections of a session are found without scanning the whole store. The
+ * Savepoints, Arrays, RowIds and server-side cursors of a Connection are
+ * stored in the same entry. The cursors are closed when their Connection is
+ * removed from the store.
+ * <br>
+ * The keys are also indexed per physical Connection, so that the
+ * {@code AceQLJdbcInterceptor} finds the keys of a Connection disconnected by
+ * the pool without scanning the whole store.
  *
  * @author Nicolas de Pomereu
  */
@@ -49,14 +55,14 @@ public class ConnectionStore {
     /** Map of (username + sessionId + connectionId), connection= */
     private static Map<ConnectionKey, Connection> connectionMap = new ConcurrentHashMap<>();
 
-    /** The map of Savepoints */
-    private static Map<ConnectionKey, Set<Savepoint>> savepointMap = new ConcurrentHashMap<>();
-
-    /** The map of Arrays */
-    private static Map<ConnectionKey, Set<Array>> arrayMap = new ConcurrentHashMap<>();
+    /**
+     * Index of Map of (username + sessionId), ((username + sessionId +
+     * connectionId), entry). Session keys have a null connectionId.
+     */
+    private static Map<ConnectionKey, Map<ConnectionKey, ConnectionEntry>> sessionMap = new ConcurrentHashMap<>();
 
-    /** The map of RowIds */
-    private static Map<ConnectionKey, Set<RowId>> rowIdMap = new ConcurrentHashMap<>();
+    /** Index of Map of (physical connection, Set of (username + sessionId + connectionId)) */
+    private static Map<Connection, Set<ConnectionKey>> physicalConnectionMap = new ConcurrentHashMap<>();
 
     /**
      * Constructor
@@ -94,6 +100,20 @@ public class ConnectionStore {
 	}
 
 	connectionMap.put(connectionKey, connection);
+
+	ConnectionEntry connectionEntry = putEntry(connectionKey);
+	Connection physicalConnection = getPhysicalConnection(connection);
+
+	synchronized (connectionEntry) {
+	    if (connectionEntry.physicalConnection != null && connectionEntry.physicalConnection != physicalConnection) {
+		removePhysicalConnectionKey(connectionEntry.physicalConnection, connectionKey);
+	    }
+	    connectionEntry.connection = connection;
+	    connectionEntry.physicalConnection = physicalConnection;
+	}
+
+	physicalConnectionMap.computeIfAbsent(physicalConnection, k -> ConcurrentHashMap.newKeySet())
+		.add(connectionKey);
     }
 
     /**
@@ -108,13 +128,22 @@ public class ConnectionStore {
 	    throw new IllegalArgumentException("savepoint is null!");
 	}
 
-	Set<Savepoint> savepointSet = savepointMap.get(connectionKey);
-	if (savepointSet == null) {
-	    savepointSet = new LinkedHashSet<Savepoint>();
+	ConnectionEntry connectionEntry = putEntry(connectionKey);
+
+	try {
+	    connectionEntry.savepointIdMap.put(savepoint.getSavepointId(), savepoint);
+	} catch (Throwable e) {
+	    // Ignore. We don't care: it's a named Savepoint
 	}
 
-	savepointSet.add(savepoint);
-	savepointMap.put(connectionKey, savepointSet);
+	try {
+	    String savepointName = savepoint.getSavepointName();
+	    if (savepointName != null) {
+		connectionEntry.savepointNameMap.put(savepointName, savepoint);
+	    }
+	} catch (Throwable e) {
+	    // Ignore. We don't care: it's an unnamed Savepoint
+	}
     }
 
     /**
@@ -125,21 +154,8 @@ public class ConnectionStore {
      * @return the Savepoint associated to username + connectionId and Savepoint ID
      */
     public Savepoint getSavepoint(int savepointId) {
-	Set<Savepoint> savepointSet = savepointMap.get(connectionKey);
-
-	for (Iterator<Savepoint> iterator = savepointSet.iterator(); iterator.hasNext();) {
-	    Savepoint savepoint = iterator.next();
-
-	    try {
-		if (savepoint.getSavepointId() == savepointId) {
-		    return savepoint;
-		}
-	    } catch (Throwable e) {
-		// Ignore. We don't care: it's a named Savepoint
-	    }
-	}
-
-	return null;
+	ConnectionEntry connectionEntry = getEntry(connectionKey);
+	return connectionEntry == null ? null : connectionEntry.savepointIdMap.get(savepointId);
     }
     
     /**
@@ -150,21 +166,11 @@ public class ConnectionStore {
      * @return the Savepoint associated to username + connectionId and Savepoint Name
      */
     public Savepoint getSavepoint(String savepointName) {
-	Set<Savepoint> savepointSet = savepointMap.get(connectionKey);
-
-	for (Iterator<Savepoint> iterator = savepointSet.iterator(); iterator.hasNext();) {
-	    Savepoint savepoint = iterator.next();
-
-	    try {
-		if (savepoint.getSavepointName().equals(savepointName)) {
-		    return savepoint;
-		}
-	    } catch (Throwable e) {
-		// Ignore. We don't care: it's a named Savepoint
-	    }
+	ConnectionEntry connectionEntry = getEntry(connectionKey);
+	if (connectionEntry == null || savepointName == null) {
+	    return null;
 	}
-
-	return null;
+	return connectionEntry.savepointNameMap.get(savepointName);
     }
 
     /**
@@ -175,28 +181,32 @@ public class ConnectionStore {
      *
      */
     public void remove(Savepoint savepointInfo) {
-	Set<Savepoint> savepointSet = savepointMap.get(connectionKey);
+	ConnectionEntry connectionEntry = getEntry(connectionKey);
+	if (connectionEntry == null) {
+	    return;
+	}
 
-	for (Iterator<Savepoint> iterator = savepointSet.iterator(); iterator.hasNext();) {
-	    Savepoint savepoint = iterator.next();
+	Savepoint savepoint = null;
+	try {
+	    savepoint = connectionEntry.savepointIdMap.remove(savepointInfo.getSavepointId());
+	} catch (SQLException e) {
+	    // We don't care: it's a named Savepoint
+	}
 
-	    try {
-		if (savepoint.getSavepointId() == savepointInfo.getSavepointId()) {
-		    savepointSet.remove(savepoint);
-		}
-	    } catch (SQLException e) {
-		// We don't care: it's a named Savepoint
-	    }
-
-	    try {
-		if (savepoint.getSavepointName().equals(savepointInfo.getSavepointName())) {
-		    savepointSet.remove(savepoint);
-		}
-	    } catch (SQLException e) {
-		// We don't care: it's a unnamed Savepoint
+	try {
+	    String savepointName = savepointInfo.getSavepointName();
+	    if (savepointName != null) {
+		savepoint = connectionEntry.savepointNameMap.remove(savepointName);
 	    }
+	} catch (SQLException e) {
+	    // We don't care: it's a unnamed Savepoint
 	}
 
+	// A Savepoint may have both an ID and a name: remove it from the other Map
+	if (savepoint != null) {
+	    connectionEntry.savepointIdMap.values().remove(savepoint);
+	    connectionEntry.savepointNameMap.values().remove(savepoint);
+	}
     }
 
     /**
@@ -211,14 +221,7 @@ public class ConnectionStore {
 	    throw new IllegalArgumentException("array is null!");
 	}
 
-	Set<Array> arraySet = arrayMap.get(connectionKey);
-	if (arraySet == null) {
-	    arraySet = new LinkedHashSet<Array>();
-	}
-
-	arraySet.add(array);
-	arrayMap.put(connectionKey, arraySet);
-
+	putEntry(connectionKey).arrayMap.put(array.hashCode(), array);
     }
 
     /**
@@ -229,20 +232,22 @@ public class ConnectionStore {
      * @return the Array associated to username + connectionId and arrayId
      */
     public Array getArray(int arrayId) {
-	Set<Array> arraySet = arrayMap.get(connectionKey);
-
-	for (Iterator<Array> iterator = arraySet.iterator(); iterator.hasNext();) {
-	    Array array = iterator.next();
+	ConnectionEntry connectionEntry = getEntry(connectionKey);
+	return connectionEntry == null ? null : connectionEntry.arrayMap.get(arrayId);
+    }
 
-	    if (array.hashCode() == arrayId) {
-		return array;
-	    }
+    /**
+     * Removes the Array associated to username + connectionId and arrayId
+     *
+     * @param arrayId the array id (it's haschode())
+     */
+    public void removeArray(int arrayId) {
+	ConnectionEntry connectionEntry = getEntry(connectionKey);
+	if (connectionEntry != null) {
+	    connectionEntry.arrayMap.remove(arrayId);
 	}
-
-	return null;
     }
 
-
     /**
      * Stores the RowId in static for username + connectionId
      *
@@ -255,13 +260,7 @@ public class ConnectionStore {
 	    throw new IllegalArgumentException("rowId is null!");
 	}
 
-	Set<RowId> rowIdSet = rowIdMap.get(connectionKey);
-	if (rowIdSet == null) {
-	    rowIdSet = new LinkedHashSet<RowId>();
-	}
-
-	rowIdSet.add(rowId);
-	rowIdMap.put(connectionKey, rowIdSet);
+	putEntry(connectionKey).rowIdMap.put(rowId.hashCode(), rowId);
     }
 
     /**
@@ -272,19 +271,151 @@ public class ConnectionStore {
      * @return the Array associated to username + connectionId and arrayId
      */
     public RowId getRowId(int rowIdHashCode) {
-	Set<RowId> rowIdSet = rowIdMap.get(connectionKey);
+	ConnectionEntry connectionEntry = getEntry(connectionKey);
+	return connectionEntry == null ? null : connectionEntry.rowIdMap.get(rowIdHashCode);
+    }
 
-	for (Iterator<RowId> iterator = rowIdSet.iterator(); iterator.hasNext();) {
-	    RowId rowId = iterator.next();
+    /**
+     * Removes the RowId associated to username + connectionId and hashCode
+     *
+     * @param rowIdHashCode the RowId id (it's haschode())
+     */
+    public void removeRowId(int rowIdHashCode) {
+	ConnectionEntry connectionEntry = getEntry(connectionKey);
+	if (connectionEntry != null) {
+	    connectionEntry.rowIdMap.remove(rowIdHashCode);
+	}
+    }
+
+    /**
+     * Stores the server-side cursor for username + connectionId, if the session
+     * has less than {@code maxCursorsPerSession} open cursors.
+     *
+     * @param serverCursor         the cursor to store
+     * @param maxCursorsPerSession the maximum number of open cursors of the
+     *                             session
+     * @return false if the cursor is not stored because the session has already
+     *         {@code maxCursorsPerSession} open cursors
+     */
+    public boolean put(ServerCursor serverCursor, int maxCursorsPerSession) {
 
-	    if (rowId.hashCode() == rowIdHashCode) {
-		return rowId;
+	debug("Creating a cursor for user: " + connectionKey);
+	if (serverCursor == null) {
+	    throw new IllegalArgumentException("serverCursor is null!");
+	}
+
+	// Cursor creations are rare: a global lock makes the limit exact
+	synchronized (ConnectionStore.class) {
+	    if (getCursorCount(connectionKey.getUsername(), connectionKey.getSessionId()) >= maxCursorsPerSession) {
+		return false;
 	    }
+	    putEntry(connectionKey).cursorMap.put(serverCursor.getCursorId(), serverCursor);
+	}
+
+	ServerCursorReaper.start();
+	return true;
+    }
+
+    /**
+     * Returns the server-side cursor associated to username + connectionId and
+     * cursor id
+     *
+     * @param cursorId the cursor id
+     * @return the cursor, or null if none
+     */
+    public ServerCursor getCursor(String cursorId) {
+	ConnectionEntry connectionEntry = getEntry(connectionKey);
+	if (connectionEntry == null || cursorId == null) {
+	    return null;
+	}
+	return connectionEntry.cursorMap.get(cursorId);
+    }
+
+    /**
+     * Removes the server-side cursor associated to username + connectionId and
+     * cursor id. The cursor is not closed.
+     *
+     * @param cursorId the cursor id
+     * @return the removed cursor, or null if none
+     */
+    public ServerCursor removeCursor(String cursorId) {
+	ConnectionEntry connectionEntry = getEntry(connectionKey);
+	if (connectionEntry == null || cursorId == null) {
+	    return null;
+	}
+	return connectionEntry.cursorMap.remove(cursorId);
+    }
+
+    /**
+     * Removes and closes all the server-side cursors of username + connectionId.
+     * To be called before the Connection is released.
+     */
+    public void closeCursors() {
+	closeCursors(getEntry(connectionKey));
+    }
+
+    /**
+     * Removes and closes all the server-side cursors of couple(username,
+     * sessionId). To be called before the Connections are released.
+     *
+     * @param username  the client username
+     * @param sessionId the client session Id
+     */
+    public static void closeAllCursors(String username, String sessionId) {
+	Map<ConnectionKey, ConnectionEntry> entries = sessionMap.get(getSessionKey(username, sessionId));
+	if (entries == null) {
+	    return;
 	}
 
-	return null;
+	for (ConnectionEntry connectionEntry : entries.values()) {
+	    closeCursors(connectionEntry);
+	}
     }
 
+    /**
+     * Returns the number of open server-side cursors of couple(username,
+     * sessionId)
+     *
+     * @param username  the client username
+     * @param sessionId the client session Id
+     * @return the number of open cursors of the session
+     */
+    public static int getCursorCount(String username, String sessionId) {
+	Map<ConnectionKey, ConnectionEntry> entries = sessionMap.get(getSessionKey(username, sessionId));
+	if (entries == null) {
+	    return 0;
+	}
+
+	int cursorCount = 0;
+	for (ConnectionEntry connectionEntry : entries.values()) {
+	    cursorCount += connectionEntry.cursorMap.size();
+	}
+	return cursorCount;
+    }
+
+    /**
+     * Removes and closes all the server-side cursors that are not fetched since
+     * their idle timeout. Called by the {@link ServerCursorReaper}.
+     *
+     * @return the number of closed cursors
+     */
+    public static int closeIdleCursors() {
+	long now = System.currentTimeMillis();
+	int closed = 0;
+
+	for (Map<ConnectionKey, ConnectionEntry> entries : sessionMap.values()) {
+	    for (ConnectionEntry connectionEntry : entries.values()) {
+		for (ServerCursor serverCursor : connectionEntry.cursorMap.values()) {
+		    if (serverCursor.closeIfIdle(now)) {
+			connectionEntry.cursorMap.remove(serverCursor.getCursorId());
+			closed++;
+		    }
+		}
+	    }
+	}
+
+	return closed;
+    }
 
     /**
      * Returns the Connection associated to username + connectionId
@@ -310,10 +441,7 @@ public class ConnectionStore {
      */
     public void remove() {
 	debug("Removing a Connection for user: " + connectionKey);
-	connectionMap.remove(connectionKey);
-	savepointMap.remove(connectionKey);
-	arrayMap.remove(connectionKey);
-	rowIdMap.remove(connectionKey);
+	remove(connectionKey);
     }
 
     /**
@@ -322,9 +450,31 @@ public class ConnectionStore {
      */
     public static void remove(ConnectionKey connectionKey) {
 	connectionMap.remove(connectionKey);
-	savepointMap.remove(connectionKey);
-	arrayMap.remove(connectionKey);
-	rowIdMap.remove(connectionKey);
+
+	ConnectionEntry[] connectionEntry = new ConnectionEntry[1];
+
+	// Remove the session index if it was the last Connection of the session
+	sessionMap.computeIfPresent(getSessionKey(connectionKey.getUsername(), connectionKey.getSessionId()),
+		(sessionKey, entries) -> {
+		    connectionEntry[0] = entries.remove(connectionKey);
+		    return entries.isEmpty() ? null : entries;
+		});
+
+	removePhysicalConnectionKey(connectionEntry[0], connectionKey);
+	closeCursors(connectionEntry[0]);
+    }
+
+    /**
+     * Returns the keys of a physical Connection. To be used by the
+     * {@code AceQLJdbcInterceptor} when the pool disconnects a Connection.
+     *
+     * @param physicalConnection the physical Connection, unwrapped from the pool
+     *                           proxy
+     * @return a copy of the keys of the physical Connection. Empty if none.
+     */
+    public static Set<ConnectionKey> getConnectionKeys(Connection physicalConnection) {
+	Set<ConnectionKey> connectionKeys = physicalConnectionMap.get(physicalConnection);
+	return connectionKeys == null ? new HashSet<>() : new HashSet<>(connectionKeys);
     }
     
     /**
@@ -345,14 +495,25 @@ public class ConnectionStore {
 	return connectionMap.keySet();
     }
 
+    /**
+     * Returns all the Connections of couple(username, sessionId)
+     *
+     * @param username  the client username
+     * @param sessionId the client session Id
+     * @return all the Connections of couple(username, sessionId)
+     */
     public static Set<Connection> getAllConnections(String username, String sessionId) {
 
 	Set<Connection> connections = new HashSet<>();
 
-	for (ConnectionKey connectionKey : connectionMap.keySet()) {
-	    if (connectionKey.getUsername().equals(username) && connectionKey.getSessionId().equals(sessionId)) {
-		Connection connection = connectionMap.get(connectionKey);
-		connections.add(connection);
+	Map<ConnectionKey, ConnectionEntry> entries = sessionMap.get(getSessionKey(username, sessionId));
+	if (entries == null) {
+	    return connections;
+	}
+
+	for (ConnectionEntry connectionEntry : entries.values()) {
+	    if (connectionEntry.connection != null) {
+		connections.add(connectionEntry.connection);
 	    }
 	}
 
@@ -368,38 +529,152 @@ public class ConnectionStore {
      *         couple(username, sessionId)
      */
     public Connection getFirst() throws SQLException {
-	Set<Connection> connections = getAllConnections(this.connectionKey.getUsername(),
-		this.connectionKey.getSessionId());
-	if (connections.isEmpty()) {
-	    throw new SQLException("No Connection stored for (" + this.connectionKey.getUsername() + ", "
-		    + this.connectionKey.getSessionId() + ")");
+	Map<ConnectionKey, ConnectionEntry> entries = sessionMap
+		.get(getSessionKey(this.connectionKey.getUsername(), this.connectionKey.getSessionId()));
+
+	if (entries != null) {
+	    for (ConnectionEntry connectionEntry : entries.values()) {
+		if (connectionEntry.connection != null) {
+		    return connectionEntry.connection;
+		}
+	    }
 	}
-	List<Connection> connectionsList = new ArrayList<>();
-	connectionsList.addAll(connections);
-	return connectionsList.get(0);
+
+	throw new SQLException("No Connection stored for (" + this.connectionKey.getUsername() + ", "
+		+ this.connectionKey.getSessionId() + ")");
     }
 
+    /**
+     * Removes all the Connections of couple(username, sessionId) and their
+     * Savepoints, Arrays and RowIds.
+     *
+     * @param username  the client username
+     * @param sessionId the client session Id
+     */
     public static void removeAll(String username, String sessionId) {
+	Map<ConnectionKey, ConnectionEntry> entries = sessionMap.remove(getSessionKey(username, sessionId));
+	if (entries == null) {
+	    return;
+	}
 
-	// No!! Will trigger a ConcurrentModificationException!
-	/**
-	<pre><code>
-	for (ConnectionKey connectionKey : connectionMap.keySet()) {
-	    if (connectionKey.getUsername().equals(username) && connectionKey.getSessionId().equals(sessionId)) {
-		connectionMap.remove(connectionKey);
+	for (Map.Entry<ConnectionKey, ConnectionEntry> entry : entries.entrySet()) {
+	    connectionMap.remove(entry.getKey());
+	    removePhysicalConnectionKey(entry.getValue(), entry.getKey());
+	    closeCursors(entry.getValue());
+	}
+    }
+
+    /**
+     * Removes and closes the server-side cursors of an entry.
+     */
+    private static void closeCursors(ConnectionEntry connectionEntry) {
+	if (connectionEntry == null) {
+	    return;
+	}
+
+	for (String cursorId : connectionEntry.cursorMap.keySet()) {
+	    ServerCursor serverCursor = connectionEntry.cursorMap.remove(cursorId);
+	    if (serverCursor != null) {
+		serverCursor.close();
 	    }
 	}
-	</code></pre>
-	*/
-	// Intermediate Collection to avoid ConcurrentModificationException on Map
+    }
 
-	Set<ConnectionKey> connectionsKeys = new HashSet<>(connectionMap.keySet());
+    /**
+     * Removes a key from the physical Connection index.
+     */
+    private static void removePhysicalConnectionKey(ConnectionEntry connectionEntry, ConnectionKey connectionKey) {
+	if (connectionEntry == null) {
+	    return;
+	}
 
-	for (ConnectionKey connectionKey : connectionsKeys) {
-	    if (connectionKey.getUsername().equals(username) && connectionKey.getSessionId().equals(sessionId)) {
-		connectionMap.remove(connectionKey);
+	synchronized (connectionEntry) {
+	    if (connectionEntry.physicalConnection != null) {
+		removePhysicalConnectionKey(connectionEntry.physicalConnection, connectionKey);
+	    }
+	}
+    }
+
+    private static void removePhysicalConnectionKey(Connection physicalConnection, ConnectionKey connectionKey) {
+	physicalConnectionMap.computeIfPresent(physicalConnection, (connection, connectionKeys) -> {
+	    connectionKeys.remove(connectionKey);
+	    return connectionKeys.isEmpty() ? null : connectionKeys;
+	});
+    }
+
+    /**
+     * Unwraps the Connection if it's a pool PooledConnection, in order to index
+     * it with the Connection passed to the pool interceptors.
+     */
+    private static Connection getPhysicalConnection(Connection connection) {
+	if (connection instanceof javax.sql.PooledConnection) {
+	    try {
+		Connection actual = ((javax.sql.PooledConnection) connection).getConnection();
+		if (actual != null) {
+		    return actual;
+		}
+	    } catch (SQLException e) {
+		debug("Impossible to unwrap Connection: " + e);
 	    }
 	}
+	return connection;
+    }
+
+    /**
+     * Returns the key of the session index: a ConnectionKey without connectionId.
+     */
+    private static ConnectionKey getSessionKey(String username, String sessionId) {
+	return new ConnectionKey(username, sessionId, null);
+    }
+
+    /**
+     * Returns the entry of a Connection, null if none.
+     */
+    private static ConnectionEntry getEntry(ConnectionKey connectionKey) {
+	Map<ConnectionKey, ConnectionEntry> entries = sessionMap
+		.get(getSessionKey(connectionKey.getUsername(), connectionKey.getSessionId()));
+	return entries == null ? null : entries.get(connectionKey);
+    }
+
+    /**
+     * Returns the entry of a Connection, created if necessary.
+     */
+    private static ConnectionEntry putEntry(ConnectionKey connectionKey) {
+	ConnectionEntry[] connectionEntry = new ConnectionEntry[1];
+
+	// compute() is atomic per session: no concurrent remove of the session index
+	sessionMap.compute(getSessionKey(connectionKey.getUsername(), connectionKey.getSessionId()),
+		(sessionKey, entries) -> {
+		    if (entries == null) {
+			entries = new ConcurrentHashMap<>();
+		    }
+		    connectionEntry[0] = entries.computeIfAbsent(connectionKey, key -> new ConnectionEntry());
+		    return entries;
+		});
+
+	return connectionEntry[0];
+    }
+
+    /**
+     * The Connection of a ConnectionKey with its Savepoints, Arrays, RowIds and
+     * server-side cursors.
+     */
+    private static class ConnectionEntry {
+	private volatile Connection connection;
+
+	/** The unwrapped Connection, key of the physical Connection index */
+	private Connection physicalConnection;
+
+	/** Savepoints indexed by ID for unnamed ones and by name for named ones */
+	private Map<Integer, Savepoint> savepointIdMap = new ConcurrentHashMap<>();
+	private Map<String, Savepoint> savepointNameMap = new ConcurrentHashMap<>();
+
+	/** Arrays & RowIds indexed by their hashCode(), which is their client side id */
+	private Map<Integer, Array> arrayMap = new ConcurrentHashMap<>();
+	private Map<Integer, RowId> rowIdMap = new ConcurrentHashMap<>();
+
+	/** Server-side cursors indexed by their cursor id */
+	private Map<String, ServerCursor> cursorMap = new ConcurrentHashMap<>();
     }
 
     /**
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.connection;
+
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.kawanfw.sql.util.FrameworkDebug;
+
+/**
+ * Closes periodically the server-side cursors of the {@link ConnectionStore}
+ * that are not fetched since their idle timeout. <br>
+ * The background thread is started with the first cursor.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class ServerCursorReaper {
+
+    private static boolean DEBUG = FrameworkDebug.isSet(ServerCursorReaper.class);
+
+    /** The delay between two checks of the idle cursors */
+    public static final int REAP_PERIOD_SECONDS = 30;
+
+    private static ScheduledExecutorService scheduledExecutorService = null;
+
+    /**
+     * Static class.
+     */
+    protected ServerCursorReaper() {
+
+    }
+
+    /**
+     * Starts the background thread if not already done.
+     */
+    public static synchronized void start() {
+	if (scheduledExecutorService != null) {
+	    return;
+	}
+
+	scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+	    Thread thread = new Thread(runnable, "AceQL-cursor-reaper");
+	    thread.setDaemon(true);
+	    return thread;
+	});
+
+	scheduledExecutorService.scheduleWithFixedDelay(ServerCursorReaper::reap, REAP_PERIOD_SECONDS,
+		REAP_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the background thread. To be called when the servlet is destroyed.
+     */
+    public static synchronized void shutdown() {
+	if (scheduledExecutorService != null) {
+	    scheduledExecutorService.shutdownNow();
+	    scheduledExecutorService = null;
+	}
+    }
+
+    private static void reap() {
+	try {
+	    int closed = ConnectionStore.closeIdleCursors();
+	    if (closed > 0) {
+		debug(closed + " idle cursor(s) closed.");
+	    }
+	} catch (Throwable e) {
+	    // Never stop the scheduled task
+	    System.out.println(new Date() + " Failure on idle cursors close: " + e.toString());
+	}
+    }
+
+    private static void debug(String s) {
+	if (DEBUG) {
+	    System.out.println(new Date() + " " + s);
+	}
+    }
+
+}
@@ -24,6 +24,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.kawanfw.sql.servlet.HttpParameter;
 import org.kawanfw.sql.servlet.ServerSqlManager;
+import org.kawanfw.sql.servlet.sql.QueryResultCache;
 import org.kawanfw.sql.servlet.sql.json_return.JsonErrorReturn;
 import org.kawanfw.sql.servlet.sql.json_return.JsonOkReturn;
 import org.kawanfw.sql.util.FrameworkDebug;
@@ -58,12 +59,15 @@ public class TransactionUtil {
 
 	    if (action.equals(HttpParameter.COMMIT)) {
 		connection.commit();
+		QueryResultCache.transactionEnded(connection);
 
 	    } else if (action.equals(HttpParameter.ROLLBACK)) {
 		connection.rollback();
+		QueryResultCache.transactionEnded(connection);
 	    } else if (action.equals(HttpParameter.SET_AUTO_COMMIT)) {
 		boolean autoCommit = Boolean.parseBoolean(request.getParameter(HttpParameter.ACTION_VALUE));
 		connection.setAutoCommit(autoCommit);
+		QueryResultCache.transactionEnded(connection);
 	    } else if (action.equals(HttpParameter.SET_READ_ONLY)) {
 		boolean readOnly = Boolean.parseBoolean(request.getParameter(HttpParameter.ACTION_VALUE));
 		connection.setReadOnly(readOnly);
@@ -16,6 +16,7 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import org.kawanfw.sql.api.server.DatabaseConfigurator;
@@ -64,6 +65,9 @@ public class InjectedClasses {
     /** The executor to use */
     private ThreadPoolExecutor threadPoolExecutor = null;
 
+    /** The virtual thread executor. Null if not in virtual_threads mode */
+    private ExecutorService virtualThreadExecutor = null;
+
     /** The map of (database, List<UpdateListener>) */
     private Map<String, Set<UpdateListener>> updateListenerMap = new ConcurrentHashMap<>();
 
@@ -82,6 +86,7 @@ public class InjectedClasses {
 	this.blobDownloadConfigurator = injectedClassesBuilder.blobDownloadConfigurator;
 	this.sessionConfigurator = injectedClassesBuilder.sessionConfigurator;
 	this.threadPoolExecutor = injectedClassesBuilder.threadPoolExecutor;
+	this.virtualThreadExecutor = injectedClassesBuilder.virtualThreadExecutor;
 
 	this.updateListenerMap = injectedClassesBuilder.updateListenerMap;
 	this.loggerCreatorSet = injectedClassesBuilder.loggerCreatorSet;
@@ -158,6 +163,14 @@ public class InjectedClasses {
 	return threadPoolExecutor;
     }
 
+    /**
+     * @return the virtual thread executor, or null if the requests are not
+     *         executed in virtual threads
+     */
+    public ExecutorService getVirtualThreadExecutor() {
+	return virtualThreadExecutor;
+    }
+
     /**
      * @return the updateListenerMap
      */
@@ -193,6 +206,9 @@ public class InjectedClasses {
 	/** The executor to use */
 	private ThreadPoolExecutor threadPoolExecutor = null;
 
+	/** The virtual thread executor. Null if not in virtual_threads mode */
+	private ExecutorService virtualThreadExecutor = null;
+
 	/** The map of (database, List<UpdateListener>) */
 	private Map<String, Set<UpdateListener>> updateListenerMap = new ConcurrentHashMap<>();
 
@@ -265,6 +281,11 @@ public class InjectedClasses {
 	    return this;
 	}
 
+	public InjectedClassesBuilder virtualThreadExecutor(ExecutorService virtualThreadExecutor) {
+	    this.virtualThreadExecutor = virtualThreadExecutor;
+	    return this;
+	}
+
 	public InjectedClassesBuilder updateListenerMap(Map<String, Set<UpdateListener>> updateListenerMap) {
 	    this.updateListenerMap = updateListenerMap;
 	    return this;
@@ -26,6 +26,9 @@ import java.util.Set;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import javax.servlet.ServletException;
+import javax.sql.DataSource;
+
+import org.apache.tomcat.jdbc.pool.DataSourceProxy;
 
 import org.kawanfw.sql.api.server.DatabaseConfigurationException;
 import org.kawanfw.sql.api.server.DatabaseConfigurator;
@@ -34,6 +37,8 @@ import org.kawanfw.sql.api.server.firewall.trigger.SqlFirewallTrigger;
 import org.kawanfw.sql.api.server.listener.UpdateListener;
 import org.kawanfw.sql.api.server.logging.LoggerCreator;
 import org.kawanfw.sql.api.server.session.JwtSessionConfigurator;
+import org.kawanfw.sql.servlet.BannedUsernamesCache;
+import org.kawanfw.sql.servlet.RequestLanes;
 import org.kawanfw.sql.servlet.injection.classes.InjectedClasses.InjectedClassesBuilder;
 import org.kawanfw.sql.servlet.injection.classes.creator.BlobDownloadConfiguratorCreator;
 import org.kawanfw.sql.servlet.injection.classes.creator.BlobUploadConfiguratorCreator;
@@ -52,6 +57,9 @@ import org.kawanfw.sql.servlet.injection.properties.PropertiesFileUtil;
 import org.kawanfw.sql.tomcat.TomcatSqlModeStore;
 import org.kawanfw.sql.tomcat.TomcatStarterMessages;
 import org.kawanfw.sql.tomcat.TomcatStarterUtil;
+import org.kawanfw.sql.tomcat.properties.threadpool.RequestExecutorMode;
+import org.kawanfw.sql.tomcat.properties.threadpool.RequestLanesProperties;
+import org.kawanfw.sql.tomcat.properties.threadpool.VirtualThreadExecutorBuilder;
 import org.kawanfw.sql.util.FrameworkDebug;
 import org.kawanfw.sql.util.SqlTag;
 import org.kawanfw.sql.util.Tag;
@@ -125,6 +133,16 @@ public class InjectedClassesManagerNew {
 	    // Check ThreadPoolExecutor parameters
 	    ThreadPoolCapacityWarner threadPoolCapacityWarner = new ThreadPoolCapacityWarner(propertiesFileStr);
 	    threadPoolCapacityWarner.warnOnThreadPoolExecutorParams();
+
+	    // The optional request lanes pools & queues
+	    Properties properties = PropertiesFileUtil.getProperties(PropertiesFileStore.get());
+	    boolean virtualThreads = loadVirtualThreadExecutor(properties, injectedClassesBuilder);
+
+	    // With virtual threads, the query lane is limited by the JDBC pools, not by
+	    // the ThreadPoolExecutor
+	    int defaultQueryLaneMaximumPoolSize = virtualThreads ? getDataSourcesMaxActive()
+		    : threadPoolExecutor.getMaximumPoolSize();
+	    RequestLanes.init(new RequestLanesProperties(properties), defaultQueryLaneMaximumPoolSize);
 	    
 	    // All elements that depend on database
 	    loadPerDatabase(databases, injectedClassesBuilder);
@@ -138,6 +156,9 @@ public class InjectedClassesManagerNew {
 
 	    // Store the InjectedClasses instance statically
 	    InjectedClassesStore.set(injectedClasses);
+
+	    // Banned users are checked on each request: load them once
+	    BannedUsernamesCache.loadAll(databases);
 	    	    
 	    //printWarningMessageNotProtecting(databases);
 	    displayLoggerCreators();
@@ -306,6 +327,56 @@ public class InjectedClassesManagerNew {
 	 */
     }
 
+    /**
+     * Creates the virtual thread executor if requestExecutorMode is
+     * virtual_threads. The ThreadPoolExecutor is still created, as it is used
+     * by the other requests lanes.
+     *
+     * @param properties             the properties file content
+     * @param injectedClassesBuilder the builder to fill
+     * @return true if the virtual thread executor is created
+     */
+    private boolean loadVirtualThreadExecutor(Properties properties, InjectedClassesBuilder injectedClassesBuilder) {
+	String requestExecutorModeStr = properties.getProperty("requestExecutorMode");
+	if (requestExecutorModeStr == null || requestExecutorModeStr.trim().isEmpty()) {
+	    return false;
+	}
+
+	RequestExecutorMode requestExecutorMode = null;
+	try {
+	    requestExecutorMode = RequestExecutorMode.valueOf(requestExecutorModeStr.trim());
+	} catch (IllegalArgumentException e) {
+	    throw new DatabaseConfigurationException(
+		    "requestExecutorMode value is invalid: " + requestExecutorModeStr + ". " + SqlTag.PLEASE_CORRECT);
+	}
+
+	if (requestExecutorMode.equals(RequestExecutorMode.virtual_threads)) {
+	    VirtualThreadExecutorBuilder virtualThreadExecutorBuilder = new VirtualThreadExecutorBuilder();
+	    injectedClassesBuilder.virtualThreadExecutor(virtualThreadExecutorBuilder.build());
+	    return true;
+	}
+	return false;
+    }
+
+    /**
+     * Returns the sum of the maxActive values of the JDBC pools of the
+     * databases, or Integer.MAX_VALUE (no limit) if a database does not use an
+     * AceQL created pool.
+     *
+     * @return the maximum number of Connections that may be used at once
+     */
+    private static int getDataSourcesMaxActive() {
+	int maxActive = 0;
+	for (String database : ConfPropertiesStore.get().getDatabaseNames()) {
+	    DataSource dataSource = TomcatSqlModeStore.getDataSource(database);
+	    if (!(dataSource instanceof DataSourceProxy)) {
+		return Integer.MAX_VALUE;
+	    }
+	    maxActive += ((DataSourceProxy) dataSource).getMaxActive();
+	}
+	return maxActive > 0 ? maxActive : Integer.MAX_VALUE;
+    }
+
     /**
      * Loads Session Manager Configurator.
      * 
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.injection.properties;
+/**
+ * Enum of the asyncEventsOverflowPolicy property: what to do with a SQL
+ * firewall trigger or update listener event when the async queue is full.
+ * @author Nicolas de Pomereu
+ *
+ */
+public enum AsyncEventsOverflowPolicy {
+    /** Wait on the request thread until the queue has room */
+    block,
+    /** Drop the event */
+    discard,
+    /** Run the triggers or listeners synchronously on the request thread */
+    caller_runs
+}
@@ -51,6 +51,34 @@ public class ConfProperties {
 
     private Map<String, OperationalMode> operationalModeMap =  new ConcurrentHashMap<>(); 
 
+    /** The (Database name, max length of BLOB/CLOB values sent inline) Map */
+    private Map<String, Integer> lobInlineMaxLengthMap = new ConcurrentHashMap<>();
+
+    /** The (Database name, number of rows per executeBatch() call) Map */
+    private Map<String, Integer> batchChunkSizeMap = new ConcurrentHashMap<>();
+
+    /** The (Database name, max cached PreparedStatements per connection) Map */
+    private Map<String, Integer> preparedStatementCacheSizeMap = new ConcurrentHashMap<>();
+
+    /** The (Database name, fetch size of the streamed SELECT result sets) Map */
+    private Map<String, Integer> streamingFetchSizeMap = new ConcurrentHashMap<>();
+
+    /** The (Database name, server-side cursors settings) Maps */
+    private Map<String, Integer> cursorMaxPerSessionMap = new ConcurrentHashMap<>();
+    private Map<String, Integer> cursorIdleTimeoutMap = new ConcurrentHashMap<>();
+
+    /** The (Database name, SELECT responses cache settings) Maps */
+    private Map<String, Integer> queryResultCacheSizeMap = new ConcurrentHashMap<>();
+    private Map<String, Integer> queryResultCacheTtlMap = new ConcurrentHashMap<>();
+
+    /** The (Database name, default query timeout in seconds) Map */
+    private Map<String, Integer> queryTimeoutMap = new ConcurrentHashMap<>();
+
+    /** The (Database name, async SQL firewall trigger & update listener events settings) Maps */
+    private Map<String, Integer> asyncEventsQueueSizeMap = new ConcurrentHashMap<>();
+    private Map<String, Integer> asyncEventsBatchSizeMap = new ConcurrentHashMap<>();
+    private Map<String, AsyncEventsOverflowPolicy> asyncEventsOverflowPolicyMap = new ConcurrentHashMap<>();
+
     private ConfProperties(ConfPropertiesBuilder confPropertiesBuilder) {
 	this.databaseSet = confPropertiesBuilder.databaseSet;
 	this.databaseConfiguratorClassNameMap = confPropertiesBuilder.databaseConfiguratorClassNameMap;
@@ -74,6 +102,18 @@ public class ConfProperties {
 	this.updateListenerClassNamesMap = confPropertiesBuilder.updateListenerClassNamesMap;
 	
 	this.operationalModeMap = confPropertiesBuilder.operationalModeMap;
+	this.lobInlineMaxLengthMap = confPropertiesBuilder.lobInlineMaxLengthMap;
+	this.batchChunkSizeMap = confPropertiesBuilder.batchChunkSizeMap;
+	this.preparedStatementCacheSizeMap = confPropertiesBuilder.preparedStatementCacheSizeMap;
+	this.streamingFetchSizeMap = confPropertiesBuilder.streamingFetchSizeMap;
+	this.cursorMaxPerSessionMap = confPropertiesBuilder.cursorMaxPerSessionMap;
+	this.cursorIdleTimeoutMap = confPropertiesBuilder.cursorIdleTimeoutMap;
+	this.queryResultCacheSizeMap = confPropertiesBuilder.queryResultCacheSizeMap;
+	this.queryResultCacheTtlMap = confPropertiesBuilder.queryResultCacheTtlMap;
+	this.queryTimeoutMap = confPropertiesBuilder.queryTimeoutMap;
+	this.asyncEventsQueueSizeMap = confPropertiesBuilder.asyncEventsQueueSizeMap;
+	this.asyncEventsBatchSizeMap = confPropertiesBuilder.asyncEventsBatchSizeMap;
+	this.asyncEventsOverflowPolicyMap = confPropertiesBuilder.asyncEventsOverflowPolicyMap;
     }
 
     /**
@@ -190,6 +230,166 @@ public class ConfProperties {
 	return operationalModeMap.get(database);
     }
 
+    /**
+     * Returns the maximum length of the BLOB/CLOB values that may be sent inline
+     * in the result set, instead of being dumped in a file for download.
+     * 
+     * @param database the database name
+     * @return the maximum length in bytes for BLOB and in chars for CLOB. 0 if
+     *         inlining is disabled for the database.
+     */
+    public int getLobInlineMaxLength(String database) {
+	Objects.requireNonNull(database, "database cannnot be null!");
+	Integer lobInlineMaxLength = lobInlineMaxLengthMap.get(database);
+	return lobInlineMaxLength == null ? 0 : lobInlineMaxLength;
+    }
+
+    /**
+     * Returns the number of rows of a batch sent to the database per
+     * {@code executeBatch()} call.
+     * 
+     * @param database the database name
+     * @return the number of rows per {@code executeBatch()} call. 0 if all the
+     *         rows are sent with one call.
+     */
+    public int getBatchChunkSize(String database) {
+	Objects.requireNonNull(database, "database cannnot be null!");
+	Integer batchChunkSize = batchChunkSizeMap.get(database);
+	return batchChunkSize == null ? 0 : batchChunkSize;
+    }
+
+    /**
+     * Returns the maximum number of PreparedStatements kept open per JDBC
+     * Connection for reuse by the next requests with the same SQL order.
+     * 
+     * @param database the database name
+     * @return the maximum number of cached PreparedStatements per Connection. 0
+     *         if the cache is disabled for the database.
+     */
+    public int getPreparedStatementCacheSize(String database) {
+	Objects.requireNonNull(database, "database cannnot be null!");
+	Integer preparedStatementCacheSize = preparedStatementCacheSizeMap.get(database);
+	return preparedStatementCacheSize == null ? 0 : preparedStatementCacheSize;
+    }
+
+    /**
+     * Returns the number of rows fetched per database round trip when a SELECT
+     * result set is streamed to the client.
+     * 
+     * @param database the database name
+     * @return the streaming fetch size. 0 if the JDBC driver default fetch size
+     *         is used.
+     */
+    public int getStreamingFetchSize(String database) {
+	Objects.requireNonNull(database, "database cannnot be null!");
+	Integer streamingFetchSize = streamingFetchSizeMap.get(database);
+	return streamingFetchSize == null ? 0 : streamingFetchSize;
+    }
+
+    /**
+     * Returns the maximum number of server-side cursors that a stateful session
+     * may keep open at once.
+     * 
+     * @param database the database name
+     * @return the maximum number of open cursors per session. 0 if the cursors
+     *         are disabled for the database.
+     */
+    public int getCursorMaxPerSession(String database) {
+	Objects.requireNonNull(database, "database cannnot be null!");
+	Integer cursorMaxPerSession = cursorMaxPerSessionMap.get(database);
+	return cursorMaxPerSession == null ? 0 : cursorMaxPerSession;
+    }
+
+    /**
+     * Returns the delay after which a server-side cursor that is not fetched is
+     * closed.
+     * 
+     * @param database the database name
+     * @return the idle timeout in seconds. 0 if idle cursors are never closed.
+     */
+    public int getCursorIdleTimeout(String database) {
+	Objects.requireNonNull(database, "database cannnot be null!");
+	Integer cursorIdleTimeout = cursorIdleTimeoutMap.get(database);
+	return cursorIdleTimeout == null ? 0 : cursorIdleTimeout;
+    }
+
+    /**
+     * Returns the maximum total size of the cached SELECT responses.
+     * 
+     * @param database the database name
+     * @return the maximum size in bytes. 0 if the SELECT responses are not
+     *         cached for the database.
+     */
+    public int getQueryResultCacheSize(String database) {
+	Objects.requireNonNull(database, "database cannnot be null!");
+	Integer queryResultCacheSize = queryResultCacheSizeMap.get(database);
+	return queryResultCacheSize == null ? 0 : queryResultCacheSize;
+    }
+
+    /**
+     * Returns the delay after which a cached SELECT response expires.
+     * 
+     * @param database the database name
+     * @return the time to live in seconds
+     */
+    public int getQueryResultCacheTtl(String database) {
+	Objects.requireNonNull(database, "database cannnot be null!");
+	Integer queryResultCacheTtl = queryResultCacheTtlMap.get(database);
+	return queryResultCacheTtl == null ? 0 : queryResultCacheTtl;
+    }
+
+    /**
+     * Returns the default timeout of the SQL statements executed for the
+     * clients.
+     * 
+     * @param database the database name
+     * @return the query timeout in seconds. 0 if there is no timeout.
+     */
+    public int getQueryTimeout(String database) {
+	Objects.requireNonNull(database, "database cannnot be null!");
+	Integer queryTimeout = queryTimeoutMap.get(database);
+	return queryTimeout == null ? 0 : queryTimeout;
+    }
+
+    /**
+     * Returns the capacity of the queue of the SQL firewall trigger and update
+     * listener events that are run asynchronously.
+     * 
+     * @param database the database name
+     * @return the queue capacity. 0 if the events are run synchronously on the
+     *         request thread.
+     */
+    public int getAsyncEventsQueueSize(String database) {
+	Objects.requireNonNull(database, "database cannnot be null!");
+	Integer asyncEventsQueueSize = asyncEventsQueueSizeMap.get(database);
+	return asyncEventsQueueSize == null ? 0 : asyncEventsQueueSize;
+    }
+
+    /**
+     * Returns the maximum number of queued events passed at once to the SQL
+     * firewall triggers and update listeners.
+     * 
+     * @param database the database name
+     * @return the maximum number of events per batch
+     */
+    public int getAsyncEventsBatchSize(String database) {
+	Objects.requireNonNull(database, "database cannnot be null!");
+	Integer asyncEventsBatchSize = asyncEventsBatchSizeMap.get(database);
+	return asyncEventsBatchSize == null || asyncEventsBatchSize == 0 ? 1 : asyncEventsBatchSize;
+    }
+
+    /**
+     * Returns what to do with an event when the queue is full.
+     * 
+     * @param database the database name
+     * @return the overflow policy
+     */
+    public AsyncEventsOverflowPolicy getAsyncEventsOverflowPolicy(String database) {
+	Objects.requireNonNull(database, "database cannnot be null!");
+	AsyncEventsOverflowPolicy asyncEventsOverflowPolicy = asyncEventsOverflowPolicyMap.get(database);
+	return asyncEventsOverflowPolicy == null ? AsyncEventsOverflowPolicy.caller_runs : asyncEventsOverflowPolicy;
+    }
+
  
     /**
      * @return the sqlFirewallTriggerClassNamesMap
@@ -237,6 +437,18 @@ public class ConfProperties {
 	private Map<String, Set<String>> updateListenerClassNamesMap = new ConcurrentHashMap<>();
 
 	private Map<String, OperationalMode> operationalModeMap = new ConcurrentHashMap<>();
+	private Map<String, Integer> lobInlineMaxLengthMap = new ConcurrentHashMap<>();
+	private Map<String, Integer> batchChunkSizeMap = new ConcurrentHashMap<>();
+	private Map<String, Integer> preparedStatementCacheSizeMap = new ConcurrentHashMap<>();
+	private Map<String, Integer> streamingFetchSizeMap = new ConcurrentHashMap<>();
+	private Map<String, Integer> cursorMaxPerSessionMap = new ConcurrentHashMap<>();
+	private Map<String, Integer> cursorIdleTimeoutMap = new ConcurrentHashMap<>();
+	private Map<String, Integer> queryResultCacheSizeMap = new ConcurrentHashMap<>();
+	private Map<String, Integer> queryResultCacheTtlMap = new ConcurrentHashMap<>();
+	private Map<String, Integer> queryTimeoutMap = new ConcurrentHashMap<>();
+	private Map<String, Integer> asyncEventsQueueSizeMap = new ConcurrentHashMap<>();
+	private Map<String, Integer> asyncEventsBatchSizeMap = new ConcurrentHashMap<>();
+	private Map<String, AsyncEventsOverflowPolicy> asyncEventsOverflowPolicyMap = new ConcurrentHashMap<>();
 
 	public ConfPropertiesBuilder databaseSet(Set<String> databaseSet) {
 	    this.databaseSet = databaseSet;
@@ -314,6 +526,67 @@ public class ConfProperties {
 	    this.operationalModeMap = operationalModeMap;
 	    return this;
 	}
+
+	public ConfPropertiesBuilder lobInlineMaxLengthMap(Map<String, Integer> lobInlineMaxLengthMap) {
+	    this.lobInlineMaxLengthMap = lobInlineMaxLengthMap;
+	    return this;
+	}
+
+	public ConfPropertiesBuilder batchChunkSizeMap(Map<String, Integer> batchChunkSizeMap) {
+	    this.batchChunkSizeMap = batchChunkSizeMap;
+	    return this;
+	}
+
+	public ConfPropertiesBuilder preparedStatementCacheSizeMap(Map<String, Integer> preparedStatementCacheSizeMap) {
+	    this.preparedStatementCacheSizeMap = preparedStatementCacheSizeMap;
+	    return this;
+	}
+
+	public ConfPropertiesBuilder streamingFetchSizeMap(Map<String, Integer> streamingFetchSizeMap) {
+	    this.streamingFetchSizeMap = streamingFetchSizeMap;
+	    return this;
+	}
+
+	public ConfPropertiesBuilder cursorMaxPerSessionMap(Map<String, Integer> cursorMaxPerSessionMap) {
+	    this.cursorMaxPerSessionMap = cursorMaxPerSessionMap;
+	    return this;
+	}
+
+	public ConfPropertiesBuilder cursorIdleTimeoutMap(Map<String, Integer> cursorIdleTimeoutMap) {
+	    this.cursorIdleTimeoutMap = cursorIdleTimeoutMap;
+	    return this;
+	}
+
+	public ConfPropertiesBuilder queryResultCacheSizeMap(Map<String, Integer> queryResultCacheSizeMap) {
+	    this.queryResultCacheSizeMap = queryResultCacheSizeMap;
+	    return this;
+	}
+
+	public ConfPropertiesBuilder queryResultCacheTtlMap(Map<String, Integer> queryResultCacheTtlMap) {
+	    this.queryResultCacheTtlMap = queryResultCacheTtlMap;
+	    return this;
+	}
+
+	public ConfPropertiesBuilder queryTimeoutMap(Map<String, Integer> queryTimeoutMap) {
+	    this.queryTimeoutMap = queryTimeoutMap;
+	    return this;
+	}
+
+	public ConfPropertiesBuilder asyncEventsQueueSizeMap(Map<String, Integer> asyncEventsQueueSizeMap) {
+	    this.asyncEventsQueueSizeMap = asyncEventsQueueSizeMap;
+	    return this;
+	}
+
+	public ConfPropertiesBuilder asyncEventsBatchSizeMap(Map<String, Integer> asyncEventsBatchSizeMap) {
+	    this.asyncEventsBatchSizeMap = asyncEventsBatchSizeMap;
+	    return this;
+	}
+
+	public ConfPropertiesBuilder asyncEventsOverflowPolicyMap(
+		Map<String, AsyncEventsOverflowPolicy> asyncEventsOverflowPolicyMap) {
+	    this.asyncEventsOverflowPolicyMap = asyncEventsOverflowPolicyMap;
+	    return this;
+	}
 	
 	// Return the finally constructed User object
 	public ConfProperties build() {
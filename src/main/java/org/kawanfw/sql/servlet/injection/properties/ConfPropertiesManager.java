@@ -104,6 +104,29 @@ public class ConfPropertiesManager {
 	confPropertiesBuilder.sqlFirewallManagerClassNamesMap(sqlFirewallClassNamesMap);
 	confPropertiesBuilder.sqlFirewallTriggerClassNamesMap(sqlFirewallTriggerClassNamesMap);
 	confPropertiesBuilder.operationalModeMap(operationalModeMap);
+	confPropertiesBuilder.lobInlineMaxLengthMap(
+		buildIntegerMapPerDatabase(databases, ConfPropertiesUtil.LOB_INLINE_MAX_LENGTH, 0));
+	confPropertiesBuilder.batchChunkSizeMap(
+		buildIntegerMapPerDatabase(databases, ConfPropertiesUtil.BATCH_CHUNK_SIZE, 0));
+	confPropertiesBuilder.preparedStatementCacheSizeMap(
+		buildIntegerMapPerDatabase(databases, ConfPropertiesUtil.PREPARED_STATEMENT_CACHE_SIZE, 0));
+	confPropertiesBuilder.streamingFetchSizeMap(
+		buildIntegerMapPerDatabase(databases, ConfPropertiesUtil.STREAMING_FETCH_SIZE, 0));
+	confPropertiesBuilder.cursorMaxPerSessionMap(
+		buildIntegerMapPerDatabase(databases, ConfPropertiesUtil.CURSOR_MAX_PER_SESSION, 0));
+	confPropertiesBuilder.cursorIdleTimeoutMap(
+		buildIntegerMapPerDatabase(databases, ConfPropertiesUtil.CURSOR_IDLE_TIMEOUT, 300));
+	confPropertiesBuilder.queryResultCacheSizeMap(
+		buildIntegerMapPerDatabase(databases, ConfPropertiesUtil.QUERY_RESULT_CACHE_SIZE, 0));
+	confPropertiesBuilder.queryResultCacheTtlMap(
+		buildIntegerMapPerDatabase(databases, ConfPropertiesUtil.QUERY_RESULT_CACHE_TTL, 60));
+	confPropertiesBuilder.queryTimeoutMap(
+		buildIntegerMapPerDatabase(databases, ConfPropertiesUtil.QUERY_TIMEOUT, 0));
+	confPropertiesBuilder.asyncEventsQueueSizeMap(
+		buildIntegerMapPerDatabase(databases, ConfPropertiesUtil.ASYNC_EVENTS_QUEUE_SIZE, 0));
+	confPropertiesBuilder.asyncEventsBatchSizeMap(
+		buildIntegerMapPerDatabase(databases, ConfPropertiesUtil.ASYNC_EVENTS_BATCH_SIZE, 100));
+	confPropertiesBuilder.asyncEventsOverflowPolicyMap(buildAsyncEventsOverflowPolicyMap(databases));
 
 	if (DEBUG) {
 	    System.out.println("sqlFirewallTriggerClassNamesMap: " + sqlFirewallTriggerClassNamesMap);
@@ -137,6 +160,69 @@ public class ConfPropertiesManager {
 	    System.out.println(this.getClass().getSimpleName() + " " + new Date() + " " + s);
     }
 
+    /**
+     * Builds the (database, value) Map of a positive integer property defined per
+     * database.
+     * 
+     * @param databases    the database names
+     * @param propertyName the property name, without the database prefix
+     * @param defaultValue the value to use if the property is not set
+     * @return the (database, value) Map
+     */
+    private Map<String, Integer> buildIntegerMapPerDatabase(Set<String> databases, String propertyName,
+	    int defaultValue) {
+	Map<String, Integer> integerMap = new ConcurrentHashMap<>();
+
+	for (String database : databases) {
+	    String value = TomcatStarterUtil.trimSafe(properties.getProperty(database + "." + propertyName));
+	    if (value == null || value.isEmpty()) {
+		integerMap.put(database, defaultValue);
+		continue;
+	    }
+
+	    try {
+		int intValue = Integer.parseInt(value);
+		if (intValue < 0) {
+		    throw new NumberFormatException();
+		}
+		integerMap.put(database, intValue);
+	    } catch (NumberFormatException e) {
+		throw new IllegalArgumentException(SqlTag.USER_CONFIGURATION + " the " + database + "." + propertyName
+			+ " property value is invalid: " + value + ".  Please correct. ");
+	    }
+	}
+
+	return integerMap;
+    }
+
+    /**
+     * Builds the (database, AsyncEventsOverflowPolicy) Map.
+     * 
+     * @param databases the database names
+     * @return the (database, AsyncEventsOverflowPolicy) Map
+     */
+    private Map<String, AsyncEventsOverflowPolicy> buildAsyncEventsOverflowPolicyMap(Set<String> databases) {
+	Map<String, AsyncEventsOverflowPolicy> policyMap = new ConcurrentHashMap<>();
+
+	for (String database : databases) {
+	    String policy = TomcatStarterUtil.trimSafe(
+		    properties.getProperty(database + "." + ConfPropertiesUtil.ASYNC_EVENTS_OVERFLOW_POLICY));
+	    if (policy == null || policy.isEmpty()) {
+		policy = AsyncEventsOverflowPolicy.caller_runs.toString();
+	    }
+
+	    try {
+		policyMap.put(database, AsyncEventsOverflowPolicy.valueOf(policy));
+	    } catch (IllegalArgumentException e) {
+		throw new IllegalArgumentException(SqlTag.USER_CONFIGURATION + " the " + database + "."
+			+ ConfPropertiesUtil.ASYNC_EVENTS_OVERFLOW_POLICY + " property value is invalid: " + policy
+			+ ".  Please correct. ");
+	    }
+	}
+
+	return policyMap;
+    }
+
     /**
      * @param databases
      * @param databaseConfiguratorClassNameMap
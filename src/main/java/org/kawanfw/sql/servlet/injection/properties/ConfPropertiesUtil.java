@@ -14,6 +14,18 @@ package org.kawanfw.sql.servlet.injection.properties;
 public class ConfPropertiesUtil {
 
     public static final String OPERATIONAL_MODE = "operationalMode";
+    public static final String LOB_INLINE_MAX_LENGTH = "lobInlineMaxLength";
+    public static final String BATCH_CHUNK_SIZE = "batchChunkSize";
+    public static final String PREPARED_STATEMENT_CACHE_SIZE = "preparedStatementCacheSize";
+    public static final String STREAMING_FETCH_SIZE = "streamingFetchSize";
+    public static final String CURSOR_MAX_PER_SESSION = "cursorMaxPerSession";
+    public static final String CURSOR_IDLE_TIMEOUT = "cursorIdleTimeout";
+    public static final String QUERY_RESULT_CACHE_SIZE = "queryResultCacheSize";
+    public static final String QUERY_RESULT_CACHE_TTL = "queryResultCacheTtl";
+    public static final String QUERY_TIMEOUT = "queryTimeout";
+    public static final String ASYNC_EVENTS_QUEUE_SIZE = "asyncEventsQueueSize";
+    public static final String ASYNC_EVENTS_BATCH_SIZE = "asyncEventsBatchSize";
+    public static final String ASYNC_EVENTS_OVERFLOW_POLICY = "asyncEventsOverflowPolicy";
     
     protected ConfPropertiesUtil() {
 
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.kawanfw.sql.api.server.DatabaseConfigurator;
+import org.kawanfw.sql.api.server.SqlEvent;
+import org.kawanfw.sql.api.server.firewall.SqlFirewallManager;
+import org.kawanfw.sql.api.server.firewall.trigger.SqlFirewallTrigger;
+import org.kawanfw.sql.api.server.listener.UpdateListener;
+import org.kawanfw.sql.servlet.injection.classes.InjectedClassesStore;
+import org.kawanfw.sql.servlet.injection.properties.AsyncEventsOverflowPolicy;
+import org.kawanfw.sql.servlet.injection.properties.ConfPropertiesStore;
+import org.kawanfw.sql.util.FrameworkDebug;
+
+/**
+ * Per database bounded queue of the SQL firewall trigger and update listener
+ * events, run in a background thread instead of the request thread. <br>
+ * The pipeline is enabled for a database with the {@code asyncEventsQueueSize}
+ * property. The background thread takes up to {@code asyncEventsBatchSize}
+ * queued events at once and passes them to
+ * {@link SqlFirewallTrigger#runIfStatementsRefused(List, List, Connection)}
+ * and {@link UpdateListener#updateActionsPerformed(List, Connection)} with a
+ * Connection of the pool, so that JDBC implementations write them with one
+ * batch. <br>
+ * When the queue is full, the {@code asyncEventsOverflowPolicy} property says
+ * if the request thread waits, drops the event, or runs it synchronously.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class AsyncSqlEventPipeline {
+
+    private static boolean DEBUG = FrameworkDebug.isSet(AsyncSqlEventPipeline.class);
+
+    /** The (database, pipeline) Map */
+    private static Map<String, AsyncSqlEventPipeline> pipelineMap = new ConcurrentHashMap<>();
+
+    private final String database;
+    private final int batchSize;
+    private final AsyncEventsOverflowPolicy overflowPolicy;
+    private final BlockingQueue<QueuedEvent> queue;
+
+    private final AtomicLong discardedCount = new AtomicLong();
+
+    private AsyncSqlEventPipeline(String database) {
+	this.database = database;
+	this.batchSize = ConfPropertiesStore.get().getAsyncEventsBatchSize(database);
+	this.overflowPolicy = ConfPropertiesStore.get().getAsyncEventsOverflowPolicy(database);
+	this.queue = new ArrayBlockingQueue<>(ConfPropertiesStore.get().getAsyncEventsQueueSize(database));
+
+	Thread thread = new Thread(this::consume, "AceQL-async-events-" + database);
+	thread.setDaemon(true);
+	thread.start();
+    }
+
+    /**
+     * Queues a SQL firewall trigger event for the database of the event.
+     *
+     * @param sqlEvent           the refused SQL event
+     * @param sqlFirewallManager the instance that refused the SQL event
+     * @return false if the async pipeline is disabled for the database or if the
+     *         caller must run the triggers itself because the queue is full
+     */
+    public static boolean submitRefused(SqlEvent sqlEvent, SqlFirewallManager sqlFirewallManager) {
+	Objects.requireNonNull(sqlFirewallManager, "sqlFirewallManager cannot be null!");
+	return submit(new QueuedEvent(sqlEvent, sqlFirewallManager));
+    }
+
+    /**
+     * Queues an update listener event for the database of the event.
+     *
+     * @param sqlEvent the successful SQL update event
+     * @return false if the async pipeline is disabled for the database or if the
+     *         caller must run the listeners itself because the queue is full
+     */
+    public static boolean submitUpdate(SqlEvent sqlEvent) {
+	return submit(new QueuedEvent(sqlEvent, null));
+    }
+
+    /**
+     * @param database the database name
+     * @return the number of events dropped because the queue was full
+     */
+    public static long getDiscardedCount(String database) {
+	AsyncSqlEventPipeline pipeline = pipelineMap.get(database);
+	return pipeline == null ? 0 : pipeline.discardedCount.get();
+    }
+
+    private static boolean submit(QueuedEvent queuedEvent) {
+	String database = queuedEvent.sqlEvent.getDatabase();
+	Objects.requireNonNull(database, "database cannot be null!");
+
+	if (ConfPropertiesStore.get().getAsyncEventsQueueSize(database) <= 0) {
+	    return false;
+	}
+
+	AsyncSqlEventPipeline pipeline = pipelineMap.computeIfAbsent(database, AsyncSqlEventPipeline::new);
+	return pipeline.offer(queuedEvent);
+    }
+
+    private boolean offer(QueuedEvent queuedEvent) {
+	if (queue.offer(queuedEvent)) {
+	    return true;
+	}
+
+	if (overflowPolicy == AsyncEventsOverflowPolicy.caller_runs) {
+	    debug("Queue full for " + database + ": event is run on request thread.");
+	    return false;
+	}
+
+	if (overflowPolicy == AsyncEventsOverflowPolicy.discard) {
+	    debug("Queue full for " + database + ": event is discarded.");
+	    discardedCount.incrementAndGet();
+	    return true;
+	}
+
+	try {
+	    queue.put(queuedEvent);
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    discardedCount.incrementAndGet();
+	}
+	return true;
+    }
+
+    private void consume() {
+	List<QueuedEvent> batch = new ArrayList<>(batchSize);
+	while (true) {
+	    try {
+		batch.add(queue.take());
+		queue.drainTo(batch, batchSize - 1);
+		process(batch);
+	    } catch (InterruptedException e) {
+		return;
+	    } catch (Throwable e) {
+		// Never stop the thread
+		System.err.println(new Date() + " AsyncSqlEventPipeline Failure for " + database + ":");
+		e.printStackTrace();
+	    } finally {
+		batch.clear();
+	    }
+	}
+    }
+
+    private void process(List<QueuedEvent> batch) throws Exception {
+	List<SqlEvent> refusedEvents = new ArrayList<>();
+	List<SqlFirewallManager> sqlFirewallManagers = new ArrayList<>();
+	List<SqlEvent> updateEvents = new ArrayList<>();
+
+	for (QueuedEvent queuedEvent : batch) {
+	    if (queuedEvent.sqlFirewallManager != null) {
+		refusedEvents.add(queuedEvent.sqlEvent);
+		sqlFirewallManagers.add(queuedEvent.sqlFirewallManager);
+	    } else {
+		updateEvents.add(queuedEvent.sqlEvent);
+	    }
+	}
+
+	debug("Processing " + refusedEvents.size() + " refused and " + updateEvents.size()
+		+ " update events for " + database);
+
+	DatabaseConfigurator databaseConfigurator = InjectedClassesStore.get().getDatabaseConfigurators()
+		.get(database);
+	Connection connection = databaseConfigurator.getConnection(database);
+	try {
+	    if (!refusedEvents.isEmpty()) {
+		Set<SqlFirewallTrigger> sqlFirewallTriggers = InjectedClassesStore.get().getSqlFirewallTriggerMap()
+			.get(database);
+		for (SqlFirewallTrigger sqlFirewallTrigger : sqlFirewallTriggers) {
+		    try {
+			sqlFirewallTrigger.runIfStatementsRefused(refusedEvents, sqlFirewallManagers, connection);
+		    } catch (Exception e) {
+			log(databaseConfigurator, sqlFirewallTrigger, e);
+		    }
+		}
+	    }
+
+	    if (!updateEvents.isEmpty()) {
+		Set<UpdateListener> updateListeners = InjectedClassesStore.get().getUpdateListenerMap().get(database);
+		for (UpdateListener updateListener : updateListeners) {
+		    try {
+			updateListener.updateActionsPerformed(updateEvents, connection);
+		    } catch (Exception e) {
+			log(databaseConfigurator, updateListener, e);
+		    }
+		}
+	    }
+	} finally {
+	    databaseConfigurator.close(connection);
+	}
+    }
+
+    private void log(DatabaseConfigurator databaseConfigurator, Object caller, Exception e) {
+	try {
+	    databaseConfigurator.getLogger()
+		    .error("Async " + caller.getClass().getSimpleName() + " failure for " + database + ": " + e);
+	} catch (Exception ignore) {
+	    e.printStackTrace();
+	}
+    }
+
+    private static void debug(String s) {
+	if (DEBUG) {
+	    System.out.println(new Date() + " " + s);
+	}
+    }
+
+    /**
+     * A queued event. The SqlFirewallManager is null for an update event.
+     */
+    private static class QueuedEvent {
+	private final SqlEvent sqlEvent;
+	private final SqlFirewallManager sqlFirewallManager;
+
+	private QueuedEvent(SqlEvent sqlEvent, SqlFirewallManager sqlFirewallManager) {
+	    this.sqlEvent = Objects.requireNonNull(sqlEvent, "sqlEvent cannot be null!");
+	    this.sqlFirewallManager = sqlFirewallManager;
+	}
+    }
+}
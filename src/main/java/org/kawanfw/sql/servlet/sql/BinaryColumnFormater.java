@@ -12,11 +12,14 @@
 package org.kawanfw.sql.servlet.sql;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -30,6 +33,7 @@ import org.kawanfw.sql.api.server.DatabaseConfigurator;
 import org.kawanfw.sql.api.util.SqlUtil;
 import org.kawanfw.sql.servlet.HttpParameter;
 import org.kawanfw.sql.servlet.injection.classes.InjectedClassesStore;
+import org.kawanfw.sql.util.Base64;
 import org.kawanfw.sql.util.FrameworkFileUtil;
 
 /**
@@ -40,6 +44,9 @@ public class BinaryColumnFormater {
 
     private static final String NULL_STREAM = "NULL_STREAM";
 
+    /** Tag of the values sent inline, instead of a file name */
+    public static final String INLINE_PREFIX = "base64:";
+
     private ResultSet resultSet;
     private String productName;
     private int columnType;
@@ -50,6 +57,12 @@ public class BinaryColumnFormater {
     private String database;
     private String username;
 
+    /** The max length of the values to send inline. 0 for none */
+    private int lobInlineMaxLength;
+
+    /** The read buffer of the inlined values, reused for all the rows */
+    private byte[] readBuffer;
+
     /**
      * Constructor.
      * @param request
@@ -63,6 +76,7 @@ public class BinaryColumnFormater {
 	    String columnName) {
 	username = request.getParameter(HttpParameter.USERNAME);
 	database = request.getParameter(HttpParameter.DATABASE);
+	lobInlineMaxLength = ServerStatementUtil.getLobInlineMaxLength(request);
 
 	this.resultSet = resultSet;
 	this.productName = productName;
@@ -88,7 +102,7 @@ public class BinaryColumnFormater {
 	    if (isPostgreSQL() && columnType == Types.BIGINT) {
 		if (typeBigIntColumnNames == null) {
 		    Connection connection = resultSet.getStatement().getConnection();
-		    typeBigIntColumnNames = PostgreSqlUtil.getTypeBigIntColumnNames(connection);
+		    typeBigIntColumnNames = PostgreSqlOidColumnsCache.getTypeBigIntColumnNames(database, connection);
 		}
 
 		if (typeBigIntColumnNames.contains(columnName.trim().toLowerCase())) {
@@ -102,7 +116,10 @@ public class BinaryColumnFormater {
 
     /**
      * the binary content is dumped in a server file that will be available for the
-     * client the name of the file will be stored in the output stream ;
+     * client the name of the file will be stored in the output stream ; <br>
+     * If inlining is asked, values not longer than the inline max length are
+     * returned in base 64 with the {@link #INLINE_PREFIX} tag, without any file
+     * creation.
      * @return the formated binary column
      * @throws SQLException
      */
@@ -123,6 +140,28 @@ public class BinaryColumnFormater {
 	    in = resultSet.getBinaryStream(columnIndex);
 	}
 
+	if (lobInlineMaxLength > 0) {
+	    if (in == null) {
+		return ResultSetWriter.NULL;
+	    }
+
+	    if (readBuffer == null) {
+		readBuffer = new byte[Math.min(lobInlineMaxLength + 1, IOUtils.DEFAULT_BUFFER_SIZE)];
+	    }
+
+	    // Read one more byte than allowed to know if value is too long. The
+	    // value buffer grows with the value, not with the max length.
+	    ByteArrayOutputStream value = new ByteArrayOutputStream();
+	    IOUtils.copyLarge(in, value, 0, lobInlineMaxLength + 1, readBuffer);
+	    if (value.size() <= lobInlineMaxLength) {
+		in.close();
+		return INLINE_PREFIX + Base64.byteArrayToBase64(value.toByteArray());
+	    }
+
+	    // Too long: the already read bytes are dumped first in the file
+	    in = new SequenceInputStream(new ByteArrayInputStream(value.toByteArray()), in);
+	}
+
 	String hostFileName = null;
 
 	DatabaseConfigurator databaseConfigurator = InjectedClassesStore.get().getDatabaseConfigurators().get(database);
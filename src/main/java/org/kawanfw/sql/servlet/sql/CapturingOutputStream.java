@@ -0,0 +1,83 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes to the underlying stream and keeps a copy of the written bytes, up to
+ * a maximum size. Used to put a response in {@link QueryResultCache} while it
+ * is sent to the client. <br>
+ * The copy is dropped as soon as the maximum size is exceeded.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class CapturingOutputStream extends FilterOutputStream {
+
+    private final int maxSize;
+    private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+    /**
+     * Constructor
+     *
+     * @param out     the underlying output stream
+     * @param maxSize the maximum size of the copy
+     */
+    public CapturingOutputStream(OutputStream out, int maxSize) {
+	super(out);
+	this.maxSize = maxSize;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+	out.write(b);
+	capture(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+	out.write(b, off, len);
+	capture(b, off, len);
+    }
+
+    /**
+     * @return true if all the written bytes are in the copy
+     */
+    public boolean isComplete() {
+	return copy != null;
+    }
+
+    /**
+     * @return the copy of the written bytes, or null if the maximum size has
+     *         been exceeded
+     */
+    public byte[] toByteArray() {
+	return copy == null ? null : copy.toByteArray();
+    }
+
+    private void capture(byte[] b, int off, int len) {
+	if (copy == null) {
+	    return;
+	}
+
+	if (copy.size() + len > maxSize) {
+	    copy = null;
+	} else {
+	    copy.write(b, off, len);
+	}
+    }
+
+}
@@ -16,6 +16,7 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PushbackReader;
 import java.io.Reader;
 import java.io.Writer;
 import java.sql.ResultSet;
@@ -23,6 +24,8 @@ import java.sql.SQLException;
 
 import javax.servlet.http.HttpServletRequest;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.StringBuilderWriter;
 import org.kawanfw.sql.api.server.DatabaseConfigurator;
 import org.kawanfw.sql.servlet.HttpParameter;
 import org.kawanfw.sql.servlet.injection.classes.InjectedClassesStore;
@@ -38,6 +41,9 @@ public class ClobColumnFormater {
     private static final String NULL_STREAM = "NULL_STREAM";
     public static String CR_LF = System.getProperty("line.separator");
 
+    /** Tag of the values sent inline, instead of a file name */
+    public static final String INLINE_PREFIX = "text:";
+
     /** The html encoding to use for Clob downloads */
     private static  boolean HTML_ENCONDING_ON = true;
 
@@ -47,16 +53,26 @@ public class ClobColumnFormater {
     private String username;
     private String database;
 
+    /** The max length of the values to send inline. 0 for none */
+    private int lobInlineMaxLength;
+
+    /** The read buffer of the inlined values, reused for all the rows */
+    private char[] readBuffer;
+
     public ClobColumnFormater(HttpServletRequest request, ResultSet resultSet, int columnIndex) {
 	username = request.getParameter(HttpParameter.USERNAME);
 	database = request.getParameter(HttpParameter.DATABASE);
+	lobInlineMaxLength = ServerStatementUtil.getLobInlineMaxLength(request);
 	this.resultSet = resultSet;
 	this.columnIndex = columnIndex;
     }
 
     /**
      * the CLOB content is dumped in a server file that will be available for the
-     * client the name of the file will be stored in the output stream ;
+     * client the name of the file will be stored in the output stream ; <br>
+     * If inlining is asked, values not longer than the inline max length are
+     * returned as is with the {@link #INLINE_PREFIX} tag, without any file
+     * creation.
      *
      * @return the formated binary column id
      *
@@ -70,6 +86,31 @@ public class ClobColumnFormater {
 	// Maybe null, we want to keep the info
 	Reader reader = resultSet.getCharacterStream(columnIndex);
 
+	if (lobInlineMaxLength > 0) {
+	    if (reader == null) {
+		return ResultSetWriter.NULL;
+	    }
+
+	    if (readBuffer == null) {
+		readBuffer = new char[Math.min(lobInlineMaxLength + 1, IOUtils.DEFAULT_BUFFER_SIZE)];
+	    }
+
+	    // Read one more char than allowed to know if value is too long. The
+	    // value buffer grows with the value, not with the max length.
+	    StringBuilderWriter valueWriter = new StringBuilderWriter();
+	    IOUtils.copyLarge(reader, valueWriter, 0, lobInlineMaxLength + 1, readBuffer);
+	    String value = valueWriter.toString();
+	    if (value.length() <= lobInlineMaxLength) {
+		reader.close();
+		return INLINE_PREFIX + (HTML_ENCONDING_ON ? HtmlConverter.fromHtml(value) : value);
+	    }
+
+	    // Too long: the already read chars are pushed back to be dumped in the file
+	    PushbackReader pushbackReader = new PushbackReader(reader, value.length());
+	    pushbackReader.unread(value.toCharArray());
+	    reader = pushbackReader;
+	}
+
 	DatabaseConfigurator databaseConfigurator = InjectedClassesStore.get().getDatabaseConfigurators().get(database);
 	String hostFileName = databaseConfigurator.getBlobsDirectory(username) + File.separator + fileName;
 
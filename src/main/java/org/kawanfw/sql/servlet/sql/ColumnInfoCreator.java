@@ -38,6 +38,7 @@ public class ColumnInfoCreator {
     private List<String> columnTypeNameList = new Vector<String>();
     private List<String> columnNameList = new Vector<String>();
     private List<String> columnTableList = new Vector<String>();
+    private List<Boolean> columnSignedList = new Vector<Boolean>();
 
     private Map<String, Integer> mapColumnNames = new LinkedHashMap<String, Integer>();
 
@@ -72,6 +73,7 @@ public class ColumnInfoCreator {
 	    //NO! columnNameList.add(meta.getColumnName(i).toLowerCase());
 	    columnNameList.add(meta.getColumnName(i));
 	    columnTypeNameList.add(meta.getColumnTypeName(i));
+	    columnSignedList.add(meta.isSigned(i));
 
 	    if (isPostgreSQL) {
 		columnTableList.add(PostgreSqlUtil.getTableName(pgResultSetMetaData, i));
@@ -112,6 +114,13 @@ public class ColumnInfoCreator {
         return columnTableList;
     }
 
+    /**
+     * @return the list of {@code ResultSetMetaData.isSigned()} values per column
+     */
+    public List<Boolean> getColumnSignedList() {
+        return columnSignedList;
+    }
+
     public Map<String, Integer> getMapColumnNames() {
         return mapColumnNames;
     }
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+
+import javax.json.stream.JsonGenerator;
+import javax.servlet.http.HttpServletRequest;
+
+import org.kawanfw.sql.util.FrameworkDebug;
+
+/**
+ * Writes the results that follow the first result of a
+ * {@code Statement.execute()} call, such as the several result sets and update
+ * counts returned by a stored procedure. <br>
+ * The results are walked with {@code getMoreResults()} and
+ * {@code getUpdateCount()} and streamed in order in a {@code "more_results"}
+ * array. A result set is written by a {@link ResultSetWriter}, an update count
+ * as a {@code "row_count"} value. Nothing is written if there is no more
+ * result. <br>
+ * The last update count may be skipped if it is zero, such as the status
+ * result that MySQL adds at the end of the results of a stored procedure.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class MoreResultsWriter {
+
+    private static boolean DEBUG = FrameworkDebug.isSet(MoreResultsWriter.class);
+
+    private HttpServletRequest request;
+    private String sqlOrder;
+    private JsonGenerator gen;
+    private boolean fillResultSetMetaData;
+    private UpdateCountListener updateCountListener;
+    private boolean skipLastZeroUpdateCount = false;
+
+    /**
+     * Constructor
+     *
+     * @param request               the http request
+     * @param sqlOrder              the sql order
+     * @param gen                   the JSon Generator, positioned in the
+     *                              response object
+     * @param fillResultSetMetaData if true, the ResultSetMetaData of each result
+     *                              set is written
+     */
+    public MoreResultsWriter(HttpServletRequest request, String sqlOrder, JsonGenerator gen,
+	    boolean fillResultSetMetaData) {
+	this.request = request;
+	this.sqlOrder = sqlOrder;
+	this.gen = gen;
+	this.fillResultSetMetaData = fillResultSetMetaData;
+    }
+
+    /**
+     * Sets the listener called for each update count of the more results, before
+     * it is written.
+     *
+     * @param updateCountListener the listener, or null
+     */
+    public void setUpdateCountListener(UpdateCountListener updateCountListener) {
+	this.updateCountListener = updateCountListener;
+    }
+
+    /**
+     * Says if the last update count is skipped when it is zero. Defaults to
+     * false.
+     *
+     * @param skipLastZeroUpdateCount if true, a last zero update count is not
+     *                                written
+     */
+    public void setSkipLastZeroUpdateCount(boolean skipLastZeroUpdateCount) {
+	this.skipLastZeroUpdateCount = skipLastZeroUpdateCount;
+    }
+
+    /**
+     * Writes all the results of the statement that follow the current one. The
+     * current result set, if any, is closed.
+     *
+     * @param statement the executed statement
+     * @return the number of results written
+     * @throws SQLException if any SQLException occurs
+     * @throws IOException  if any IOException occurs
+     */
+    public int write(Statement statement) throws SQLException, IOException {
+	boolean isResultSet = statement.getMoreResults();
+	int updateCount = isResultSet ? -1 : statement.getUpdateCount();
+
+	int results = 0;
+
+	// A -1 update count with no result set means no more results
+	while (isResultSet || updateCount != -1) {
+
+	    if (isResultSet) {
+		writeStartResult(results++);
+		debug("more result " + results + " is a result set");
+		ResultSetWriter resultSetWriter = new ResultSetWriter(request, sqlOrder, gen, fillResultSetMetaData);
+		resultSetWriter.write(statement.getResultSet());
+
+		isResultSet = statement.getMoreResults();
+		updateCount = isResultSet ? -1 : statement.getUpdateCount();
+	    } else {
+		// The next result is read first, to know if the update count is the last
+		int currentUpdateCount = updateCount;
+		isResultSet = statement.getMoreResults();
+		updateCount = isResultSet ? -1 : statement.getUpdateCount();
+
+		boolean last = !isResultSet && updateCount == -1;
+		if (skipLastZeroUpdateCount && last && currentUpdateCount == 0) {
+		    debug("last zero update count is skipped");
+		    break;
+		}
+
+		writeStartResult(results++);
+		debug("more result " + results + " is an update count: " + currentUpdateCount);
+		if (updateCountListener != null) {
+		    updateCountListener.updateCountRead(currentUpdateCount);
+		}
+		gen.write("row_count", currentUpdateCount);
+	    }
+
+	    gen.writeEnd();
+	    gen.flush();
+	}
+
+	if (results > 0) {
+	    gen.writeEnd(); // .writeStartArray("more_results")
+	}
+	return results;
+    }
+
+    /**
+     * Starts the object of a result, and the "more_results" array before the
+     * first one.
+     */
+    private void writeStartResult(int resultsWritten) {
+	if (resultsWritten == 0) {
+	    gen.writeStartArray("more_results");
+	}
+	gen.writeStartObject();
+    }
+
+    /**
+     * Called for each update count of the results of a statement.
+     */
+    @FunctionalInterface
+    public interface UpdateCountListener {
+
+	/**
+	 * @param updateCount the update count that is read
+	 * @throws SQLException if any SQLException occurs
+	 * @throws IOException  if any IOException occurs
+	 */
+	void updateCountRead(int updateCount) throws SQLException, IOException;
+    }
+
+    protected void debug(String s) {
+	if (DEBUG) {
+	    System.out.println(new Date() + " " + s);
+	}
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.kawanfw.sql.util.FrameworkDebug;
+
+/**
+ * Per database cache of the PostgreSQL column names that are BIGINT, and thus
+ * may be OID Large Objects. <br>
+ * Avoids a {@code DatabaseMetaData.getColumns()} scan of the public schema for
+ * each query. Entries expire after {@link #TTL_MILLISECONDS} or when
+ * explicitly cleared by the {@code clearCaches} action of
+ * {@link org.kawanfw.sql.api.server.DefaultPoolsInfo}.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class PostgreSqlOidColumnsCache {
+
+    private static boolean DEBUG = FrameworkDebug.isSet(PostgreSqlOidColumnsCache.class);
+
+    /** Time to live of a database entry: 5 minutes */
+    public static final long TTL_MILLISECONDS = 5 * 60 * 1000;
+
+    /** The (database, BIGINT column names) Map */
+    private static Map<String, Set<String>> columnNamesMap = new ConcurrentHashMap<>();
+
+    /** The (database, load time) Map */
+    private static Map<String, Long> snapshotMap = new ConcurrentHashMap<>();
+
+    /**
+     * Static class.
+     */
+    protected PostgreSqlOidColumnsCache() {
+
+    }
+
+    /**
+     * Returns the PostgreSQL column names that are Types.BIGINT for a database.
+     * The column names are loaded with
+     * {@link PostgreSqlUtil#getTypeBigIntColumnNames(Connection)} only if not
+     * in cache or expired.
+     *
+     * @param database   the database name
+     * @param connection the JDBC Connection to use if a load is necessary
+     * @return the column names that are Types.BIGINT, in lower case
+     * @throws SQLException if any SQLException occurs
+     */
+    public static Set<String> getTypeBigIntColumnNames(String database, Connection connection)
+	    throws SQLException {
+	Objects.requireNonNull(database, "database cannot be null!");
+
+	Set<String> typeBigIntColumnNames = columnNamesMap.get(database);
+	Long snapshot = snapshotMap.get(database);
+
+	long now = new Date().getTime();
+	if (typeBigIntColumnNames != null && snapshot != null && now - snapshot <= TTL_MILLISECONDS) {
+	    return typeBigIntColumnNames;
+	}
+
+	debug("Loading BIGINT column names for database: " + database);
+	typeBigIntColumnNames = Collections
+		.unmodifiableSet(PostgreSqlUtil.getTypeBigIntColumnNames(connection));
+
+	columnNamesMap.put(database, typeBigIntColumnNames);
+	snapshotMap.put(database, now);
+	return typeBigIntColumnNames;
+    }
+
+    /**
+     * Clears the cache for a database. Next query will reload the column names.
+     *
+     * @param database the database name
+     */
+    public static void clear(String database) {
+	Objects.requireNonNull(database, "database cannot be null!");
+	columnNamesMap.remove(database);
+	snapshotMap.remove(database);
+    }
+
+    private static void debug(String s) {
+	if (DEBUG) {
+	    System.out.println(new Date() + " " + s);
+	}
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.kawanfw.sql.servlet.injection.properties.ConfPropertiesStore;
+import org.kawanfw.sql.util.FrameworkDebug;
+import org.kawanfw.sql.util.LruCache;
+
+/**
+ * Per JDBC Connection cache of the PreparedStatements, keyed by SQL text. <br>
+ * The cache is opt-in per database with the
+ * {@code preparedStatementCacheSize} property. <br>
+ * A cached PreparedStatement is removed from the cache while in use by a
+ * request and put back by {@link #close(String, Connection, String, PreparedStatement)},
+ * so that it is never shared between two concurrent requests. <br>
+ * The cache is keyed by the physical Connection, so that it works both with
+ * the {@code ConnectionStore} Connections (stateful mode) and with the
+ * Connections borrowed from the pool for each request (stateless mode).
+ * Entries of a Connection are dropped when the pool closes the Connection.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class PreparedStatementCache {
+
+    private static boolean DEBUG = FrameworkDebug.isSet(PreparedStatementCache.class);
+
+    /** The (database, (physical Connection, cached PreparedStatements)) Map */
+    private static Map<String, Map<Connection, LruCache<String, PreparedStatement>>> cacheMap = new ConcurrentHashMap<>();
+
+    /** The (database, hits) Map */
+    private static Map<String, AtomicLong> hitsMap = new ConcurrentHashMap<>();
+
+    /** The (database, misses) Map */
+    private static Map<String, AtomicLong> missesMap = new ConcurrentHashMap<>();
+
+    /**
+     * Static class.
+     */
+    protected PreparedStatementCache() {
+
+    }
+
+    /**
+     * Returns a cached PreparedStatement for the SQL order, or creates a new one
+     * with {@code connection.prepareStatement(sql)} if there is none or if the
+     * cache is disabled for the database.
+     *
+     * @param database   the database name
+     * @param connection the JDBC Connection
+     * @param sql        the SQL order
+     * @return a PreparedStatement for the SQL order, to be released with
+     *         {@link #close(String, Connection, String, PreparedStatement)}
+     * @throws SQLException if any SQLException occurs
+     */
+    public static PreparedStatement prepareStatement(String database, Connection connection, String sql)
+	    throws SQLException {
+	Objects.requireNonNull(database, "database cannot be null!");
+
+	int cacheSize = ConfPropertiesStore.get().getPreparedStatementCacheSize(database);
+	if (cacheSize <= 0) {
+	    return connection.prepareStatement(sql);
+	}
+
+	LruCache<String, PreparedStatement> lruCache = getLruCache(database, connection, cacheSize);
+
+	// Removed while in use: a concurrent request on same Connection can not get it
+	PreparedStatement preparedStatement = lruCache.remove(sql);
+	if (preparedStatement != null && !preparedStatement.isClosed()) {
+	    hitsMap.computeIfAbsent(database, k -> new AtomicLong()).incrementAndGet();
+	    return preparedStatement;
+	}
+
+	debug("PreparedStatement cache miss for database: " + database + " sql: " + sql);
+	missesMap.computeIfAbsent(database, k -> new AtomicLong()).incrementAndGet();
+	return connection.prepareStatement(sql);
+    }
+
+    /**
+     * Puts back in cache a PreparedStatement returned by
+     * {@link #prepareStatement(String, Connection, String)}, once cleared of its
+     * parameters and batch. The PreparedStatement is closed if the cache is
+     * disabled for the database or if it can not be cleared.
+     *
+     * @param database          the database name
+     * @param connection        the JDBC Connection
+     * @param sql               the SQL order
+     * @param preparedStatement the PreparedStatement to release
+     * @throws SQLException if any SQLException occurs
+     */
+    public static void close(String database, Connection connection, String sql,
+	    PreparedStatement preparedStatement) throws SQLException {
+	if (preparedStatement == null) {
+	    return;
+	}
+
+	int cacheSize = ConfPropertiesStore.get().getPreparedStatementCacheSize(database);
+	if (cacheSize <= 0) {
+	    preparedStatement.close();
+	    return;
+	}
+
+	try {
+	    preparedStatement.clearParameters();
+	    preparedStatement.clearBatch();
+	    // Max rows are set per request
+	    preparedStatement.setMaxRows(0);
+	} catch (SQLException e) {
+	    debug("PreparedStatement can not be cleared, closing it: " + e.getMessage());
+	    preparedStatement.close();
+	    return;
+	}
+
+	LruCache<String, PreparedStatement> lruCache = getLruCache(database, connection, cacheSize);
+	PreparedStatement previous = lruCache.put(sql, preparedStatement);
+
+	// A concurrent request on same Connection used its own PreparedStatement
+	if (previous != null && previous != preparedStatement) {
+	    closeQuietly(previous);
+	}
+    }
+
+    /**
+     * Closes and removes all the cached PreparedStatements of a physical
+     * Connection. To be called when the Connection is closed by the pool.
+     *
+     * @param physicalConnection the physical JDBC Connection
+     */
+    public static void remove(Connection physicalConnection) {
+	if (physicalConnection == null) {
+	    return;
+	}
+
+	for (Map<Connection, LruCache<String, PreparedStatement>> connectionMap : cacheMap.values()) {
+	    LruCache<String, PreparedStatement> lruCache = connectionMap.remove(physicalConnection);
+	    if (lruCache != null) {
+		debug("Removing cached PreparedStatements of Connection: " + physicalConnection);
+		lruCache.removeAll().forEach(PreparedStatementCache::closeQuietly);
+	    }
+	}
+    }
+
+    /**
+     * Closes and removes all the cached PreparedStatements of a database.
+     *
+     * @param database the database name
+     */
+    public static void clear(String database) {
+	Objects.requireNonNull(database, "database cannot be null!");
+	Map<Connection, LruCache<String, PreparedStatement>> connectionMap = cacheMap.remove(database);
+	if (connectionMap != null) {
+	    for (LruCache<String, PreparedStatement> lruCache : connectionMap.values()) {
+		lruCache.removeAll().forEach(PreparedStatementCache::closeQuietly);
+	    }
+	}
+    }
+
+    /**
+     * @param database the database name
+     * @return the number of PreparedStatements reused from cache
+     */
+    public static long getHits(String database) {
+	AtomicLong hits = hitsMap.get(database);
+	return hits == null ? 0 : hits.get();
+    }
+
+    /**
+     * @param database the database name
+     * @return the number of PreparedStatements created because not in cache
+     */
+    public static long getMisses(String database) {
+	AtomicLong misses = missesMap.get(database);
+	return misses == null ? 0 : misses.get();
+    }
+
+    private static LruCache<String, PreparedStatement> getLruCache(String database, Connection connection,
+	    int cacheSize) throws SQLException {
+	Connection physicalConnection = getPhysicalConnection(connection);
+	return cacheMap.computeIfAbsent(database, k -> new ConcurrentHashMap<>()).computeIfAbsent(physicalConnection,
+		k -> new LruCache<>(cacheSize, PreparedStatementCache::closeQuietly));
+    }
+
+    /**
+     * Unwraps the Connection if it's a pool PooledConnection, in order to get
+     * the same key for each borrow of the same physical Connection.
+     */
+    private static Connection getPhysicalConnection(Connection connection) throws SQLException {
+	if (connection instanceof javax.sql.PooledConnection) {
+	    Connection actual = ((javax.sql.PooledConnection) connection).getConnection();
+	    if (actual != null) {
+		return actual;
+	    }
+	}
+	return connection;
+    }
+
+    private static void closeQuietly(PreparedStatement preparedStatement) {
+	try {
+	    preparedStatement.close();
+	} catch (SQLException e) {
+	    // Ignore
+	}
+    }
+
+    private static void debug(String s) {
+	if (DEBUG) {
+	    System.out.println(new Date() + " " + s);
+	}
+    }
+}
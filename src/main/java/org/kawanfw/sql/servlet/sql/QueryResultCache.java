@@ -0,0 +1,511 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.lang3.StringUtils;
+import org.kawanfw.sql.api.server.StatementAnalyzer;
+import org.kawanfw.sql.servlet.HttpParameter;
+import org.kawanfw.sql.servlet.injection.properties.ConfPropertiesStore;
+import org.kawanfw.sql.util.FrameworkDebug;
+
+/**
+ * Per database cache of the SELECT responses, keyed by username, SQL text,
+ * parameter values and result set format. <br>
+ * The cache is opt-in per database with the {@code queryResultCacheSize}
+ * property. It stores the encoded JSON response, evicts the least recently
+ * used entries when the size is reached, and expires the entries after
+ * {@code queryResultCacheTtl} seconds. <br>
+ * Each entry is indexed by the tables of its SELECT. The updates executed
+ * through AceQL evict the entries of the tables they touch, or all the entries
+ * of the database if their tables are unknown. An update inside a transaction
+ * evicts the entries again when the transaction ends. <br>
+ * A SELECT that ran while one of its tables was evicted is not put in cache,
+ * as it may have read the values before the update. <br>
+ * The cache is used only by Connections in auto-commit mode, so that a
+ * transaction never reads or shares its uncommitted changes. <br>
+ * The key does not contain the Connection: the cache must not be enabled when
+ * the results of a user depend on the Connection or session state, such as
+ * {@code CURRENT_USER} or row level security with Connections opened per
+ * user, session variables or a schema set per session.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class QueryResultCache {
+
+    private static boolean DEBUG = FrameworkDebug.isSet(QueryResultCache.class);
+
+    /** The (database, cache) Map */
+    private static Map<String, DatabaseCache> cacheMap = new ConcurrentHashMap<>();
+
+    /** The (database, hits) Map */
+    private static Map<String, AtomicLong> hitsMap = new ConcurrentHashMap<>();
+
+    /** The (database, misses) Map */
+    private static Map<String, AtomicLong> missesMap = new ConcurrentHashMap<>();
+
+    /** The evictions to do again when the transaction of a Connection ends */
+    private static Map<Connection, List<PendingEviction>> pendingEvictionsMap = Collections
+	    .synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Static class.
+     */
+    protected QueryResultCache() {
+
+    }
+
+    /**
+     * @param database the database name
+     * @return true if the SELECT responses are cached for the database
+     */
+    public static boolean isEnabled(String database) {
+	Objects.requireNonNull(database, "database cannot be null!");
+	return ConfPropertiesStore.get().getQueryResultCacheSize(database) > 0;
+    }
+
+    /**
+     * Says if the cache may be used for a query.
+     *
+     * @param database   the database name
+     * @param connection the JDBC Connection
+     * @return true if the cache is enabled for the database and the Connection
+     *         is in auto-commit mode
+     * @throws SQLException if any SQLException occurs
+     */
+    public static boolean isUsable(String database, Connection connection) throws SQLException {
+	return isEnabled(database) && connection.getAutoCommit();
+    }
+
+    /**
+     * Builds the key of a query: the username, the SQL order, the parameters,
+     * the maximum rows and the request parameters that change the result set
+     * format.
+     *
+     * @param request         the http request
+     * @param username        the client username
+     * @param sqlOrder        the SQL order
+     * @param parameterTypes  the prepared statement (index, type) parameters.
+     *                        Empty for a statement.
+     * @param parameterValues the prepared statement (index, value) parameters,
+     *                        as sent by the client. Empty for a statement.
+     * @param maxRows         the maximum rows of the statement
+     * @return the cache key
+     */
+    public static String buildKey(HttpServletRequest request, String username, String sqlOrder,
+	    Map<Integer, String> parameterTypes, Map<Integer, String> parameterValues, int maxRows) {
+	StringBuilder key = new StringBuilder();
+	appendKeyPart(key, username);
+	appendKeyPart(key, sqlOrder);
+	for (Map.Entry<Integer, String> entry : parameterTypes.entrySet()) {
+	    appendKeyPart(key, entry.getKey() + " " + entry.getValue());
+	    appendKeyPart(key, parameterValues.get(entry.getKey()));
+	}
+	appendKeyPart(key, String.valueOf(maxRows));
+	appendKeyPart(key, request.getParameter(HttpParameter.RESULT_SET_FORMAT));
+	appendKeyPart(key, request.getParameter(HttpParameter.COLUMN_TYPES));
+	appendKeyPart(key, request.getParameter(HttpParameter.FILL_RESULT_SET_META_DATA));
+	return key.toString();
+    }
+
+    /**
+     * Appends a part prefixed by its length, so that two different lists of
+     * parts never give the same key.
+     */
+    private static void appendKeyPart(StringBuilder key, String part) {
+	if (part == null) {
+	    key.append("-1:");
+	} else {
+	    key.append(part.length()).append(':').append(part);
+	}
+    }
+
+    /**
+     * Returns the cached response of a query.
+     *
+     * @param database the database name
+     * @param key      the key built by
+     *                 {@link #buildKey(HttpServletRequest, String, String, Map, Map, int)}
+     * @return the response bytes, or null if not in cache or expired
+     */
+    public static byte[] get(String database, String key) {
+	DatabaseCache databaseCache = cacheMap.get(database);
+	byte[] bytes = databaseCache == null ? null : databaseCache.get(key);
+
+	if (bytes == null) {
+	    missesMap.computeIfAbsent(database, k -> new AtomicLong()).incrementAndGet();
+	} else {
+	    hitsMap.computeIfAbsent(database, k -> new AtomicLong()).incrementAndGet();
+	}
+	return bytes;
+    }
+
+    /**
+     * Returns the eviction generation of a database. To be read before the
+     * SELECT is executed, and passed to
+     * {@link #put(String, String, String, byte[], long)}.
+     *
+     * @param database the database name
+     * @return the current eviction generation
+     */
+    public static long getGeneration(String database) {
+	return getDatabaseCache(database).getGeneration();
+    }
+
+    /**
+     * Puts in cache the response of a SELECT. Nothing is done if the tables of
+     * the SELECT are unknown, as its entry could not be evicted by the updates,
+     * or if one of its tables has been evicted since {@code generation}.
+     *
+     * @param database   the database name
+     * @param key        the key built by
+     *                   {@link #buildKey(HttpServletRequest, String, String, Map, Map, int)}
+     * @param sqlOrder   the SELECT SQL order
+     * @param bytes      the response bytes
+     * @param generation the eviction generation read by
+     *                   {@link #getGeneration(String)} before the SELECT was
+     *                   executed
+     * @throws SQLException if the SQL order parsing fails
+     */
+    public static void put(String database, String key, String sqlOrder, byte[] bytes, long generation)
+	    throws SQLException {
+	Set<String> tables = getTables(new StatementAnalyzer(sqlOrder, new ArrayList<>()));
+	if (tables.isEmpty()) {
+	    debug("No tables found, response not cached for: " + sqlOrder);
+	    return;
+	}
+
+	long ttlMillis = ConfPropertiesStore.get().getQueryResultCacheTtl(database) * 1000L;
+	if (!getDatabaseCache(database).put(key, bytes, tables, ttlMillis, generation)) {
+	    debug("Tables evicted during the SELECT, response not cached for: " + sqlOrder);
+	}
+    }
+
+    /**
+     * @param database the database name
+     * @return the maximum size in bytes of a cached response
+     */
+    public static int getMaxEntrySize(String database) {
+	// One response may not take more than a tenth of the cache
+	return ConfPropertiesStore.get().getQueryResultCacheSize(database) / 10;
+    }
+
+    /**
+     * Evicts the cached responses of the tables touched by an update. To be
+     * called after each update executed through AceQL. All the responses of the
+     * database are evicted if the update is not a parsed DML statement.
+     *
+     * @param database   the database name
+     * @param sqlOrder   the update SQL order
+     * @param connection the JDBC Connection of the update
+     * @throws SQLException if the SQL order parsing fails
+     */
+    public static void evict(String database, String sqlOrder, Connection connection) throws SQLException {
+	if (!isEnabled(database)) {
+	    return;
+	}
+
+	StatementAnalyzer statementAnalyzer = new StatementAnalyzer(sqlOrder, new ArrayList<>());
+	Set<String> tables = statementAnalyzer.isDml() ? getTables(statementAnalyzer) : new HashSet<>();
+	evict(database, tables, connection);
+    }
+
+    /**
+     * Evicts all the cached responses of a database. To be called after the
+     * execution of code whose updated tables are unknown, such as a server
+     * query executor.
+     *
+     * @param database   the database name
+     * @param connection the JDBC Connection of the execution
+     */
+    public static void evictAll(String database, Connection connection) {
+	if (!isEnabled(database)) {
+	    return;
+	}
+
+	evict(database, new HashSet<>(), connection);
+    }
+
+    private static void evict(String database, Set<String> tables, Connection connection) {
+	evict(database, tables);
+
+	// Responses cached before the commit would contain the old values
+	try {
+	    if (connection != null && !connection.getAutoCommit()) {
+		pendingEvictionsMap.computeIfAbsent(connection, k -> new ArrayList<>())
+			.add(new PendingEviction(database, tables));
+	    }
+	} catch (SQLException e) {
+	    debug("Impossible to get auto-commit mode: " + e);
+	}
+    }
+
+    /**
+     * Evicts again the cached responses of the tables updated during the
+     * transaction of a Connection. To be called on commit, rollback and auto
+     * commit mode change.
+     *
+     * @param connection the JDBC Connection
+     */
+    public static void transactionEnded(Connection connection) {
+	List<PendingEviction> pendingEvictions = pendingEvictionsMap.remove(connection);
+	if (pendingEvictions == null) {
+	    return;
+	}
+
+	for (PendingEviction pendingEviction : pendingEvictions) {
+	    evict(pendingEviction.database, pendingEviction.tables);
+	}
+    }
+
+    /**
+     * Removes all the cached responses of a database.
+     *
+     * @param database the database name
+     */
+    public static void clear(String database) {
+	Objects.requireNonNull(database, "database cannot be null!");
+	DatabaseCache databaseCache = cacheMap.get(database);
+	if (databaseCache != null) {
+	    databaseCache.clear();
+	}
+    }
+
+    /**
+     * @param database the database name
+     * @return the number of responses served from cache
+     */
+    public static long getHits(String database) {
+	AtomicLong hits = hitsMap.get(database);
+	return hits == null ? 0 : hits.get();
+    }
+
+    /**
+     * @param database the database name
+     * @return the number of cacheable queries not found in cache
+     */
+    public static long getMisses(String database) {
+	AtomicLong misses = missesMap.get(database);
+	return misses == null ? 0 : misses.get();
+    }
+
+    /**
+     * Evicts the entries of the tables, or all the entries of the database if
+     * the tables are unknown.
+     */
+    private static void evict(String database, Set<String> tables) {
+	// The cache is created if needed, so that the generation of the tables is
+	// raised for the SELECT that are running
+	DatabaseCache databaseCache = getDatabaseCache(database);
+
+	if (tables.isEmpty()) {
+	    debug("Unknown tables: clearing cache of " + database);
+	    databaseCache.clear();
+	} else {
+	    databaseCache.evict(tables);
+	}
+    }
+
+    private static DatabaseCache getDatabaseCache(String database) {
+	return cacheMap.computeIfAbsent(database,
+		k -> new DatabaseCache(ConfPropertiesStore.get().getQueryResultCacheSize(database)));
+    }
+
+    /**
+     * Returns the table names of a SQL order, without schema prefix, quotes and
+     * case, so that the names of a SELECT and an update always match.
+     */
+    private static Set<String> getTables(StatementAnalyzer statementAnalyzer) {
+	Set<String> tables = new HashSet<>();
+	for (String table : statementAnalyzer.getTables()) {
+	    String name = table.contains(".") ? StringUtils.substringAfterLast(table, ".") : table;
+	    name = StringUtils.strip(name, "\"`[]").toLowerCase();
+	    if (!name.isEmpty()) {
+		tables.add(name);
+	    }
+	}
+	return tables;
+    }
+
+    private static void debug(String s) {
+	if (DEBUG) {
+	    System.out.println(new Date() + " " + s);
+	}
+    }
+
+    /**
+     * The tables of an update done inside a transaction.
+     */
+    private static class PendingEviction {
+	private final String database;
+	private final Set<String> tables;
+
+	private PendingEviction(String database, Set<String> tables) {
+	    this.database = database;
+	    this.tables = tables;
+	}
+    }
+
+    /**
+     * A cached response.
+     */
+    private static class CacheEntry {
+	private final byte[] bytes;
+	private final Set<String> tables;
+	private final long expirationTime;
+
+	private CacheEntry(byte[] bytes, Set<String> tables, long expirationTime) {
+	    this.bytes = bytes;
+	    this.tables = tables;
+	    this.expirationTime = expirationTime;
+	}
+    }
+
+    /**
+     * The cache of a database, bounded by the total size of the responses.
+     * <br>
+     * Each eviction raises the generation of the database, and stores it as
+     * the generation of the evicted tables, or of all the tables on clear.
+     */
+    private static class DatabaseCache {
+	private final long maxSize;
+	private long size = 0;
+
+	private long generation = 0;
+	private long clearGeneration = 0;
+
+	/** The (table, generation of its last eviction) Map */
+	private final Map<String, Long> tableGenerationMap = new HashMap<>();
+
+	/** Access order is used to evict least recently used entries */
+	private final LinkedHashMap<String, CacheEntry> entryMap = new LinkedHashMap<>(16, 0.75f, true);
+
+	/** The (table, keys) index */
+	private final Map<String, Set<String>> tableMap = new ConcurrentHashMap<>();
+
+	private DatabaseCache(long maxSize) {
+	    this.maxSize = maxSize;
+	}
+
+	private synchronized byte[] get(String key) {
+	    CacheEntry cacheEntry = entryMap.get(key);
+	    if (cacheEntry == null) {
+		return null;
+	    }
+
+	    if (cacheEntry.expirationTime < System.currentTimeMillis()) {
+		remove(key);
+		return null;
+	    }
+	    return cacheEntry.bytes;
+	}
+
+	private synchronized long getGeneration() {
+	    return generation;
+	}
+
+	/**
+	 * @return false if the response is not put in cache because one of its
+	 *         tables has been evicted since {@code readGeneration}
+	 */
+	private synchronized boolean put(String key, byte[] bytes, Set<String> tables, long ttlMillis,
+		long readGeneration) {
+	    if (clearGeneration > readGeneration) {
+		return false;
+	    }
+	    for (String table : tables) {
+		Long tableGeneration = tableGenerationMap.get(table);
+		if (tableGeneration != null && tableGeneration > readGeneration) {
+		    return false;
+		}
+	    }
+
+	    remove(key);
+
+	    CacheEntry cacheEntry = new CacheEntry(bytes, tables, System.currentTimeMillis() + ttlMillis);
+	    entryMap.put(key, cacheEntry);
+	    size += bytes.length;
+	    for (String table : tables) {
+		tableMap.computeIfAbsent(table, k -> new HashSet<>()).add(key);
+	    }
+
+	    // Least recently used entries are first
+	    Iterator<String> iterator = new ArrayList<>(entryMap.keySet()).iterator();
+	    while (size > maxSize && iterator.hasNext()) {
+		remove(iterator.next());
+	    }
+	    return true;
+	}
+
+	private synchronized void evict(Set<String> tables) {
+	    generation++;
+	    for (String table : tables) {
+		tableGenerationMap.put(table, generation);
+		Set<String> keys = tableMap.remove(table);
+		if (keys != null) {
+		    debug("Evicting " + keys.size() + " responses of table " + table);
+		    for (String key : keys) {
+			remove(key);
+		    }
+		}
+	    }
+	}
+
+	private synchronized void clear() {
+	    generation++;
+	    clearGeneration = generation;
+	    // The clear generation covers all the tables evicted before
+	    tableGenerationMap.clear();
+	    entryMap.clear();
+	    tableMap.clear();
+	    size = 0;
+	}
+
+	private void remove(String key) {
+	    CacheEntry cacheEntry = entryMap.remove(key);
+	    if (cacheEntry == null) {
+		return;
+	    }
+
+	    size -= cacheEntry.bytes.length;
+	    for (String table : cacheEntry.tables) {
+		Set<String> keys = tableMap.get(table);
+		if (keys != null) {
+		    keys.remove(key);
+		    if (keys.isEmpty()) {
+			tableMap.remove(table);
+		    }
+		}
+	    }
+	}
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql;
+
+import org.kawanfw.sql.tomcat.StaticParms;
+
+/**
+ * Says when the JSON generator must be flushed while writing a result set:
+ * every N rows or every T milliseconds, whichever comes first. <br>
+ * The flush every M bytes is done by the container, using the response buffer
+ * size set with {@link StaticParms#RESPONSE_BUFFER_SIZE}. <br>
+ * If {@link StaticParms#FLUSH_EACH_RESULT_SET_ROW} is set, each row is flushed
+ * for clients that stream the result set.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class ResultSetFlushPolicy {
+
+    private final boolean flushEachRow;
+    private final int maxRows;
+    private final long maxMilliseconds;
+
+    private int rows = 0;
+    private long lastFlushTime;
+
+    /**
+     * Constructor. Uses the values defined in {@code StaticParms}.
+     */
+    public ResultSetFlushPolicy() {
+	this(StaticParms.FLUSH_EACH_RESULT_SET_ROW, StaticParms.FLUSH_RESULT_SET_ROWS,
+		StaticParms.FLUSH_RESULT_SET_MILLISECONDS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param flushEachRow    if true, each row is flushed
+     * @param maxRows         the number of rows between two flushes, 0 for no
+     *                        row limit
+     * @param maxMilliseconds the maximum time between two flushes, 0 for no time
+     *                        limit
+     */
+    public ResultSetFlushPolicy(boolean flushEachRow, int maxRows, long maxMilliseconds) {
+	this.flushEachRow = flushEachRow;
+	this.maxRows = maxRows;
+	this.maxMilliseconds = maxMilliseconds;
+	this.lastFlushTime = System.currentTimeMillis();
+    }
+
+    /**
+     * To be called after each written row.
+     *
+     * @return true if the JSON generator must be flushed now
+     */
+    public boolean rowWritten() {
+	if (flushEachRow) {
+	    return true;
+	}
+
+	rows++;
+	if (maxRows > 0 && rows >= maxRows) {
+	    reset();
+	    return true;
+	}
+
+	if (maxMilliseconds > 0) {
+	    long now = System.currentTimeMillis();
+	    if (now - lastFlushTime >= maxMilliseconds) {
+		reset();
+		return true;
+	    }
+	}
+
+	return false;
+    }
+
+    private void reset() {
+	rows = 0;
+	lastFlushTime = System.currentTimeMillis();
+    }
+
+}
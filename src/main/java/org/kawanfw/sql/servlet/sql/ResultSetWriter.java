@@ -12,21 +12,20 @@
 package org.kawanfw.sql.servlet.sql;
 
 import java.io.IOException;
-import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Types;
 import java.util.List;
 
+import javax.json.JsonException;
 import javax.json.stream.JsonGenerator;
 import javax.servlet.http.HttpServletRequest;
 
-import org.apache.commons.lang3.StringUtils;
 import org.kawanfw.sql.jdbc.metadata.ResultSetMetaDataHolder;
 import org.kawanfw.sql.metadata.util.GsonWsUtil;
 import org.kawanfw.sql.servlet.HttpParameter;
 import org.kawanfw.sql.servlet.jdbc.metadata.resultset.ResultSetMetaDataBuilder;
-import org.kawanfw.sql.tomcat.StaticParms;
+import org.kawanfw.sql.servlet.sql.writer.ColumnWriter;
+import org.kawanfw.sql.servlet.sql.writer.ColumnWriterPlan;
 import org.kawanfw.sql.util.FrameworkDebug;
 
 /**
@@ -54,6 +53,15 @@ public class ResultSetWriter {
     private Boolean doColumnTypes = false;
     private JsonGenerator gen = null;
 
+    /**
+     * If true, column names and types are written once and each row is a
+     * positional array of values
+     */
+    private boolean compactFormat = false;
+
+    /** Says if the written values are valid only for the current session */
+    private boolean sessionBound = false;
+
 
     /**
      * @param request  the http request
@@ -68,8 +76,10 @@ public class ResultSetWriter {
 	this.request = request;
 	this.gen = gen;
 
+	// Compact format always sends the column types in header
+	compactFormat = ServerStatementUtil.isCompactResultSetFormat(request);
 	String columnTypes = request.getParameter(HttpParameter.COLUMN_TYPES);
-	doColumnTypes = Boolean.parseBoolean(columnTypes);
+	doColumnTypes = Boolean.parseBoolean(columnTypes) || compactFormat;
 
 	this.fillResultSetMetaData = fillResultSetMetaData;
 	debug("fillResultSetMetaData: " + fillResultSetMetaData);
@@ -100,102 +110,116 @@ public class ResultSetWriter {
      */
     public void write(ResultSet resultSet) throws SQLException, IOException {
 	try {
-	    if (resultSet == null) {
-		throw new SQLException("resultSet is null!");
+	    writePage(resultSet, 0);
+	} catch (IOException e) {
+	    // The client is gone: cancel before the close reads the remaining rows
+	    if (resultSet != null) {
+		RunningStatements.cancelQuietly(resultSet);
+	    }
+	    throw e;
+	} catch (JsonException e) {
+	    // The JsonGenerator wraps the IOException of the stream
+	    if (e.getCause() instanceof IOException && resultSet != null) {
+		RunningStatements.cancelQuietly(resultSet);
+	    }
+	    throw e;
+	} finally {
+	    try {
+		if (resultSet != null) {
+		    resultSet.close();
+		}
+	    } catch (Exception e) {
+		e.printStackTrace();
 	    }
+	    // NO! IOUtils.closeQuietly(out);
+	}
+    }
 
-	    String productName = ResultSetWriterUtil.getDatabaseProductName(resultSet);
+    /**
+     * Writes at most {@code maxRows} rows of the ResultSet, from its current
+     * position. The ResultSet is not closed, so that the next rows may be
+     * written by a next call. Used by the server-side cursors.
+     *
+     * @param resultSet the Result Set to process and print on the output stream
+     * @param maxRows   the maximum number of rows to write. 0 for all rows.
+     * @return true if {@code maxRows} rows were written, so that the ResultSet
+     *         may have more rows
+     * @throws SQLException if any SQLException occurs
+     * @throws IOException  if any IOException occurs
+     */
+    public boolean writePage(ResultSet resultSet, int maxRows) throws SQLException, IOException {
+	if (resultSet == null) {
+	    throw new SQLException("resultSet is null!");
+	}
+
+	String productName = ResultSetWriterUtil.getDatabaseProductName(resultSet);
+
+	ColumnInfoCreator columnInfoCreator = new ColumnInfoCreator(resultSet, productName);
+	List<Integer> columnTypeList = columnInfoCreator.getColumnTypeList();
+	List<String> columnNameList = columnInfoCreator.getColumnNameList();
 
-	    ColumnInfoCreator columnInfoCreator = new ColumnInfoCreator(resultSet, productName);
-	    List<Integer> columnTypeList = columnInfoCreator.getColumnTypeList();
-	    List<String> columnTypeNameList = columnInfoCreator.getColumnTypeNameList();
-	    List<String> columnNameList = columnInfoCreator.getColumnNameList();
-	    List<String> columnTableList = columnInfoCreator.getColumnTableList();
+	writeResultSetMetaData(resultSet);
+	writeColumnNames(columnNameList);
+	writeColumnTypes(columnTypeList);
 
-	    writeResultSetMetaData(resultSet);
-	    writeColumnTypes(columnTypeList);
+	// One writer per column, built once for all rows
+	ColumnWriterPlan columnWriterPlan = new ColumnWriterPlan(request, sqlOrder, resultSet, productName,
+		columnInfoCreator, gen, compactFormat);
+	List<ColumnWriter> columnWriters = columnWriterPlan.getColumnWriters();
+	sessionBound = columnWriterPlan.isSessionBound();
 
+	if (compactFormat) {
+	    gen.writeStartArray("query_rows");
+	} else {
 	    gen.writeStartArray("query_rows").writeStartObject();
+	}
 
-	    int row_count = 0;
-	    // Loop result Set
-	    while (resultSet.next()) {
+	ResultSetFlushPolicy flushPolicy = new ResultSetFlushPolicy();
 
-		row_count++;
+	int row_count = 0;
+	// Loop result Set. Row count is tested first to not consume a row of next page
+	while ((maxRows <= 0 || row_count < maxRows) && resultSet.next()) {
+
+	    row_count++;
+	    if (compactFormat) {
+		gen.writeStartArray();
+	    } else {
 		gen.writeStartArray("row_" + row_count);
+	    }
 
-		for (int i = 0; i < columnTypeList.size(); i++) {
-		    int columnIndex = i + 1;
-		    int columnType = columnTypeList.get(i);
-		    String columnTypeName = columnTypeNameList.get(i);
-		    String columnName = columnNameList.get(i);
-		    String columnTable = columnTableList.get(i);
-
-		    debugColumnInfo(columnIndex, columnType, columnTypeName, columnName, columnTable);
-
-		    Object columnValue = null;
-		    String columnValueStr = null;
-
-		    BinaryColumnFormater binaryColumnFormater = new BinaryColumnFormater(request, resultSet, productName, columnType, columnIndex, columnName);
-		    if (binaryColumnFormater.isBinaryColumn()) {
-			debug("isBinaryColumn: true");
-			columnValueStr = binaryColumnFormater.formatAndReturnId();
-			debug("isBinaryColumn:columnValueStr: " + columnValueStr);
-		    } else if (ResultSetWriterUtil.isNStringColumn(columnType)) {
-			columnValue = resultSet.getNString(columnIndex);
-			columnValueStr = ResultSetWriterUtil.treatNullValue(resultSet, columnValue);
-		    } else if (isClobColumn(columnType)) {
-			ClobColumnFormater clobColumnFormater = new ClobColumnFormater(request, resultSet, columnIndex);
-			columnValueStr = clobColumnFormater.formatAndReturnId();
-		    } else if (columnType == Types.ARRAY) {
-			columnValueStr = ResultSetWriterUtil.formatArrayColumn(resultSet, columnIndex);
-		    } else if (ResultSetWriterUtil.isDateTime(columnType)) {
-			columnValueStr = ResultSetWriterUtil.formatDateTimeColumn(resultSet, columnType, columnIndex);
-		    } else if (columnType == Types.ROWID) {
-			columnValueStr = ResultSetWriterUtil.formatRowIdColumn(request, resultSet, columnIndex);
-		    } else {
-			try {
-			    columnValue = resultSet.getObject(columnIndex);
-			    debug("columnValue: " + columnValue);
-
-			} catch (Exception e) {
-			    throw new SQLException(columnType + "Type/TypeName/ColName " + columnTypeNameList.get(i)
-				    + " " + columnName, e);
-			}
-			columnValueStr = ResultSetWriterUtil.treatNullValue(resultSet, columnValue);
-		    }
-
-		    debug("columnValueStr : " + columnValueStr);
-		    gen.writeStartObject();
-		    writeColumn(columnName, columnValue, columnValueStr);
-		    gen.writeEnd();
-		}
+	    for (ColumnWriter columnWriter : columnWriters) {
+		columnWriter.write(resultSet);
+	    }
 
-		gen.writeEnd(); // line_i
-		
-		// Allow to flush on each row... If required by environment...
-		if (StaticParms.FLUSH_EACH_RESULT_SET_ROW) {
-		    gen.flush(); 
-		}
+	    gen.writeEnd(); // line_i
+
+	    // Flush every N rows or T milliseconds, or on each row if required by environment
+	    if (flushPolicy.rowWritten()) {
+		gen.flush();
 	    }
+	}
 
+	if (!compactFormat) {
 	    gen.writeEnd(); // .writeStartObject();
-	    gen.writeEnd(); // .writeStartArray("query_rows")
+	}
+	gen.writeEnd(); // .writeStartArray("query_rows")
 
-	    gen.write("row_count", row_count);
-	    
-	    gen.flush(); // Final flush only
+	gen.write("row_count", row_count);
 
-	} finally {
-	    try {
-		if (resultSet != null) {
-		    resultSet.close();
-		}
-	    } catch (Exception e) {
-		e.printStackTrace();
-	    }
-	    // NO! IOUtils.closeQuietly(out);
-	}
+	gen.flush(); // Final flush only
+
+	return maxRows > 0 && row_count == maxRows;
+    }
+
+    /**
+     * Says if the written values are valid only for the current session, so
+     * that the response may not be shared with other sessions.
+     *
+     * @return true if a column value refers to a file or an object of the
+     *         session
+     */
+    public boolean isSessionBound() {
+	return sessionBound;
     }
 
     /**
@@ -214,52 +238,21 @@ public class ResultSetWriter {
     }
 
     /**
-     * @param columnName
-     * @param columnValue
-     * @param columnValueStr
-     * @throws NumberFormatException
+     * Write the column names once. Required by the compact format, as rows do
+     * not contain the column names.
+     *
+     * @param columnNameList
      */
-    private void writeColumn(String columnName, Object columnValue, String columnValueStr)
-	    throws NumberFormatException {
-	if (StringUtils.isNumeric(columnValueStr)) {
-
-	if (columnValue instanceof Integer) {
-	    gen.write(columnName, Integer.parseInt(columnValueStr));
-	} else if (columnValue instanceof Double) {
-	    gen.write(columnName, Double.parseDouble(columnValueStr));
-	} else if (columnValue instanceof Float) {
-	    gen.write(columnName, Float.parseFloat(columnValueStr));
-	} else if (columnValue instanceof Long) {
-	    gen.write(columnName, Long.parseLong(columnValueStr));
-	} else if (columnValue instanceof BigDecimal) {
-	    gen.write(columnName, new BigDecimal(columnValueStr));
-	} else {
-	    gen.write(columnName, columnValueStr);
-	}
-
-	} else {
-	gen.write(columnName, columnValueStr);
+    private void writeColumnNames(List<String> columnNameList) {
+	if (compactFormat) {
+	    gen.writeStartArray("column_names");
+	    for (String columnName : columnNameList) {
+		gen.write(columnName);
+	    }
+	    gen.writeEnd();
 	}
     }
 
-    /**
-     * @param columnIndex
-     * @param columnType
-     * @param columnTypeName
-     * @param columnName
-     * @param columnTable
-     */
-    public void debugColumnInfo(int columnIndex, int columnType, String columnTypeName, String columnName,
-	    String columnTable) {
-	debug("");
-	debug("columnIndex    : " + columnIndex);
-	debug("columnType     : " + columnType);
-	debug("columnTypeName : " + columnTypeName);
-	debug("columnName     : " + columnName);
-	debug("columnTable    : " + columnTable);
-    }
-
-
     /**
      * Write the column types. Maybe required by client SDKs.
      *
@@ -276,23 +269,6 @@ public class ResultSetWriter {
 	}
     }
 
-    /**
-     * return true if the column is a Types.CLOB || Types.NCLOB
-     *
-     * @param columnType the sql column type
-     * @return true if it's (N)CLOB
-     */
-    private boolean isClobColumn(int columnType) {
-
-	// 18/11/11 23:20 NDP : ResultSetWriter: no file dump for
-	// ResultSetMetaData queries
-	if (sqlOrder.equals("ResultSetMetaData")) {
-	    return false;
-	}
-
-	return columnType == Types.CLOB || columnType == Types.LONGVARCHAR || columnType == Types.NCLOB;
-    }
-
     /**
      * @param s
      */
@@ -35,7 +35,8 @@ import org.kawanfw.sql.util.SqlReturnCode;
 
 public class ResultSetWriterUtil {
 
-    private static final String NULL = "NULL";
+    /** Value sent to client side when {@code ResultSet.wasNull()} is true */
+    public static final String NULL = "NULL";
 
     /**
      * If wa have a ResultSet.wasNull() ==> value is "NULL" for transport to client
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.kawanfw.sql.servlet.HttpParameter;
+import org.kawanfw.sql.util.FrameworkDebug;
+
+/**
+ * Keeps the Statements being executed, so that they can be cancelled while
+ * the query is still running: <br>
+ * - by the {@code cancel} action, with the {@code request_id} passed by the
+ * client when the query was sent. Only the requests of the same username and
+ * session may be cancelled. <br>
+ * - when the client disconnects, or when the response can't be written
+ * anymore.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class RunningStatements {
+
+    private static boolean DEBUG = FrameworkDebug.isSet(RunningStatements.class);
+
+    /** The request attribute that holds the running Statement of the request */
+    private static final String STATEMENT_ATTRIBUTE = RunningStatements.class.getName();
+
+    /** The (username/session/request id, running Statement) Map */
+    private static Map<String, RunningStatement> statementMap = new ConcurrentHashMap<>();
+
+    /**
+     * Static class.
+     */
+    protected RunningStatements() {
+
+    }
+
+    /**
+     * Registers the Statement of a request. Must be followed by
+     * {@link #unregister(HttpServletRequest)} once the request is executed.
+     *
+     * @param request   the http request
+     * @param statement the Statement that will execute the request
+     */
+    public static void register(HttpServletRequest request, Statement statement) {
+	RunningStatement runningStatement = new RunningStatement(statement);
+	request.setAttribute(STATEMENT_ATTRIBUTE, runningStatement);
+
+	String key = buildKey(request);
+	if (key != null) {
+	    statementMap.put(key, runningStatement);
+	}
+    }
+
+    /**
+     * Unregisters the Statement of a request. Must be called before the
+     * Statement is closed or put back in cache: a cancel that is running is
+     * waited for, and no cancel is done after.
+     *
+     * @param request the http request
+     */
+    public static void unregister(HttpServletRequest request) {
+	RunningStatement runningStatement = (RunningStatement) request.getAttribute(STATEMENT_ATTRIBUTE);
+	if (runningStatement == null) {
+	    return;
+	}
+	request.removeAttribute(STATEMENT_ATTRIBUTE);
+	runningStatement.finish();
+
+	// The request id may have been reused by a new request
+	String key = buildKey(request);
+	if (key != null) {
+	    statementMap.remove(key, runningStatement);
+	}
+    }
+
+    /**
+     * Cancels the running Statement of a request id.
+     *
+     * @param username  the client username
+     * @param sessionId the client session id
+     * @param requestId the request id passed by the client
+     * @return true if a running Statement was found and cancelled
+     * @throws SQLException if the driver fails to cancel the Statement
+     */
+    public static boolean cancel(String username, String sessionId, String requestId) throws SQLException {
+	RunningStatement runningStatement = statementMap.get(username + "/" + sessionId + "/" + requestId);
+	if (runningStatement == null) {
+	    return false;
+	}
+
+	debug("Cancelling request " + requestId + " of " + username);
+	return runningStatement.cancel();
+    }
+
+    /**
+     * Cancels the running Statement of a request, if any. Errors are ignored.
+     * Called when the client is gone.
+     *
+     * @param request the http request
+     */
+    public static void cancelQuietly(HttpServletRequest request) {
+	RunningStatement runningStatement = (RunningStatement) request.getAttribute(STATEMENT_ATTRIBUTE);
+	if (runningStatement == null) {
+	    return;
+	}
+
+	try {
+	    debug("Cancelling Statement of a disconnected client.");
+	    runningStatement.cancel();
+	} catch (Exception e) {
+	    debug("Statement cancel failure: " + e.getMessage());
+	}
+    }
+
+    /**
+     * Cancels the Statement of a ResultSet. Errors are ignored. Called when the
+     * ResultSet can't be written anymore, so that its close does not read the
+     * remaining rows.
+     *
+     * @param resultSet the ResultSet being written
+     */
+    public static void cancelQuietly(ResultSet resultSet) {
+	try {
+	    Statement statement = resultSet.getStatement();
+	    if (statement != null) {
+		cancelQuietly(statement);
+	    }
+	} catch (SQLException e) {
+	    debug("Impossible to get the Statement: " + e.getMessage());
+	}
+    }
+
+    private static void cancelQuietly(Statement statement) {
+	try {
+	    debug("Cancelling Statement of a disconnected client.");
+	    statement.cancel();
+	} catch (Exception e) {
+	    debug("Statement cancel failure: " + e.getMessage());
+	}
+    }
+
+    /**
+     * A registered Statement. The cancel and the end of the request are done
+     * under the same lock, so that a Statement is never cancelled once it is
+     * back in the PreparedStatementCache and used by another request.
+     */
+    private static class RunningStatement {
+	private final Statement statement;
+	private boolean finished = false;
+
+	private RunningStatement(Statement statement) {
+	    this.statement = statement;
+	}
+
+	/**
+	 * @return false if the request is already finished
+	 */
+	private synchronized boolean cancel() throws SQLException {
+	    if (finished) {
+		return false;
+	    }
+	    statement.cancel();
+	    return true;
+	}
+
+	private synchronized void finish() {
+	    finished = true;
+	}
+    }
+
+    /**
+     * Returns the key of a request, or null if the client passed no request id.
+     */
+    private static String buildKey(HttpServletRequest request) {
+	String requestId = request.getParameter(HttpParameter.REQUEST_ID);
+	if (requestId == null || requestId.isEmpty()) {
+	    return null;
+	}
+
+	String username = request.getParameter(HttpParameter.USERNAME);
+	String sessionId = request.getParameter(HttpParameter.SESSION_ID);
+	return username + "/" + sessionId + "/" + requestId;
+    }
+
+    private static void debug(String s) {
+	if (DEBUG) {
+	    System.out.println(new Date() + " " + s);
+	}
+    }
+
+}
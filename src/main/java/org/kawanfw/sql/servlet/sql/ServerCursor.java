@@ -0,0 +1,171 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.kawanfw.sql.util.FrameworkDebug;
+
+/**
+ * An open ResultSet kept on server side between two requests, with the
+ * Statement that created it. <br>
+ * The cursor is stored in the {@code ConnectionStore} entry of its Connection
+ * and is identified by its cursor id. A request that fetches rows acquires it
+ * with {@link #acquire()} and releases it with {@link #release()}, so that an
+ * idle cursor is never closed while a page is being written.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class ServerCursor {
+
+    private static boolean DEBUG = FrameworkDebug.isSet(ServerCursor.class);
+
+    private final String cursorId;
+    private final String database;
+    private final Connection connection;
+    private final String sqlOrder;
+    private final Statement statement;
+    private final ResultSet resultSet;
+    private final long idleTimeoutMillis;
+
+    private long lastAccessTime;
+    private boolean inUse = false;
+    private boolean closed = false;
+
+    /**
+     * Constructor
+     *
+     * @param database          the database name
+     * @param connection        the JDBC Connection of the statement
+     * @param sqlOrder          the SQL order
+     * @param statement         the Statement or PreparedStatement that created
+     *                          the ResultSet. A PreparedStatement must come from
+     *                          the {@link PreparedStatementCache}.
+     * @param resultSet         the ResultSet to keep open
+     * @param idleTimeoutMillis the delay after which the cursor is closed if not
+     *                          fetched. 0 for no delay.
+     */
+    public ServerCursor(String database, Connection connection, String sqlOrder, Statement statement,
+	    ResultSet resultSet, long idleTimeoutMillis) {
+	this.cursorId = UUID.randomUUID().toString().replace("-", "");
+	this.database = Objects.requireNonNull(database, "database cannot be null!");
+	this.connection = Objects.requireNonNull(connection, "connection cannot be null!");
+	this.sqlOrder = sqlOrder;
+	this.statement = Objects.requireNonNull(statement, "statement cannot be null!");
+	this.resultSet = Objects.requireNonNull(resultSet, "resultSet cannot be null!");
+	this.idleTimeoutMillis = idleTimeoutMillis;
+	this.lastAccessTime = System.currentTimeMillis();
+    }
+
+    /**
+     * @return the cursor id sent to the client side
+     */
+    public String getCursorId() {
+	return cursorId;
+    }
+
+    /**
+     * @return the SQL order of the cursor
+     */
+    public String getSqlOrder() {
+	return sqlOrder;
+    }
+
+    /**
+     * @return the open ResultSet of the cursor
+     */
+    public ResultSet getResultSet() {
+	return resultSet;
+    }
+
+    /**
+     * Marks the cursor as in use by a request.
+     *
+     * @return false if the cursor is closed or already in use
+     */
+    public synchronized boolean acquire() {
+	if (closed || inUse) {
+	    return false;
+	}
+	inUse = true;
+	lastAccessTime = System.currentTimeMillis();
+	return true;
+    }
+
+    /**
+     * Marks the cursor as no more in use.
+     */
+    public synchronized void release() {
+	inUse = false;
+	lastAccessTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Closes the cursor if it's not in use and not fetched since its idle
+     * timeout.
+     *
+     * @param now the current time in milliseconds
+     * @return true if the cursor has been closed
+     */
+    public synchronized boolean closeIfIdle(long now) {
+	if (closed || inUse || idleTimeoutMillis <= 0 || now - lastAccessTime < idleTimeoutMillis) {
+	    return false;
+	}
+
+	debug("Closing idle cursor " + cursorId + " of " + database);
+	close();
+	return true;
+    }
+
+    /**
+     * Closes the ResultSet and puts back the PreparedStatement in cache, or
+     * closes the Statement. Errors are ignored, as the Connection may be already
+     * closed.
+     */
+    public synchronized void close() {
+	if (closed) {
+	    return;
+	}
+	closed = true;
+
+	try {
+	    resultSet.close();
+	} catch (SQLException e) {
+	    debug("ResultSet close failure: " + e.getMessage());
+	}
+
+	try {
+	    if (statement instanceof PreparedStatement) {
+		PreparedStatementCache.close(database, connection, sqlOrder, (PreparedStatement) statement);
+	    } else {
+		statement.close();
+	    }
+	} catch (SQLException e) {
+	    debug("Statement close failure: " + e.getMessage());
+	}
+    }
+
+    private void debug(String s) {
+	if (DEBUG) {
+	    System.out.println(new Date() + " " + s);
+	}
+    }
+
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+import java.util.zip.GZIPOutputStream;
+
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.kawanfw.sql.servlet.HttpParameter;
+import org.kawanfw.sql.servlet.ServerSqlManager;
+import org.kawanfw.sql.servlet.connection.ConnectionIdUtil;
+import org.kawanfw.sql.servlet.connection.ConnectionStore;
+import org.kawanfw.sql.servlet.injection.properties.ConfPropertiesStore;
+import org.kawanfw.sql.servlet.injection.properties.ConfPropertiesUtil;
+import org.kawanfw.sql.servlet.sql.json_return.JsonErrorReturn;
+import org.kawanfw.sql.servlet.sql.json_return.JsonOkReturn;
+import org.kawanfw.sql.servlet.sql.json_return.JsonUtil;
+import org.kawanfw.sql.util.FrameworkDebug;
+
+/**
+ * Server-side cursors for stateful sessions. <br>
+ * <ul>
+ * <li>An {@code execute_query} with {@code cursor=true} writes the first
+ * {@code page_size} rows. If there are more rows, the ResultSet is kept open
+ * in the {@link ConnectionStore} and its {@code cursor_id} is returned.</li>
+ * <li>{@code fetch} writes the next {@code page_size} rows of the cursor.</li>
+ * <li>{@code close_cursor} closes the cursor.</li>
+ * </ul>
+ * Each page has the same format as an {@code execute_query} result, with a
+ * {@code has_more} value. The cursor is closed when all its rows are fetched.
+ * The number of open cursors per session and their idle timeout are set per
+ * database with the {@code cursorMaxPerSession} and {@code cursorIdleTimeout}
+ * properties.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class ServerCursorManager {
+
+    private static boolean DEBUG = FrameworkDebug.isSet(ServerCursorManager.class);
+
+    /** The number of rows per page if the client does not pass a page_size */
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private Connection connection;
+    private String database;
+
+    /**
+     * Constructor
+     *
+     * @param request    the http request
+     * @param response   the http servlet response
+     * @param connection the JDBC Connection of the session
+     */
+    public ServerCursorManager(HttpServletRequest request, HttpServletResponse response, Connection connection) {
+	this.request = request;
+	this.response = response;
+	this.connection = connection;
+	this.database = request.getParameter(HttpParameter.DATABASE);
+    }
+
+    /**
+     * Says if an action is a server-side cursor action.
+     *
+     * @param action the action asked by the client side
+     * @return true if the action is {@code fetch} or {@code close_cursor}
+     */
+    public static boolean isCursorAction(String action) {
+	return action.equals(HttpParameter.FETCH) || action.equals(HttpParameter.CLOSE_CURSOR);
+    }
+
+    /**
+     * @return true if the client asks to open a cursor for the query
+     */
+    public boolean isCursorRequested() {
+	return Boolean.parseBoolean(request.getParameter(HttpParameter.CURSOR));
+    }
+
+    /**
+     * Checks that a cursor may be opened for the session, before the query is
+     * executed.
+     *
+     * @throws SQLException if the server is stateless, if the cursors are
+     *                      disabled or if the session has too many open cursors
+     */
+    public void checkCursorAllowed() throws SQLException {
+	if (ConfPropertiesUtil.isStatelessMode()) {
+	    throw new SQLException("AceQL Server is in Stateless Mode: server-side cursors are not supported.");
+	}
+
+	int cursorMaxPerSession = ConfPropertiesStore.get().getCursorMaxPerSession(database);
+	if (cursorMaxPerSession <= 0) {
+	    throw new SQLException("Server-side cursors are disabled for database " + database + ".");
+	}
+
+	String username = request.getParameter(HttpParameter.USERNAME);
+	String sessionId = request.getParameter(HttpParameter.SESSION_ID);
+	if (ConnectionStore.getCursorCount(username, sessionId) >= cursorMaxPerSession) {
+	    throw new SQLException(getTooManyCursorsMessage(cursorMaxPerSession));
+	}
+    }
+
+    /**
+     * Sets the fetch size of the statement to the page size, capped by the max
+     * rows to return. Must be called after the max rows are set.
+     *
+     * @param statement the statement that will execute the query
+     * @throws SQLException if any SQLException occurs
+     */
+    public void prepare(Statement statement) throws SQLException {
+	int pageSize = getPageSize();
+	int maxRows = statement.getMaxRows();
+	statement.setFetchSize(maxRows > 0 ? Math.min(pageSize, maxRows) : pageSize);
+    }
+
+    /**
+     * Writes the first page of the ResultSet and keeps it open in a cursor if it
+     * has more rows.
+     *
+     * @param out       the output stream
+     * @param sqlOrder  the SQL order
+     * @param statement the Statement or PreparedStatement that executed the query
+     * @param resultSet the ResultSet
+     * @return true if the cursor is kept open: the ResultSet and the statement
+     *         must then not be closed or released by the caller
+     * @throws SQLException if any SQLException occurs
+     * @throws IOException  if any IOException occurs
+     */
+    public boolean open(OutputStream out, String sqlOrder, Statement statement, ResultSet resultSet)
+	    throws SQLException, IOException {
+
+	int cursorMaxPerSession = ConfPropertiesStore.get().getCursorMaxPerSession(database);
+	long idleTimeoutMillis = ConfPropertiesStore.get().getCursorIdleTimeout(database) * 1000L;
+
+	ServerCursor serverCursor = new ServerCursor(database, connection, sqlOrder, statement, resultSet,
+		idleTimeoutMillis);
+
+	// Stored before the first page is written, to check atomically the limit
+	ConnectionStore connectionStore = getConnectionStore();
+	if (!connectionStore.put(serverCursor, cursorMaxPerSession)) {
+	    throw new SQLException(getTooManyCursorsMessage(cursorMaxPerSession));
+	}
+
+	boolean hasMore = false;
+	try {
+	    serverCursor.acquire();
+	    hasMore = writePage(out, serverCursor);
+	} finally {
+	    serverCursor.release();
+	    if (!hasMore) {
+		// Caller closes the ResultSet & statement
+		connectionStore.removeCursor(serverCursor.getCursorId());
+	    }
+	}
+
+	debug("cursor " + serverCursor.getCursorId() + " open: " + hasMore);
+	return hasMore;
+    }
+
+    /**
+     * Executes the {@code fetch} or {@code close_cursor} action.
+     *
+     * @param out the output stream
+     * @throws IOException if any IOException occurs
+     */
+    public void executeCursorAction(OutputStream out) throws IOException {
+
+	String action = request.getParameter(HttpParameter.ACTION);
+	String cursorId = request.getParameter(HttpParameter.CURSOR_ID);
+	debug("action: " + action + " cursorId: " + cursorId);
+
+	OutputStream outFinal = out;
+
+	try {
+	    ConnectionStore connectionStore = getConnectionStore();
+
+	    if (action.equals(HttpParameter.CLOSE_CURSOR)) {
+		ServerCursor serverCursor = connectionStore.removeCursor(cursorId);
+		if (serverCursor != null) {
+		    serverCursor.close();
+		}
+		ServerSqlManager.writeLine(out, JsonOkReturn.build());
+		return;
+	    }
+
+	    ServerCursor serverCursor = connectionStore.getCursor(cursorId);
+	    if (serverCursor == null) {
+		JsonErrorReturn errorReturn = new JsonErrorReturn(response, HttpServletResponse.SC_NOT_FOUND,
+			JsonErrorReturn.ERROR_ACEQL_ERROR, JsonErrorReturn.INVALID_CURSOR_ID + cursorId);
+		ServerSqlManager.writeLine(out, errorReturn.build());
+		return;
+	    }
+
+	    if (!serverCursor.acquire()) {
+		JsonErrorReturn errorReturn = new JsonErrorReturn(response, HttpServletResponse.SC_CONFLICT,
+			JsonErrorReturn.ERROR_ACEQL_ERROR, JsonErrorReturn.CURSOR_FETCH_IN_PROGRESS);
+		ServerSqlManager.writeLine(out, errorReturn.build());
+		return;
+	    }
+
+	    boolean hasMore = false;
+	    try {
+		if (Boolean.parseBoolean(request.getParameter(HttpParameter.GZIP_RESULT))) {
+		    outFinal = new GZIPOutputStream(out);
+		}
+		hasMore = writePage(outFinal, serverCursor);
+	    } finally {
+		serverCursor.release();
+		if (!hasMore) {
+		    connectionStore.removeCursor(cursorId);
+		    serverCursor.close();
+		}
+	    }
+
+	} catch (IllegalArgumentException e) {
+	    JsonErrorReturn errorReturn = new JsonErrorReturn(response, HttpServletResponse.SC_BAD_REQUEST,
+		    JsonErrorReturn.ERROR_ACEQL_ERROR, e.getMessage());
+	    ServerSqlManager.writeLine(outFinal, errorReturn.build());
+	} catch (SQLException e) {
+	    JsonErrorReturn errorReturn = new JsonErrorReturn(response, HttpServletResponse.SC_BAD_REQUEST,
+		    JsonErrorReturn.ERROR_JDBC_ERROR, e.getMessage());
+	    ServerSqlManager.writeLine(outFinal, errorReturn.build());
+	} catch (Exception e) {
+	    JsonErrorReturn errorReturn = new JsonErrorReturn(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+		    JsonErrorReturn.ERROR_ACEQL_FAILURE, e.getMessage(), ExceptionUtils.getStackTrace(e));
+	    ServerSqlManager.writeLine(outFinal, errorReturn.build());
+	} finally {
+	    if (outFinal != out) {
+		outFinal.close();
+	    }
+	}
+    }
+
+    /**
+     * Writes the next page of rows of the cursor.
+     *
+     * @return true if the cursor may have more rows
+     */
+    private boolean writePage(OutputStream out, ServerCursor serverCursor) throws SQLException, IOException {
+	boolean prettyPrinting = ServerStatementUtil.isPrettyPrinting(request, true);
+	JsonGeneratorFactory jf = JsonUtil.getJsonGeneratorFactory(prettyPrinting);
+
+	JsonGenerator gen = jf.createGenerator(out);
+	gen.writeStartObject().write("status", "OK");
+
+	boolean fillResultSetMetaData = Boolean
+		.parseBoolean(request.getParameter(HttpParameter.FILL_RESULT_SET_META_DATA));
+
+	ResultSetWriter resultSetWriter = new ResultSetWriter(request, serverCursor.getSqlOrder(), gen,
+		fillResultSetMetaData);
+	boolean hasMore = resultSetWriter.writePage(serverCursor.getResultSet(), getPageSize());
+
+	if (hasMore) {
+	    gen.write(HttpParameter.CURSOR_ID, serverCursor.getCursorId());
+	}
+	gen.write("has_more", hasMore);
+
+	gen.writeEnd(); // .write("status", "OK")
+	gen.flush();
+	gen.close();
+	return hasMore;
+    }
+
+    /**
+     * Returns the ConnectionStore of the Connection, with the same key as the
+     * one used to close the Connection.
+     */
+    private ConnectionStore getConnectionStore() {
+	String username = request.getParameter(HttpParameter.USERNAME);
+	String sessionId = request.getParameter(HttpParameter.SESSION_ID);
+	String connectionId = request.getParameter(HttpParameter.CONNECTION_ID);
+
+	if (connectionId == null || connectionId.isEmpty()) {
+	    connectionId = ConnectionIdUtil.getConnectionId(connection);
+	}
+	return new ConnectionStore(username, sessionId, connectionId);
+    }
+
+    /**
+     * @return the page_size passed by the client, or the default one
+     */
+    private int getPageSize() {
+	String pageSizeStr = request.getParameter(HttpParameter.PAGE_SIZE);
+	if (pageSizeStr == null || pageSizeStr.isEmpty()) {
+	    return DEFAULT_PAGE_SIZE;
+	}
+
+	int pageSize = Integer.parseInt(pageSizeStr);
+	if (pageSize <= 0) {
+	    throw new IllegalArgumentException("Invalid page_size. Must be > 0: " + pageSizeStr);
+	}
+	return pageSize;
+    }
+
+    private String getTooManyCursorsMessage(int cursorMaxPerSession) {
+	return "Too many open cursors for session. Maximum is " + cursorMaxPerSession
+		+ ". Close the unused cursors with close_cursor.";
+    }
+
+    private void debug(String s) {
+	if (DEBUG) {
+	    System.out.println(new Date() + " " + s);
+	}
+    }
+
+}
@@ -73,12 +73,31 @@ public class ServerSqlUtil {
         int maxRowsToReturn = databaseConfigurator.getMaxRows(username, database);
         
         if (maxRowsToReturn > 0 && (statement.getMaxRows() == 0 || (statement.getMaxRows() > maxRowsToReturn))) {
-            statement.setFetchSize(0); // To avoid any possible conflict
+            // The fetch size is set afterwards by StreamingFetch, capped by max rows
             statement.setMaxRows(maxRowsToReturn);
         }
 	
     }
 
+    /**
+     * Sets the query timeout of the statement, as defined by
+     * {@link DatabaseConfigurator#getQueryTimeout(String, String)}. Always
+     * called, so that a cached PreparedStatement does not keep the timeout of
+     * another user.
+     *
+     * @param username             the client username
+     * @param database             the database name
+     * @param statement            the statement to execute
+     * @param databaseConfigurator the database configurator
+     * @throws SQLException
+     * @throws IOException
+     */
+    public static void setQueryTimeout(String username, String database, Statement statement,
+	    DatabaseConfigurator databaseConfigurator) throws SQLException, IOException {
+	int queryTimeout = databaseConfigurator.getQueryTimeout(username, database);
+	statement.setQueryTimeout(queryTimeout > 0 ? queryTimeout : 0);
+    }
+
     /**
      * @param s
      */
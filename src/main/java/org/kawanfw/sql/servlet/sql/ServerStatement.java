@@ -25,6 +25,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.Vector;
 import java.util.zip.GZIPOutputStream;
 
@@ -78,6 +79,14 @@ public class ServerStatement {
     private Set<SqlFirewallManager> sqlFirewallManagers;
     private Set<UpdateListener> updateListeners;
 
+    private ServerCursorManager serverCursorManager;
+
+    /** Says if the statement is kept open by a server-side cursor */
+    private boolean statementOwnedByCursor = false;
+
+    /** Says if the transaction is rolled back when the statement fails */
+    private boolean rollbackOnFailure = true;
+
     /**
      * Default Constructor
      *
@@ -98,6 +107,19 @@ public class ServerStatement {
 
 	String database = request.getParameter(HttpParameter.DATABASE);
 	updateListeners = InjectedClassesStore.get().getUpdateListenerMap().get(database);
+	serverCursorManager = new ServerCursorManager(request, response, connection);
+    }
+
+    /**
+     * Says if the transaction is rolled back when the statement fails. Defaults
+     * to true. To be set to false by a caller that rolls back the failed
+     * statement itself, with a savepoint.
+     *
+     * @param rollbackOnFailure if true, the transaction is rolled back when the
+     *                          statement fails
+     */
+    public void setRollbackOnFailure(boolean rollbackOnFailure) {
+	this.rollbackOnFailure = rollbackOnFailure;
     }
 
     /**
@@ -129,19 +151,19 @@ public class ServerStatement {
 		executeStatement(outFinal);
 	    }
 	} catch (SecurityException e) {
-	    RollbackUtil.rollback(connection);
+	    rollback();
 
 	    JsonErrorReturn errorReturn = new JsonErrorReturn(response, HttpServletResponse.SC_FORBIDDEN,
 		    JsonErrorReturn.ERROR_ACEQL_UNAUTHORIZED, e.getMessage());
 	    ServerSqlManager.writeLine(outFinal, errorReturn.build());
 	} catch (SQLException e) {
-	    RollbackUtil.rollback(connection);
+	    rollback();
 
 	    JsonErrorReturn errorReturn = new JsonErrorReturn(response, HttpServletResponse.SC_BAD_REQUEST,
 		    JsonErrorReturn.ERROR_JDBC_ERROR, e.getMessage());
 	    ServerSqlManager.writeLine(outFinal, errorReturn.build());
 	} catch (Exception e) {
-	    RollbackUtil.rollback(connection);
+	    rollback();
 
 	    JsonErrorReturn errorReturn = new JsonErrorReturn(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
 		    JsonErrorReturn.ERROR_ACEQL_FAILURE, e.getMessage(), ExceptionUtils.getStackTrace(e));
@@ -161,6 +183,12 @@ public class ServerStatement {
 	}
     }
 
+    private void rollback() {
+	if (rollbackOnFailure) {
+	    RollbackUtil.rollback(connection);
+	}
+    }
+
     /**
      * Get the OutputStream to use. A regular one or a GZIP_RESULT one
      * 
@@ -215,7 +243,7 @@ public class ServerStatement {
 	    if (sqlOrder == null || sqlOrder.isEmpty()) {
 		throw new SQLException("A 'sql' statement is required.");
 	    }
-	    preparedStatement = connection.prepareStatement(sqlOrder);
+	    preparedStatement = PreparedStatementCache.prepareStatement(database, connection, sqlOrder);
 
 	    debug("before ServerPreparedStatementParameters");
 
@@ -240,16 +268,20 @@ public class ServerStatement {
 	    debug("before new SqlSecurityChecker()");
 	    String ipAddress = checkFirewallGeneral(username, database, sqlOrder, serverPreparedStatementParameters);
 
+	    ServerSqlUtil.setQueryTimeout(username, database, preparedStatement, databaseConfigurator);
+	    RunningStatements.register(request, preparedStatement);
+
 	    debug("before executeQuery() / executeUpdate()");
 	    if (isExecuteUpdate()) {
 		doExecuteUpdatePreparedStatement(out, username, database, sqlOrder, preparedStatement, serverPreparedStatementParameters,
 			ipAddress);
 
 	    } else {
-		doSelect(out, username, database, sqlOrder, preparedStatement, databaseConfigurator);
+		doSelect(out, username, database, sqlOrder, preparedStatement, serverPreparedStatementParameters,
+			databaseConfigurator);
 	    }
 	} catch (SQLException e) {
-	    RollbackUtil.rollback(connection);
+	    rollback();
 
 	    String message = StatementFailure.prepStatementFailureBuild(sqlOrder, e.toString(),
 		    serverPreparedStatementParameters.getParameterTypes(),
@@ -258,13 +290,16 @@ public class ServerStatement {
 	    LoggerUtil.log(request, e, message);
 	    throw e;
 	} finally {
+	    RunningStatements.unregister(request);
+
 	    // Close the ServerPreparedStatementParameters
 	    if (serverPreparedStatementParameters != null) {
 		serverPreparedStatementParameters.close();
 	    }
 
-	    if (preparedStatement != null) {
-		preparedStatement.close();
+	    // Put back in cache if the cache is enabled, else close
+	    if (!statementOwnedByCursor) {
+		PreparedStatementCache.close(database, connection, sqlOrder, preparedStatement);
 	    }
 
 	    // Clean all
@@ -300,6 +335,7 @@ public class ServerStatement {
 	}
 
 	int rc = preparedStatement.executeUpdate();
+	QueryResultCache.evict(database, sqlOrder, connection);
 
 	StringWriter sw = new StringWriter();
 	JsonGeneratorFactory jf = JsonUtil.getJsonGeneratorFactory(JsonUtil.DEFAULT_PRETTY_PRINTING);
@@ -402,6 +438,9 @@ public class ServerStatement {
 	    checkFirewallGeneral(username, database, sqlOrder, ipAddress);
 	    statement = connection.createStatement();
 
+	    ServerSqlUtil.setQueryTimeout(username, database, statement, databaseConfigurator);
+	    RunningStatements.register(request, statement);
+
 	    debug("before executeQuery() / executeUpdate(sqlOrder)");
 
 	    if (isExecuteUpdate()) {
@@ -411,7 +450,7 @@ public class ServerStatement {
 	    }
 	} catch (SQLException e) {
 
-	    RollbackUtil.rollback(connection);
+	    rollback();
 
 	    String message = StatementFailure.statementFailureBuild(sqlOrder, e.toString(), doPrettyPrinting);
 
@@ -419,9 +458,11 @@ public class ServerStatement {
 	    throw e;
 
 	} finally {
+	    RunningStatements.unregister(request);
+
 	    // NO! IOUtils.closeQuietly(out);
 
-	    if (statement != null) {
+	    if (statement != null && !statementOwnedByCursor) {
 		statement.close();
 	    }
 	}
@@ -440,35 +481,53 @@ public class ServerStatement {
     private void doSelect(OutputStream out, String username, String database, String sqlOrder, Statement statement,
 	    DatabaseConfigurator databaseConfigurator) throws SQLException, IOException {
 	ResultSet rs = null;
+	StreamingFetch streamingFetch = new StreamingFetch(connection, database);
+	boolean success = false;
 
 	try {
 
-	    ServerSqlUtil.setMaxRowsToReturn(request, username, database, statement, databaseConfigurator);
-	    debug("sqlorder: " + sqlOrder);
-
-	    rs = statement.executeQuery(sqlOrder);
+	    boolean cursorRequested = serverCursorManager.isCursorRequested();
+	    if (cursorRequested) {
+		serverCursorManager.checkCursorAllowed();
+	    }
 
-	    JsonGeneratorFactory jf = JsonUtil.getJsonGeneratorFactory(doPrettyPrinting);
+	    ServerSqlUtil.setMaxRowsToReturn(request, username, database, statement, databaseConfigurator);
+	    String cacheKey = getQueryResultCacheKey(username, database, sqlOrder, new TreeMap<>(), new TreeMap<>(),
+		    statement);
+	    if (writeFromQueryResultCache(out, database, cacheKey)) {
+		success = true;
+		return;
+	    }
 
-	    JsonGenerator gen = jf.createGenerator(out);
-	    gen.writeStartObject().write("status", "OK");
+	    // Read before the SELECT: an update done meanwhile prevents the put
+	    long cacheGeneration = cacheKey == null ? 0 : QueryResultCache.getGeneration(database);
 
-	    String fillResultSetMetaDataStr = request.getParameter(HttpParameter.FILL_RESULT_SET_META_DATA);
-	    boolean fillResultSetMetaData = Boolean.parseBoolean(fillResultSetMetaDataStr);
+	    if (cursorRequested) {
+		serverCursorManager.prepare(statement);
+	    } else {
+		streamingFetch.begin(statement);
+	    }
+	    debug("sqlorder: " + sqlOrder);
 
-	    ResultSetWriter resultSetWriter = new ResultSetWriter(request, sqlOrder, gen, fillResultSetMetaData);
-	    resultSetWriter.write(rs);
+	    rs = statement.executeQuery(sqlOrder);
 
-	    ServerSqlManager.writeLine(out);
+	    if (cursorRequested) {
+		statementOwnedByCursor = serverCursorManager.open(out, sqlOrder, statement, rs);
+		if (statementOwnedByCursor) {
+		    rs = null;
+		}
+		success = true;
+		return;
+	    }
 
-	    gen.writeEnd(); // .write("status", "OK")
-	    gen.flush();
-	    gen.close();
+	    writeResultSet(out, database, sqlOrder, rs, cacheKey, cacheGeneration);
+	    success = true;
 
 	} finally {
 	    if (rs != null) {
 		rs.close();
 	    }
+	    streamingFetch.end(success);
 	}
     }
 
@@ -478,44 +537,159 @@ public class ServerStatement {
      * @param database             
      * @param sqlOrder
      * @param preparedStatement
+     * @param serverPreparedStatementParameters
      * @param databaseConfigurator
      * @throws SQLException
      * @throws IOException
      */
     private void doSelect(OutputStream out, String username, String database, String sqlOrder,
-	    PreparedStatement preparedStatement, DatabaseConfigurator databaseConfigurator)
-	    throws SQLException, IOException {
+	    PreparedStatement preparedStatement, ServerPreparedStatementParameters serverPreparedStatementParameters,
+	    DatabaseConfigurator databaseConfigurator) throws SQLException, IOException {
 	ResultSet rs = null;
+	StreamingFetch streamingFetch = new StreamingFetch(connection, database);
+	boolean success = false;
 
 	try {
 
-	    ServerSqlUtil.setMaxRowsToReturn(request, username, database, preparedStatement, databaseConfigurator);
-	    debug("sqlorder: " + sqlOrder);
-
-	    rs = preparedStatement.executeQuery();
+	    boolean cursorRequested = serverCursorManager.isCursorRequested();
+	    if (cursorRequested) {
+		serverCursorManager.checkCursorAllowed();
+	    }
 
-	    JsonGeneratorFactory jf = JsonUtil.getJsonGeneratorFactory(doPrettyPrinting);
+	    ServerSqlUtil.setMaxRowsToReturn(request, username, database, preparedStatement, databaseConfigurator);
+	    String cacheKey = getQueryResultCacheKey(username, database, sqlOrder,
+		    serverPreparedStatementParameters.getParameterTypes(),
+		    serverPreparedStatementParameters.getParameterStringValues(), preparedStatement);
+	    if (writeFromQueryResultCache(out, database, cacheKey)) {
+		success = true;
+		return;
+	    }
 
-	    JsonGenerator gen = jf.createGenerator(out);
-	    gen.writeStartObject().write("status", "OK");
+	    // Read before the SELECT: an update done meanwhile prevents the put
+	    long cacheGeneration = cacheKey == null ? 0 : QueryResultCache.getGeneration(database);
 
-	    String fillResultSetMetaDataStr = request.getParameter(HttpParameter.FILL_RESULT_SET_META_DATA);
-	    boolean fillResultSetMetaData = Boolean.parseBoolean(fillResultSetMetaDataStr);
+	    if (cursorRequested) {
+		serverCursorManager.prepare(preparedStatement);
+	    } else {
+		streamingFetch.begin(preparedStatement);
+	    }
+	    debug("sqlorder: " + sqlOrder);
 
-	    ResultSetWriter resultSetWriter = new ResultSetWriter(request, sqlOrder, gen, fillResultSetMetaData);
-	    resultSetWriter.write(rs);
+	    rs = preparedStatement.executeQuery();
 
-	    ServerSqlManager.writeLine(out);
+	    if (cursorRequested) {
+		statementOwnedByCursor = serverCursorManager.open(out, sqlOrder, preparedStatement, rs);
+		if (statementOwnedByCursor) {
+		    rs = null;
+		}
+		success = true;
+		return;
+	    }
 
-	    gen.writeEnd(); // .write("status", "OK")
-	    gen.flush();
-	    gen.close();
+	    writeResultSet(out, database, sqlOrder, rs, cacheKey, cacheGeneration);
+	    success = true;
 
 	} finally {
 
 	    if (rs != null) {
 		rs.close();
 	    }
+	    streamingFetch.end(success);
+	}
+    }
+
+    /**
+     * Returns the {@link QueryResultCache} key of a SELECT.
+     *
+     * @param username        the client username
+     * @param database        the database name
+     * @param sqlOrder        the SELECT SQL order
+     * @param parameterTypes  the (index, type) parameters
+     * @param parameterValues the (index, value) parameters
+     * @param statement       the statement, with its maximum rows set
+     * @return the cache key, or null if the cache may not be used
+     * @throws SQLException if any SQLException occurs
+     */
+    private String getQueryResultCacheKey(String username, String database, String sqlOrder,
+	    Map<Integer, String> parameterTypes, Map<Integer, String> parameterValues, Statement statement)
+	    throws SQLException {
+	// A cursor keeps its ResultSet open: its pages can't be shared
+	if (serverCursorManager.isCursorRequested() || !QueryResultCache.isUsable(database, connection)) {
+	    return null;
+	}
+	return QueryResultCache.buildKey(request, username, sqlOrder, parameterTypes, parameterValues,
+		statement.getMaxRows());
+    }
+
+    /**
+     * Writes the cached response of a SELECT, if any.
+     *
+     * @param out      the output stream
+     * @param database the database name
+     * @param cacheKey the cache key. null if the cache may not be used.
+     * @return true if the response has been written from cache
+     * @throws IOException if any IOException occurs
+     */
+    private boolean writeFromQueryResultCache(OutputStream out, String database, String cacheKey)
+	    throws IOException {
+	if (cacheKey == null) {
+	    return false;
+	}
+
+	byte[] bytes = QueryResultCache.get(database, cacheKey);
+	if (bytes == null) {
+	    return false;
+	}
+
+	debug("Response written from cache.");
+	out.write(bytes);
+	return true;
+    }
+
+    /**
+     * Writes the SELECT response, and puts it in {@link QueryResultCache} if a
+     * cache key is passed.
+     *
+     * @param out             the output stream
+     * @param database        the database name
+     * @param sqlOrder        the SELECT SQL order
+     * @param rs              the ResultSet to write. Closed at end.
+     * @param cacheKey        the cache key. null if the cache may not be used.
+     * @param cacheGeneration the cache eviction generation read before the
+     *                        SELECT was executed
+     * @throws SQLException if any SQLException occurs
+     * @throws IOException  if any IOException occurs
+     */
+    private void writeResultSet(OutputStream out, String database, String sqlOrder, ResultSet rs, String cacheKey,
+	    long cacheGeneration) throws SQLException, IOException {
+
+	CapturingOutputStream capturingOut = null;
+	if (cacheKey != null) {
+	    capturingOut = new CapturingOutputStream(out, QueryResultCache.getMaxEntrySize(database));
+	    out = capturingOut;
+	}
+
+	boolean prettyPrinting = ServerStatementUtil.isPrettyPrinting(request, doPrettyPrinting);
+	JsonGeneratorFactory jf = JsonUtil.getJsonGeneratorFactory(prettyPrinting);
+
+	JsonGenerator gen = jf.createGenerator(out);
+	gen.writeStartObject().write("status", "OK");
+
+	String fillResultSetMetaDataStr = request.getParameter(HttpParameter.FILL_RESULT_SET_META_DATA);
+	boolean fillResultSetMetaData = Boolean.parseBoolean(fillResultSetMetaDataStr);
+
+	ResultSetWriter resultSetWriter = new ResultSetWriter(request, sqlOrder, gen, fillResultSetMetaData);
+	resultSetWriter.write(rs);
+
+	ServerSqlManager.writeLine(out);
+
+	gen.writeEnd(); // .write("status", "OK")
+	gen.flush();
+	gen.close();
+
+	// BLOB & CLOB file names, ROWID & ARRAY ids are valid only for the session
+	if (capturingOut != null && capturingOut.isComplete() && !resultSetWriter.isSessionBound()) {
+	    QueryResultCache.put(database, cacheKey, sqlOrder, capturingOut.toByteArray(), cacheGeneration);
 	}
     }
 
@@ -536,6 +710,7 @@ public class ServerStatement {
 	int rc = -1;
 
 	rc = statement.executeUpdate(sqlOrder);
+	QueryResultCache.evict(database, sqlOrder, connection);
 
 	StringWriter sw = new StringWriter();
 
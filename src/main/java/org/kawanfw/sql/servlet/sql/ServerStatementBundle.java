@@ -0,0 +1,333 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.kawanfw.sql.api.server.firewall.SqlFirewallManager;
+import org.kawanfw.sql.metadata.util.GsonWsUtil;
+import org.kawanfw.sql.servlet.HttpParameter;
+import org.kawanfw.sql.servlet.HttpServletRequestHolder;
+import org.kawanfw.sql.servlet.ServerSqlManager;
+import org.kawanfw.sql.servlet.connection.RollbackUtil;
+import org.kawanfw.sql.servlet.sql.dto.StatementsBundleDto;
+import org.kawanfw.sql.servlet.sql.json_return.JsonErrorReturn;
+import org.kawanfw.sql.util.FrameworkDebug;
+
+import com.google.gson.JsonParseException;
+
+/**
+ * Executes a bundle of execute_query and execute_update statements on the same
+ * Connection, with one request. <br>
+ * Each statement is executed by {@link ServerStatement} with its own request
+ * parameters, so that it goes through the SQL firewall managers and the update
+ * listeners as a single request. The responses are streamed in the
+ * {@code results} array, in the statements order. <br>
+ * If the bundle is atomic, the statements are run in one transaction: the
+ * execution stops at the first failed statement and the transaction is rolled
+ * back, else it is committed. <br>
+ * If the client has already started a transaction, it stays in charge of the
+ * commit or rollback: a failed statement is rolled back to a savepoint set
+ * before the statement, or before the bundle if it is atomic. If the driver
+ * does not support savepoints, a failed statement rolls back the whole client
+ * transaction and the execution stops.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class ServerStatementBundle {
+
+    private static boolean DEBUG = FrameworkDebug.isSet(ServerStatementBundle.class);
+
+    /** The request parameters a statement of the bundle may define */
+    private static final Set<String> STATEMENT_PARAMETERS = new HashSet<>(Arrays.asList(HttpParameter.ACTION,
+	    HttpParameter.SQL, HttpParameter.PREPARED_STATEMENT, HttpParameter.HTML_ENCODING, HttpParameter.MAX_ROWS,
+	    HttpParameter.COLUMN_TYPES, HttpParameter.FILL_RESULT_SET_META_DATA, HttpParameter.RESULT_SET_FORMAT,
+	    HttpParameter.REQUEST_ID));
+
+    /** The bundle request parameters a statement never inherits */
+    private static final List<String> RESET_PARAMETERS = Arrays.asList(HttpParameter.ACTION, HttpParameter.SQL,
+	    HttpParameter.PREPARED_STATEMENT, HttpParameter.STORED_PROCEDURE, HttpParameter.GZIP_RESULT,
+	    HttpParameter.CURSOR, HttpParameter.STATEMENTS_BUNDLE);
+
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private Set<SqlFirewallManager> sqlFirewallManagers;
+    private Connection connection;
+
+    /**
+     * Constructor
+     *
+     * @param request             the http request
+     * @param response            the http response
+     * @param sqlFirewallManagers the SQL firewall managers of the database
+     * @param connection          the JDBC Connection
+     */
+    public ServerStatementBundle(HttpServletRequest request, HttpServletResponse response,
+	    Set<SqlFirewallManager> sqlFirewallManagers, Connection connection) {
+	this.request = request;
+	this.response = response;
+	this.sqlFirewallManagers = sqlFirewallManagers;
+	this.connection = connection;
+    }
+
+    /**
+     * Executes the bundle and writes the responses of its statements.
+     *
+     * @param out the servlet output stream
+     * @throws SQLException if any SQLException occurs
+     * @throws IOException  if any IOException occurs
+     */
+    public void executeBundle(OutputStream out) throws SQLException, IOException {
+
+	boolean doGzip = Boolean.parseBoolean(request.getParameter(HttpParameter.GZIP_RESULT));
+	OutputStream outFinal = doGzip ? new GZIPOutputStream(out) : out;
+
+	try {
+	    StatementsBundleDto statementsBundleDto = null;
+	    try {
+		statementsBundleDto = buildStatementsBundle();
+	    } catch (IllegalArgumentException | JsonParseException e) {
+		JsonErrorReturn errorReturn = new JsonErrorReturn(response, HttpServletResponse.SC_BAD_REQUEST,
+			JsonErrorReturn.ERROR_ACEQL_ERROR, e.getMessage());
+		ServerSqlManager.writeLine(outFinal, errorReturn.build());
+		return;
+	    }
+
+	    executeStatements(outFinal, statementsBundleDto);
+	} finally {
+	    try {
+		outFinal.close();
+	    } catch (Exception e) {
+		// e.printStackTrace();
+	    }
+	}
+    }
+
+    /**
+     * Executes the statements, in one transaction if the bundle is atomic and
+     * the Connection is in auto-commit mode, or with savepoints if the client
+     * holds a transaction.
+     */
+    private void executeStatements(OutputStream out, StatementsBundleDto statementsBundleDto)
+	    throws SQLException, IOException {
+
+	boolean atomic = statementsBundleDto.isAtomic();
+	boolean autoCommitSwitched = false;
+	if (atomic && connection.getAutoCommit()) {
+	    connection.setAutoCommit(false);
+	    autoCommitSwitched = true;
+	}
+
+	// A failure must not roll back the transaction of the client
+	boolean clientTransaction = !autoCommitSwitched && !connection.getAutoCommit();
+	boolean useSavepoints = clientTransaction && connection.getMetaData().supportsSavepoints();
+	Savepoint bundleSavepoint = useSavepoints && atomic ? connection.setSavepoint() : null;
+
+	try {
+	    ServerSqlManager.writeLine(out, "{");
+	    ServerSqlManager.writeLine(out, "  \"status\":\"OK\",");
+	    ServerSqlManager.writeLine(out, "  \"results\":[");
+
+	    int executedCount = 0;
+	    boolean success = true;
+
+	    for (Map<String, String> statementParameters : statementsBundleDto.getStatements()) {
+		if (executedCount > 0) {
+		    ServerSqlManager.writeLine(out, ",");
+		}
+
+		Savepoint statementSavepoint = useSavepoints && !atomic ? connection.setSavepoint() : null;
+		boolean statementSuccess = executeStatement(out, statementParameters, !useSavepoints);
+		executedCount++;
+		success = success && statementSuccess;
+
+		if (statementSavepoint != null) {
+		    endSavepoint(statementSavepoint, statementSuccess);
+		}
+
+		// Without savepoint, the failure has rolled back the client transaction
+		if (!statementSuccess && (atomic || (clientTransaction && !useSavepoints))) {
+		    debug("Statement " + executedCount + " failed. Bundle is stopped.");
+		    break;
+		}
+	    }
+
+	    if (bundleSavepoint != null) {
+		endSavepoint(bundleSavepoint, success);
+	    }
+
+	    ServerSqlManager.writeLine(out, "  ],");
+
+	    if (autoCommitSwitched) {
+		if (success) {
+		    connection.commit();
+		} else {
+		    RollbackUtil.rollback(connection);
+		}
+		ServerSqlManager.writeLine(out, "  \"committed\":" + success + ",");
+	    }
+
+	    ServerSqlManager.writeLine(out, "  \"executed_count\":" + executedCount);
+	    ServerSqlManager.writeLine(out, "}");
+	} catch (SQLException | IOException | RuntimeException e) {
+	    if (autoCommitSwitched) {
+		RollbackUtil.rollback(connection);
+	    }
+	    throw e;
+	} finally {
+	    if (autoCommitSwitched) {
+		connection.setAutoCommit(true);
+		QueryResultCache.transactionEnded(connection);
+	    }
+	}
+    }
+
+    /**
+     * Releases a savepoint if the statements succeeded, else rolls back to it.
+     */
+    private void endSavepoint(Savepoint savepoint, boolean success) throws SQLException {
+	if (!success) {
+	    connection.rollback(savepoint);
+	    return;
+	}
+
+	try {
+	    connection.releaseSavepoint(savepoint);
+	} catch (SQLFeatureNotSupportedException e) {
+	    // Oracle: the savepoint is released at the end of the transaction
+	}
+    }
+
+    /**
+     * Executes a statement with {@link ServerStatement}.
+     *
+     * @param rollbackOnFailure if true, the transaction is rolled back when the
+     *                          statement fails
+     * @return true if the statement succeeded
+     */
+    private boolean executeStatement(OutputStream out, Map<String, String> statementParameters,
+	    boolean rollbackOnFailure) throws SQLException, IOException {
+
+	HttpServletRequestHolder requestHolder = new HttpServletRequestHolder(request);
+	for (String parameterName : RESET_PARAMETERS) {
+	    requestHolder.setParameter(parameterName, null);
+	}
+	for (Map.Entry<String, String> entry : statementParameters.entrySet()) {
+	    requestHolder.setParameter(entry.getKey(), entry.getValue());
+	}
+
+	// The error status is kept per statement: the bundle response is OK
+	StatementResponse statementResponse = new StatementResponse(response);
+
+	// ServerStatement closes its stream at end
+	ServerStatement serverStatement = new ServerStatement(requestHolder, statementResponse, sqlFirewallManagers,
+		connection);
+	serverStatement.setRollbackOnFailure(rollbackOnFailure);
+	serverStatement.executeQueryOrUpdate(new CloseShieldOutputStream(out));
+
+	return statementResponse.getStatus() == HttpServletResponse.SC_OK;
+    }
+
+    /**
+     * Parses and checks the statements_bundle request parameter.
+     */
+    private StatementsBundleDto buildStatementsBundle() {
+	String jsonString = request.getParameter(HttpParameter.STATEMENTS_BUNDLE);
+	if (jsonString == null || jsonString.isEmpty()) {
+	    throw new IllegalArgumentException("A '" + HttpParameter.STATEMENTS_BUNDLE + "' is required.");
+	}
+
+	StatementsBundleDto statementsBundleDto = GsonWsUtil.fromJson(jsonString, StatementsBundleDto.class);
+	if (statementsBundleDto == null || statementsBundleDto.getStatements() == null
+		|| statementsBundleDto.getStatements().isEmpty()) {
+	    throw new IllegalArgumentException("The bundle contains no statement.");
+	}
+
+	int index = 1;
+	for (Map<String, String> statementParameters : statementsBundleDto.getStatements()) {
+	    checkStatementParameters(index++, statementParameters);
+	}
+	return statementsBundleDto;
+    }
+
+    /**
+     * Checks that a statement is an execute_query or execute_update, and that it
+     * does not redefine the session parameters, such as the username.
+     */
+    private static void checkStatementParameters(int index, Map<String, String> statementParameters) {
+	if (statementParameters == null) {
+	    throw new IllegalArgumentException("Bundle statement " + index + " is null.");
+	}
+
+	String action = statementParameters.get(HttpParameter.ACTION);
+	if (!HttpParameter.EXECUTE_QUERY.equals(action) && !HttpParameter.EXECUTE_UPDATE.equals(action)) {
+	    throw new IllegalArgumentException("Bundle statement " + index + ": action must be "
+		    + HttpParameter.EXECUTE_QUERY + " or " + HttpParameter.EXECUTE_UPDATE + ".");
+	}
+
+	for (String parameterName : statementParameters.keySet()) {
+	    if (!STATEMENT_PARAMETERS.contains(parameterName) && !parameterName.startsWith(HttpParameter.PARAM_TYPE_)
+		    && !parameterName.startsWith(HttpParameter.PARAM_VALUE_)) {
+		throw new IllegalArgumentException(
+			"Bundle statement " + index + ": invalid parameter " + parameterName + ".");
+	    }
+	}
+    }
+
+    private static void debug(String s) {
+	if (DEBUG) {
+	    System.out.println(new Date() + " " + s);
+	}
+    }
+
+    /**
+     * Keeps the http status set by a statement, without changing the status of
+     * the bundle response.
+     */
+    private static class StatementResponse extends HttpServletResponseWrapper {
+
+	private int status = HttpServletResponse.SC_OK;
+
+	private StatementResponse(HttpServletResponse response) {
+	    super(response);
+	}
+
+	@Override
+	public void setStatus(int status) {
+	    this.status = status;
+	}
+
+	@Override
+	public int getStatus() {
+	    return status;
+	}
+    }
+
+}
@@ -14,7 +14,6 @@ package org.kawanfw.sql.servlet.sql;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.StringWriter;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -47,6 +46,7 @@ import org.kawanfw.sql.servlet.connection.RollbackUtil;
 import org.kawanfw.sql.servlet.injection.classes.InjectedClassesStore;
 import org.kawanfw.sql.servlet.injection.properties.ConfPropertiesStore;
 import org.kawanfw.sql.servlet.injection.properties.OperationalMode;
+import org.kawanfw.sql.servlet.sql.MoreResultsWriter.UpdateCountListener;
 import org.kawanfw.sql.servlet.sql.json_return.JsonErrorReturn;
 import org.kawanfw.sql.servlet.sql.json_return.JsonSecurityMessage;
 import org.kawanfw.sql.servlet.sql.json_return.JsonUtil;
@@ -190,6 +190,9 @@ public class ServerStatementRawExecute {
 	    checkFirewallGeneral(username, database, sqlOrder, ipAddress);
 	    statement = connection.createStatement();
 
+	    ServerSqlUtil.setQueryTimeout(username, database, statement, databaseConfigurator);
+	    RunningStatements.register(request, statement);
+
 	    debug("before executeQuery() / executeUpdate(sqlOrder)");
 	    doExecute(out, databaseConfigurator, username, database, sqlOrder, statement, ipAddress);
 
@@ -203,6 +206,8 @@ public class ServerStatementRawExecute {
 	    throw e;
 
 	} finally {
+	    RunningStatements.unregister(request);
+
 	    // NO! IOUtils.closeQuietly(out);
 
 	    if (statement != null) {
@@ -239,7 +244,7 @@ public class ServerStatementRawExecute {
 	    if (sqlOrder == null || sqlOrder.isEmpty()) {
 		throw new SQLException("A 'sql' statement is required.");
 	    }
-	    preparedStatement = connection.prepareStatement(sqlOrder);
+	    preparedStatement = PreparedStatementCache.prepareStatement(database, connection, sqlOrder);
 
 	    debug("before ServerPreparedStatementParameters");
 	    Map<Integer, AceQLParameter> inOutStatementParameters = ServerPreparedStatementParametersUtil
@@ -260,6 +265,9 @@ public class ServerStatementRawExecute {
 	    debug("before new SqlSecurityChecker()");
 	    String ipAddress = checkFirewallGeneral(username, database, sqlOrder, serverPreparedStatementParameters);
 
+	    ServerSqlUtil.setQueryTimeout(username, database, preparedStatement, databaseConfigurator);
+	    RunningStatements.register(request, preparedStatement);
+
 	    debug("before execute()");
 	    doExecutePreparedStatement(out, databaseConfigurator, username, database, sqlOrder, preparedStatement,
 		    serverPreparedStatementParameters, ipAddress);
@@ -274,14 +282,15 @@ public class ServerStatementRawExecute {
 	    LoggerUtil.log(request, e, message);
 	    throw e;
 	} finally {
+	    RunningStatements.unregister(request);
+
 	    // Close the ServerPreparedStatementParameters
 	    if (serverPreparedStatementParameters != null) {
 		serverPreparedStatementParameters.close();
 	    }
 
-	    if (preparedStatement != null) {
-		preparedStatement.close();
-	    }
+	    // Put back in cache if the cache is enabled, else close
+	    PreparedStatementCache.close(database, connection, sqlOrder, preparedStatement);
 
 	    // Clean all
 	    serverPreparedStatementParameters = null;
@@ -310,18 +319,13 @@ public class ServerStatementRawExecute {
 	// checkFirewallForAllowExecute(username, database, sqlOrder, ipAddress);
 	ServerSqlUtil.setMaxRowsToReturn(request, username, database, statement, databaseConfigurator);
 
-	boolean executeResult = statement.execute(sqlOrder);
-
-	if (!executeResult) {
-	    // if (statement.getUpdateCount() != -1) {
-	    // It is an update statement or prepared statement
-	    StringWriter sw = new StringWriter();
-	    JsonGeneratorFactory jf = JsonUtil.getJsonGeneratorFactory(JsonUtil.DEFAULT_PRETTY_PRINTING);
-	    JsonGenerator gen = jf.createGenerator(sw);
-
-	    gen.writeStartObject().write("status", "OK").write("row_count", statement.getUpdateCount()).writeEnd();
-	    gen.close();
+	boolean isResultSet = statement.execute(sqlOrder);
+	int updateCount = isResultSet ? -1 : statement.getUpdateCount();
 
+	// Called for the first update count and for each one of the more results
+	UpdateCountListener updateCountListener = count -> {
+	    // It is an update statement
+	    QueryResultCache.evict(database, sqlOrder, connection);
 	    List<Object> parameterValues = new ArrayList<>();
 
 	    StatementAnalyzer analyzer = new StatementAnalyzer(sqlOrder, parameterValues);
@@ -330,14 +334,13 @@ public class ServerStatementRawExecute {
 		updateListenersCaller.callUpdateListeners(username, database, sqlOrder, parameterValues, ipAddress,
 			false);
 	    }
+	};
 
-	    ServerSqlManager.write(out, sw.toString());
-	} else {
-	    // It is a query
-	    ResultSet rs = statement.getResultSet();
-	    dumpResultSet(rs, out, sqlOrder);
+	if (!isResultSet) {
+	    updateCountListener.updateCountRead(updateCount);
 	}
 
+	dumpResults(statement, isResultSet, updateCount, out, sqlOrder, updateCountListener);
     }
 
     /**
@@ -364,31 +367,24 @@ public class ServerStatementRawExecute {
 	// serverPreparedStatementParameters, ipAddress);
 	ServerSqlUtil.setMaxRowsToReturn(request, username, database, preparedStatement, databaseConfigurator);
 
-	@SuppressWarnings("unused")
-	boolean executeResult = preparedStatement.execute();
-
-	if (preparedStatement.getUpdateCount() != -1) {
-	    // It is an update statement or prepared statement
-	    StringWriter sw = new StringWriter();
-	    JsonGeneratorFactory jf = JsonUtil.getJsonGeneratorFactory(JsonUtil.DEFAULT_PRETTY_PRINTING);
-	    JsonGenerator gen = jf.createGenerator(sw);
-
-	    gen.writeStartObject().write("status", "OK").write("row_count", preparedStatement.getUpdateCount())
-		    .writeEnd();
-	    gen.close();
+	boolean isResultSet = preparedStatement.execute();
+	int updateCount = isResultSet ? -1 : preparedStatement.getUpdateCount();
 
+	// Called for the first update count and for each one of the more results
+	UpdateCountListener updateCountListener = count -> {
+	    // It is an update prepared statement
+	    QueryResultCache.evict(database, sqlOrder, connection);
 	    List<Object> parameterValues = serverPreparedStatementParameters.getParameterValues();
 
 	    UpdateListenersCaller updateListenersCaller = new UpdateListenersCaller(updateListeners, connection);
 	    updateListenersCaller.callUpdateListeners(username, database, sqlOrder, parameterValues, ipAddress, true);
+	};
 
-	    ServerSqlManager.write(out, sw.toString());
-	} else {
-	    // It is a query
-	    ResultSet rs = preparedStatement.getResultSet();
-	    dumpResultSet(rs, out, sqlOrder);
+	if (updateCount != -1) {
+	    updateCountListener.updateCountRead(updateCount);
 	}
 
+	dumpResults(preparedStatement, isResultSet, updateCount, out, sqlOrder, updateCountListener);
     }
 
     /**
@@ -443,20 +439,31 @@ public class ServerStatementRawExecute {
     }
 
     /**
-     * Dumps the Result Set on the servlet stream
+     * Dumps all the results of the execute() on the servlet stream: the first
+     * result set or update count, followed by the other results, if any, in a
+     * "more_results" array.
      * 
+     * @param statement   the executed statement
+     * @param isResultSet true if the first result is a result set
+     * @param updateCount the update count of the first result, if not a result
+     *                    set
      * @param out
      * @param sqlOrder
+     * @param updateCountListener called for each update count of the more
+     *                            results
      * @throws SQLException
      * @throws IOException
      */
-    private void dumpResultSet(ResultSet rs, OutputStream out, String sqlOrder) throws SQLException, IOException {
+    private void dumpResults(Statement statement, boolean isResultSet, int updateCount, OutputStream out,
+	    String sqlOrder, UpdateCountListener updateCountListener) throws SQLException, IOException {
 
+	ResultSet rs = isResultSet ? statement.getResultSet() : null;
 	try {
 
 	    debug("sqlorder: " + sqlOrder);
 
-	    JsonGeneratorFactory jf = JsonUtil.getJsonGeneratorFactory(doPrettyPrinting);
+	    boolean prettyPrinting = ServerStatementUtil.isPrettyPrinting(request, doPrettyPrinting);
+	    JsonGeneratorFactory jf = JsonUtil.getJsonGeneratorFactory(prettyPrinting);
 
 	    JsonGenerator gen = jf.createGenerator(out);
 	    gen.writeStartObject().write("status", "OK");
@@ -465,9 +472,18 @@ public class ServerStatementRawExecute {
 	    // Visualizer tool
 	    boolean fillResultSetMetaData = true;
 
-	    ResultSetWriter resultSetWriter = new ResultSetWriter(request, sqlOrder, gen, fillResultSetMetaData);
-	    resultSetWriter.write(rs);
+	    if (isResultSet) {
+		ResultSetWriter resultSetWriter = new ResultSetWriter(request, sqlOrder, gen, fillResultSetMetaData);
+		resultSetWriter.write(rs);
+	    } else {
+		gen.write("row_count", updateCount);
+	    }
+
+	    MoreResultsWriter moreResultsWriter = new MoreResultsWriter(request, sqlOrder, gen, fillResultSetMetaData);
+	    moreResultsWriter.setUpdateCountListener(updateCountListener);
+	    moreResultsWriter.write(statement);
 
+	    gen.flush();
 	    ServerSqlManager.writeLine(out);
 
 	    gen.writeEnd(); // .write("status", "OK")
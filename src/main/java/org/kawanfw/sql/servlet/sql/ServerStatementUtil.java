@@ -14,6 +14,7 @@ package org.kawanfw.sql.servlet.sql;
 import javax.servlet.http.HttpServletRequest;
 
 import org.kawanfw.sql.servlet.HttpParameter;
+import org.kawanfw.sql.servlet.injection.properties.ConfPropertiesStore;
 
 /**
  * Utility class for ServerStatement & ServerExecute.
@@ -34,4 +35,47 @@ public class ServerStatementUtil {
         return Boolean.parseBoolean(preparedStatement);
     }
 
+    /**
+     * Says if the client asked for the compact result set format: column names
+     * and types are sent once, rows are positional arrays and the JSON is never
+     * pretty printed. Default format is the historical "row_i" JSON format.
+     *
+     * @param request the http request
+     * @return true if the compact result set format is requested
+     */
+    public static boolean isCompactResultSetFormat(HttpServletRequest request) {
+        String resultSetFormat = request.getParameter(HttpParameter.RESULT_SET_FORMAT);
+        return HttpParameter.COMPACT.equals(resultSetFormat);
+    }
+
+    /**
+     * Says if the JSON response must be pretty printed. The compact result set
+     * format is never pretty printed.
+     *
+     * @param request               the http request
+     * @param defaultPrettyPrinting the pretty printing of the non compact formats
+     * @return true if the JSON response must be pretty printed
+     */
+    public static boolean isPrettyPrinting(HttpServletRequest request, boolean defaultPrettyPrinting) {
+        return defaultPrettyPrinting && !isCompactResultSetFormat(request);
+    }
+
+    /**
+     * Returns the maximum length of the BLOB/CLOB values to send inline in the
+     * result set. Inlining must be asked by the client with
+     * {@code inline_lobs=true} and the limit is defined per database with the
+     * {@code lobInlineMaxLength} property.
+     *
+     * @param request the http request
+     * @return the maximum length in bytes for BLOB and in chars for CLOB. 0 if
+     *         values must not be inlined.
+     */
+    public static int getLobInlineMaxLength(HttpServletRequest request) {
+        if (!Boolean.parseBoolean(request.getParameter(HttpParameter.INLINE_LOBS))) {
+            return 0;
+        }
+        String database = request.getParameter(HttpParameter.DATABASE);
+        return ConfPropertiesStore.get().getLobInlineMaxLength(database);
+    }
+
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+import java.util.Objects;
+
+import org.kawanfw.sql.api.util.SqlUtil;
+import org.kawanfw.sql.servlet.injection.properties.ConfPropertiesStore;
+import org.kawanfw.sql.util.FrameworkDebug;
+
+/**
+ * Prepares a SELECT statement so that its result set is streamed from the
+ * database instead of being fully loaded in memory by the JDBC driver. <br>
+ * The fetch size is the {@code streamingFetchSize} of the database. Streaming
+ * requires a forward-only and read-only result set. PostgreSQL streams only
+ * outside auto-commit: the Connection is switched off auto-commit by
+ * {@link #begin(Statement)} and restored by {@link #end(boolean)}. <br>
+ * Nothing is done if {@code streamingFetchSize} is 0.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class StreamingFetch {
+
+    private static boolean DEBUG = FrameworkDebug.isSet(StreamingFetch.class);
+
+    private Connection connection;
+    private int fetchSize;
+
+    /** Says if the auto-commit mode must be restored at end */
+    private boolean autoCommitSwitched = false;
+
+    /**
+     * Constructor
+     *
+     * @param connection the JDBC Connection
+     * @param database   the database name
+     */
+    public StreamingFetch(Connection connection, String database) {
+	this.connection = Objects.requireNonNull(connection, "connection cannot be null!");
+	Objects.requireNonNull(database, "database cannot be null!");
+	this.fetchSize = ConfPropertiesStore.get().getStreamingFetchSize(database);
+    }
+
+    /**
+     * Sets the fetch size of the statement and switches the Connection off
+     * auto-commit if the driver requires it. Must be called after the maximum
+     * rows to return are set and before the query is executed.
+     *
+     * @param statement the statement that will execute the SELECT
+     * @throws SQLException if any SQLException occurs
+     */
+    public void begin(Statement statement) throws SQLException {
+	if (fetchSize <= 0) {
+	    return;
+	}
+
+	if (statement.getResultSetType() != ResultSet.TYPE_FORWARD_ONLY
+		|| statement.getResultSetConcurrency() != ResultSet.CONCUR_READ_ONLY) {
+	    debug("Statement is not forward-only & read-only. No streaming.");
+	    return;
+	}
+
+	// A fetch size above the max rows is rejected by some drivers
+	int maxRows = statement.getMaxRows();
+	statement.setFetchSize(maxRows > 0 ? Math.min(fetchSize, maxRows) : fetchSize);
+
+	if (connection.getAutoCommit() && new SqlUtil(connection).isPostgreSQL()) {
+	    debug("Switching Connection off auto-commit for streaming.");
+	    connection.setAutoCommit(false);
+	    autoCommitSwitched = true;
+	}
+    }
+
+    /**
+     * Ends the streaming: commits or rolls back the transaction opened by
+     * {@link #begin(Statement)}, and restores the auto-commit mode. Must be
+     * called after the result set is closed.
+     *
+     * @param success if true, the transaction is committed, else it is rolled
+     *                back.
+     * @throws SQLException if any SQLException occurs
+     */
+    public void end(boolean success) throws SQLException {
+	if (!autoCommitSwitched) {
+	    return;
+	}
+
+	autoCommitSwitched = false;
+
+	try {
+	    if (success) {
+		connection.commit();
+	    } else {
+		rollbackQuietly();
+	    }
+	} finally {
+	    connection.setAutoCommit(true);
+	}
+    }
+
+    private void rollbackQuietly() {
+	try {
+	    connection.rollback();
+	} catch (SQLException e) {
+	    debug("rollback failed: " + e.getMessage());
+	}
+    }
+
+    private void debug(String s) {
+	if (DEBUG) {
+	    System.out.println(new Date() + " " + s);
+	}
+    }
+
+}
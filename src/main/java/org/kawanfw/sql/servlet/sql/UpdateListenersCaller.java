@@ -57,8 +57,18 @@ public class UpdateListenersCaller {
      */
     public void callUpdateListeners(String username, String database, String sqlOrder, List<Object> parameterValues,
 	    String ipAddress, boolean isPreparedStatement) throws SQLException, IOException {
+	if (updateListeners == null || updateListeners.isEmpty()) {
+	    return;
+	}
+
 	SqlEvent sqlEvent = SqlEventWrapper.sqlEventBuild(username, database, ipAddress, sqlOrder, isPreparedStatement,
 		parameterValues, false);
+
+	// Run in background if asyncEventsQueueSize is set for the database
+	if (AsyncSqlEventPipeline.submitUpdate(sqlEvent)) {
+	    return;
+	}
+
 	for (UpdateListener updateListener : updateListeners) {
 	    updateListener.updateActionPerformed(sqlEvent, connection);
 	}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql.batch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.kawanfw.sql.api.server.listener.UpdateListener;
+import org.kawanfw.sql.servlet.sql.QueryResultCache;
+import org.kawanfw.sql.servlet.sql.UpdateListenersCaller;
+
+/**
+ * Calls the {@code UpdateListener} instances for each executed chunk of a
+ * batch, on the request thread. The listeners are run in background only if
+ * the {@code asyncEventsQueueSize} property is set, as for the other
+ * updates. <br>
+ * The chunks are treated in their execution order, and their SQL orders and
+ * parameter values are released once the listeners are called. <br>
+ * When the chunks run in one transaction, the listeners are called once it is
+ * committed: the parameter values of the prepared statement rows are kept in
+ * a temporary file meanwhile, and the SQL orders of a statement batch are read
+ * again from the batch file. <br>
+ * The {@link QueryResultCache} responses of the updated tables are evicted
+ * before the next chunk is executed.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class BatchUpdateListenersCaller {
+
+    private Set<UpdateListener> updateListeners;
+    private Connection connection;
+
+    private String username;
+    private String database;
+    private String ipAddress;
+
+    /** The parameter values of the rows not yet committed. Created on first use */
+    private File keptRowsFile = null;
+    private ObjectOutputStream keptRowsOutput = null;
+
+    /**
+     * Constructor
+     *
+     * @param updateListeners the UpdateListener to call
+     * @param connection      the JDBC Connection
+     * @param username        the client username
+     * @param database        the database name
+     * @param ipAddress       the client IP address
+     */
+    public BatchUpdateListenersCaller(Set<UpdateListener> updateListeners, Connection connection, String username,
+	    String database, String ipAddress) {
+	this.updateListeners = updateListeners;
+	this.connection = connection;
+	this.username = username;
+	this.database = database;
+	this.ipAddress = ipAddress;
+    }
+
+    /**
+     * Says if there are UpdateListener to call. If not, the SQL orders and
+     * parameter values don't need to be kept.
+     *
+     * @return true if there are UpdateListener to call
+     */
+    public boolean isActive() {
+	return updateListeners != null && !updateListeners.isEmpty();
+    }
+
+    /**
+     * Says if the SQL orders of a statement batch must be kept, for the
+     * UpdateListener or for the {@link QueryResultCache} evictions.
+     *
+     * @return true if the SQL orders must be kept
+     */
+    public boolean isSqlOrdersNeeded() {
+	return isActive() || QueryResultCache.isEnabled(database);
+    }
+
+    /**
+     * Calls the listeners for a committed chunk of a prepared statement batch.
+     *
+     * @param sqlOrder       the prepared statement SQL order
+     * @param parametersList the parameter values of each row of the chunk
+     * @throws SQLException if the SQL order parsing fails
+     * @throws IOException  if any IOException occurs
+     */
+    public void call(String sqlOrder, List<List<Object>> parametersList) throws SQLException, IOException {
+	QueryResultCache.evict(database, sqlOrder, connection);
+
+	if (!isActive()) {
+	    return;
+	}
+
+	for (List<Object> parameterValues : parametersList) {
+	    call(sqlOrder, parameterValues, true);
+	}
+    }
+
+    /**
+     * Calls the listeners for a committed chunk of a statement batch.
+     *
+     * @param sqlOrders the SQL orders of the chunk
+     * @throws SQLException if a SQL order parsing fails
+     * @throws IOException  if any IOException occurs
+     */
+    public void call(List<String> sqlOrders) throws SQLException, IOException {
+	for (String sqlOrder : sqlOrders) {
+	    QueryResultCache.evict(database, sqlOrder, connection);
+	}
+
+	if (!isActive()) {
+	    return;
+	}
+
+	List<Object> parameterValues = new ArrayList<>();
+	for (String sqlOrder : sqlOrders) {
+	    call(sqlOrder, parameterValues, false);
+	}
+    }
+
+    /**
+     * Evicts the responses of a chunk of a prepared statement batch not yet
+     * committed, and writes the parameter values of its rows in a temporary
+     * file, until {@link #callKept(String)}.
+     *
+     * @param sqlOrder       the prepared statement SQL order
+     * @param parametersList the parameter values of each row of the chunk
+     * @throws SQLException if the SQL order parsing fails
+     * @throws IOException  if the temporary file can't be written
+     */
+    public void keep(String sqlOrder, List<List<Object>> parametersList) throws SQLException, IOException {
+	QueryResultCache.evict(database, sqlOrder, connection);
+
+	if (!isActive() || parametersList.isEmpty()) {
+	    return;
+	}
+
+	if (keptRowsOutput == null) {
+	    keptRowsFile = File.createTempFile("aceql-batch-listeners-", ".ser");
+	    keptRowsOutput = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(keptRowsFile)));
+	}
+
+	for (List<Object> parameterValues : parametersList) {
+	    keptRowsOutput.writeObject(new ArrayList<>(parameterValues));
+	    // The stream must not keep a reference to the written rows
+	    keptRowsOutput.reset();
+	}
+    }
+
+    /**
+     * Calls the listeners for the rows kept by
+     * {@link #keep(String, List)}, once the chunk transaction is committed.
+     *
+     * @param sqlOrder the prepared statement SQL order
+     * @throws SQLException if any SQLException occurs
+     * @throws IOException  if the temporary file can't be read
+     */
+    @SuppressWarnings("unchecked")
+    public void callKept(String sqlOrder) throws SQLException, IOException {
+	if (keptRowsOutput == null) {
+	    return;
+	}
+
+	keptRowsOutput.close();
+	keptRowsOutput = null;
+
+	try (ObjectInputStream input = new ObjectInputStream(
+		new BufferedInputStream(new FileInputStream(keptRowsFile)));) {
+	    while (true) {
+		List<Object> parameterValues;
+		try {
+		    parameterValues = (List<Object>) input.readObject();
+		} catch (EOFException e) {
+		    break;
+		} catch (ClassNotFoundException e) {
+		    throw new IOException(e);
+		}
+		call(sqlOrder, parameterValues, true);
+	    }
+	}
+    }
+
+    /**
+     * Calls the listeners for the SQL orders of a statement batch file, once
+     * the chunk transaction is committed. The responses have been evicted with
+     * each chunk.
+     *
+     * @param batchFile the file of the batch, with one SQL order per line
+     * @throws SQLException if any SQLException occurs
+     * @throws IOException  if the file can't be read
+     */
+    public void callKept(File batchFile) throws SQLException, IOException {
+	if (!isActive()) {
+	    return;
+	}
+
+	List<Object> parameterValues = new ArrayList<>();
+	try (BufferedReader bufferedReader = new BufferedReader(new FileReader(batchFile));) {
+	    String line = null;
+	    while ((line = bufferedReader.readLine()) != null) {
+		call(line.trim(), parameterValues, false);
+	    }
+	}
+    }
+
+    /**
+     * Evicts the responses of a chunk of a statement batch not yet committed.
+     *
+     * @param sqlOrders the SQL orders of the chunk
+     * @throws SQLException if a SQL order parsing fails
+     */
+    public void evict(List<String> sqlOrders) throws SQLException {
+	for (String sqlOrder : sqlOrders) {
+	    QueryResultCache.evict(database, sqlOrder, connection);
+	}
+    }
+
+    /**
+     * Deletes the temporary file of the kept rows, if any.
+     */
+    public void close() {
+	if (keptRowsOutput != null) {
+	    try {
+		keptRowsOutput.close();
+	    } catch (IOException e) {
+		e.printStackTrace();
+	    }
+	    keptRowsOutput = null;
+	}
+
+	if (keptRowsFile != null) {
+	    keptRowsFile.delete();
+	    keptRowsFile = null;
+	}
+    }
+
+    private void call(String sqlOrder, List<Object> parameterValues, boolean isPreparedStatement)
+	    throws SQLException, IOException {
+	UpdateListenersCaller updateListenersCaller = new UpdateListenersCaller(updateListeners, connection);
+	updateListenersCaller.callUpdateListeners(username, database, sqlOrder, parameterValues, ipAddress,
+		isPreparedStatement);
+    }
+
+}
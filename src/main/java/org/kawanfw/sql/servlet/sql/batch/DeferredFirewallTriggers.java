@@ -0,0 +1,68 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql.batch;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.kawanfw.sql.api.server.SqlEvent;
+import org.kawanfw.sql.api.server.firewall.SqlFirewallManager;
+import org.kawanfw.sql.api.util.firewall.SqlFirewallTriggerWrapper;
+
+/**
+ * The SQL Firewall Triggers of the statements refused during a batch whose
+ * chunks run in one transaction. <br>
+ * The triggers are run once the transaction has ended and the Connection is
+ * back in auto-commit mode, so that the inserts of
+ * {@code JdbcLoggerSqlFirewallTrigger} and {@code BanUserSqlFirewallTrigger}
+ * are not rolled back with the chunks.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+class DeferredFirewallTriggers {
+
+    private final List<SqlEvent> sqlEvents = new ArrayList<>();
+    private final List<SqlFirewallManager> sqlFirewallManagers = new ArrayList<>();
+
+    /**
+     * Keeps a refused statement until {@link #run(Connection)}.
+     *
+     * @param sqlEvent           the refused SQL event
+     * @param sqlFirewallManager the instance that refused the SQL event
+     */
+    void add(SqlEvent sqlEvent, SqlFirewallManager sqlFirewallManager) {
+	sqlEvents.add(sqlEvent);
+	sqlFirewallManagers.add(sqlFirewallManager);
+    }
+
+    /**
+     * Runs the triggers of the refused statements. Called in a finally block:
+     * a trigger failure is only reported, so that it does not hide the batch
+     * failure.
+     *
+     * @param connection the JDBC Connection, in auto-commit mode
+     */
+    void run(Connection connection) {
+	for (int i = 0; i < sqlEvents.size(); i++) {
+	    try {
+		SqlFirewallTriggerWrapper.runIfStatementRefused(sqlEvents.get(i), sqlFirewallManagers.get(i),
+			connection);
+	    } catch (Exception e) {
+		e.printStackTrace();
+	    }
+	}
+	sqlEvents.clear();
+	sqlFirewallManagers.clear();
+    }
+}
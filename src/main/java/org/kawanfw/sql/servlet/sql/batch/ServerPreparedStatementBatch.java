@@ -22,6 +22,7 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -46,9 +47,12 @@ import org.kawanfw.sql.servlet.injection.properties.ConfPropertiesStore;
 import org.kawanfw.sql.servlet.injection.properties.OperationalMode;
 import org.kawanfw.sql.servlet.sql.AceQLParameter;
 import org.kawanfw.sql.servlet.sql.LoggerUtil;
+import org.kawanfw.sql.servlet.sql.PreparedStatementCache;
+import org.kawanfw.sql.servlet.sql.QueryResultCache;
+import org.kawanfw.sql.servlet.sql.RunningStatements;
+import org.kawanfw.sql.servlet.sql.ServerSqlUtil;
 import org.kawanfw.sql.servlet.sql.ServerStatementUtil;
 import org.kawanfw.sql.servlet.sql.StatementFailure;
-import org.kawanfw.sql.servlet.sql.UpdateListenersCaller;
 import org.kawanfw.sql.servlet.sql.dto.PrepStatementParamsHolder;
 import org.kawanfw.sql.servlet.sql.dto.UpdateCountsArrayDto;
 import org.kawanfw.sql.servlet.sql.json_return.JsonErrorReturn;
@@ -85,6 +89,9 @@ public class ServerPreparedStatementBatch {
 
     private Set<UpdateListener> updateListeners;
 
+    /** The triggers run after the chunk transaction. null if not in a chunk transaction */
+    private DeferredFirewallTriggers deferredFirewallTriggers = null;
+
     /**
      * Default Constructor
      *
@@ -181,7 +188,23 @@ public class ServerPreparedStatementBatch {
 	PreparedStatement preparedStatement = null;
 	File blobFile = null;
 
+	String ipAddress = IpUtil.getRemoteAddr(request);
+	BatchUpdateListenersCaller batchUpdateListenersCaller = new BatchUpdateListenersCaller(updateListeners,
+		connection, username, database, ipAddress);
+
+	// Rows are sent to the database per chunk. 0 means one chunk for all rows
+	int batchChunkSize = ConfPropertiesStore.get().getBatchChunkSize(database);
+
+	// The chunks of an auto commit Connection are run in one transaction, so
+	// that a refused or invalid row does not leave the previous chunks committed
+	boolean chunkTransaction = batchChunkSize > 0 && connection.getAutoCommit();
+	boolean committed = false;
+
 	try {
+	    if (chunkTransaction) {
+		connection.setAutoCommit(false);
+		deferredFirewallTriggers = new DeferredFirewallTriggers();
+	    }
 
 	    if (blobId == null || blobId.isEmpty()) {
 		throw new SQLException("blob_id cannnot be null!.");
@@ -195,10 +218,19 @@ public class ServerPreparedStatementBatch {
 			"Cannot find file of batch SQL prepared statement parameters for Id: " + blobId);
 	    }
 
-	    preparedStatement = connection.prepareStatement(sqlOrder);
+	    preparedStatement = PreparedStatementCache.prepareStatement(database, connection, sqlOrder);
+	    ServerSqlUtil.setQueryTimeout(username, database, preparedStatement, databaseConfigurator);
+	    RunningStatements.register(request, preparedStatement);
 	    debug("before PreparedStatement.addBatch() loop & executeBatch() ");
 
-	    // Store in List the SqlOrder & parameterValues
+	    // All managers check the first row, then only the ones that analyze parameter values
+	    Set<SqlFirewallManager> perRowSqlFirewallManagers = getPerRowSqlFirewallManagers();
+	    boolean isFirstRow = true;
+
+	    int chunkRows = 0;
+	    UpdateCountsAccumulator updateCountsAccumulator = new UpdateCountsAccumulator();
+
+	    // Store in List the parameterValues of the chunk for the update listeners
 	    List<List<Object>> parametersList = new ArrayList<>();
 
 	    try (BufferedReader bufferedReader = new BufferedReader(new FileReader(blobFile));) {
@@ -229,19 +261,42 @@ public class ServerPreparedStatementBatch {
 		    }
 
 		    debug("before new SqlSecurityChecker()");
-		    checkFirewallGeneral(username, database, sqlOrder, serverPreparedStatementParameters);
+		    if (isFirstRow) {
+			checkFirewallGeneral(username, database, sqlOrder, serverPreparedStatementParameters,
+				sqlFirewallManagers);
+			isFirstRow = false;
+		    } else if (!perRowSqlFirewallManagers.isEmpty()) {
+			checkFirewallGeneral(username, database, sqlOrder, serverPreparedStatementParameters,
+				perRowSqlFirewallManagers);
+		    }
 		    preparedStatement.addBatch();
 
-		    parametersList.add(serverPreparedStatementParameters.getParameterValues());
+		    if (batchUpdateListenersCaller.isActive()) {
+			parametersList.add(serverPreparedStatementParameters.getParameterValues());
+		    }
+
+		    if (++chunkRows == batchChunkSize) {
+			executeChunk(preparedStatement, updateCountsAccumulator);
+			callOrKeepUpdateListeners(chunkTransaction, sqlOrder, parametersList,
+				batchUpdateListenersCaller);
+			parametersList = new ArrayList<>();
+			chunkRows = 0;
+		    }
 		}
 	    }
 
-	    int[] rc = preparedStatement.executeBatch();
+	    if (chunkRows > 0 || batchChunkSize == 0) {
+		executeChunk(preparedStatement, updateCountsAccumulator);
+		callOrKeepUpdateListeners(chunkTransaction, sqlOrder, parametersList, batchUpdateListenersCaller);
+	    }
 
-	    String ipAddress = IpUtil.getRemoteAddr(request);
-	    callUpdateListenersInThread(sqlOrder, parametersList, username, database, ipAddress);
+	    if (chunkTransaction) {
+		connection.commit();
+		committed = true;
+		batchUpdateListenersCaller.callKept(sqlOrder);
+	    }
 
-	    UpdateCountsArrayDto updateCountsArrayDto = new UpdateCountsArrayDto(rc);
+	    UpdateCountsArrayDto updateCountsArrayDto = new UpdateCountsArrayDto(updateCountsAccumulator.toArray());
 	    String jsonString = GsonWsUtil.getJSonString(updateCountsArrayDto);
 	    ServerSqlManager.writeLine(out, jsonString);
 
@@ -253,12 +308,77 @@ public class ServerPreparedStatementBatch {
 	    throw e;
 
 	} finally {
+	    RunningStatements.unregister(request);
+
+	    // Any failure, including a refused or invalid row, cancels all the chunks
+	    if (chunkTransaction) {
+		if (!committed) {
+		    RollbackUtil.rollback(connection);
+		}
+		connection.setAutoCommit(true);
+		QueryResultCache.transactionEnded(connection);
+
+		// Their inserts must not be rolled back with the chunks
+		deferredFirewallTriggers.run(connection);
+		deferredFirewallTriggers = null;
+	    }
+
 	    // NO! IOUtils.closeQuietly(out);
+	    batchUpdateListenersCaller.close();
+
+	    // Put back in cache if the cache is enabled, else close
+	    PreparedStatementCache.close(database, connection, sqlOrder, preparedStatement);
+	}
+    }
+
+    /**
+     * Sends the added rows to the database.
+     * 
+     * @param preparedStatement       the prepared statement with added rows
+     * @param updateCountsAccumulator where to store the update counts
+     * @throws SQLException
+     */
+    private void executeChunk(PreparedStatement preparedStatement, UpdateCountsAccumulator updateCountsAccumulator)
+	    throws SQLException {
+	debug("before preparedStatement.executeBatch()");
+	int[] rc = preparedStatement.executeBatch();
+	updateCountsAccumulator.add(rc);
+    }
+
+    /**
+     * Calls the update listeners for an executed chunk, or keeps its rows in a
+     * temporary file until the chunk transaction is committed.
+     * 
+     * @param chunkTransaction           if true, the chunks are not yet committed
+     * @param sqlOrder                   the SQL order
+     * @param parametersList             the parameter values of the chunk rows
+     * @param batchUpdateListenersCaller the update listeners caller
+     * @throws SQLException
+     * @throws IOException
+     */
+    private void callOrKeepUpdateListeners(boolean chunkTransaction, String sqlOrder,
+	    List<List<Object>> parametersList, BatchUpdateListenersCaller batchUpdateListenersCaller)
+	    throws SQLException, IOException {
+	if (chunkTransaction) {
+	    batchUpdateListenersCaller.keep(sqlOrder, parametersList);
+	} else {
+	    batchUpdateListenersCaller.call(sqlOrder, parametersList);
+	}
+    }
 
-	    if (preparedStatement != null) {
-		preparedStatement.close();
+    /**
+     * Returns the SQL Firewall Managers that must analyze each row of the batch.
+     * 
+     * @return the SQL Firewall Managers that analyze the parameter values
+     */
+    private Set<SqlFirewallManager> getPerRowSqlFirewallManagers() {
+	Set<SqlFirewallManager> perRowSqlFirewallManagers = new LinkedHashSet<>();
+	for (SqlFirewallManager sqlFirewallManager : sqlFirewallManagers) {
+	    if (sqlFirewallManager.analyzeParameterValuesPerBatchRow()) {
+		perRowSqlFirewallManagers.add(sqlFirewallManager);
 	    }
 	}
+	return perRowSqlFirewallManagers;
     }
 
     /**
@@ -268,13 +388,14 @@ public class ServerPreparedStatementBatch {
      * @param database
      * @param sqlOrder
      * @param serverPreparedStatementParameters
+     * @param sqlFirewallManagersToCall the SQL Firewall Managers to call
      * @throws IOException
      * @throws SQLException
      * @throws SecurityException
      */
     private void checkFirewallGeneral(String username, String database, String sqlOrder,
-	    ServerPreparedStatementParameters serverPreparedStatementParameters)
-	    throws IOException, SQLException, SecurityException {
+	    ServerPreparedStatementParameters serverPreparedStatementParameters,
+	    Set<SqlFirewallManager> sqlFirewallManagersToCall) throws IOException, SQLException, SecurityException {
 	String ipAddress = IpUtil.getRemoteAddr(request);
 
 	OperationalMode operationalMode = ConfPropertiesStore.get().getOperationalModeMap(database);
@@ -289,7 +410,7 @@ public class ServerPreparedStatementBatch {
 	}
 
 	boolean isAllowedAfterAnalysis = true;
-	for (SqlFirewallManager sqlFirewallManager : sqlFirewallManagers) {
+	for (SqlFirewallManager sqlFirewallManager : sqlFirewallManagersToCall) {
 
 	    SqlEvent sqlEvent = SqlEventWrapper.sqlEventBuild(username, database, ipAddress, sqlOrder,
 		    ServerStatementUtil.isPreparedStatement(request),
@@ -297,7 +418,11 @@ public class ServerPreparedStatementBatch {
 
 	    isAllowedAfterAnalysis = sqlFirewallManager.allowSqlRunAfterAnalysis(sqlEvent, connection);
 	    if (!isAllowedAfterAnalysis) {
-		SqlFirewallTriggerWrapper.runIfStatementRefused(sqlEvent, sqlFirewallManager, connection);
+		if (deferredFirewallTriggers != null) {
+		    deferredFirewallTriggers.add(sqlEvent, sqlFirewallManager);
+		} else {
+		    SqlFirewallTriggerWrapper.runIfStatementRefused(sqlEvent, sqlFirewallManager, connection);
+		}
 		break;
 	    }
 	}
@@ -310,31 +435,6 @@ public class ServerPreparedStatementBatch {
 	}
     }
 
-    private void callUpdateListenersInThread(String sqlOrder, List<List<Object>> parametersList, String username,
-	    String database, String ipAddress) {
-
-	Thread t = new Thread() {
-	    @Override
-	    public void run() {
-		try {
-
-		    for (List<Object> parameterValues : parametersList) {
-
-			UpdateListenersCaller updateListenersCaller = new UpdateListenersCaller(updateListeners,
-				connection);
-
-			updateListenersCaller.callUpdateListeners(username, database, sqlOrder, parameterValues,
-				ipAddress, true);
-
-		    }
-		} catch (Exception e) {
-		    e.printStackTrace();
-		}
-	    }
-	};
-	t.start();
-    }
-
     /**
      * Debug function
      * 
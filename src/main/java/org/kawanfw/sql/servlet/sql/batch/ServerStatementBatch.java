@@ -45,9 +45,11 @@ import org.kawanfw.sql.servlet.injection.classes.InjectedClassesStore;
 import org.kawanfw.sql.servlet.injection.properties.ConfPropertiesStore;
 import org.kawanfw.sql.servlet.injection.properties.OperationalMode;
 import org.kawanfw.sql.servlet.sql.LoggerUtil;
+import org.kawanfw.sql.servlet.sql.QueryResultCache;
+import org.kawanfw.sql.servlet.sql.RunningStatements;
+import org.kawanfw.sql.servlet.sql.ServerSqlUtil;
 import org.kawanfw.sql.servlet.sql.ServerStatementUtil;
 import org.kawanfw.sql.servlet.sql.StatementFailure;
-import org.kawanfw.sql.servlet.sql.UpdateListenersCaller;
 import org.kawanfw.sql.servlet.sql.dto.UpdateCountsArrayDto;
 import org.kawanfw.sql.servlet.sql.json_return.JsonErrorReturn;
 import org.kawanfw.sql.servlet.sql.json_return.JsonSecurityMessage;
@@ -82,6 +84,9 @@ public class ServerStatementBatch {
 
     private Set<UpdateListener> updateListeners;
 
+    /** The triggers run after the chunk transaction. null if not in a chunk transaction */
+    private DeferredFirewallTriggers deferredFirewallTriggers = null;
+
     /**
      * Default Constructor
      *
@@ -171,8 +176,21 @@ public class ServerStatementBatch {
 
 	Statement statement = null;
 	File blobFile = null;
+	BatchUpdateListenersCaller batchUpdateListenersCaller = null;
+
+	// Statements are sent to the database per chunk. 0 means one chunk for all statements
+	int batchChunkSize = ConfPropertiesStore.get().getBatchChunkSize(database);
+
+	// The chunks of an auto commit Connection are run in one transaction, so
+	// that a refused statement does not leave the previous chunks committed
+	boolean chunkTransaction = batchChunkSize > 0 && connection.getAutoCommit();
+	boolean committed = false;
 
 	try {
+	    if (chunkTransaction) {
+		connection.setAutoCommit(false);
+		deferredFirewallTriggers = new DeferredFirewallTriggers();
+	    }
 
 	    if (blobId == null || blobId.isEmpty()) {
 		throw new SQLException("blobId cannnot be null!.");
@@ -187,8 +205,18 @@ public class ServerStatementBatch {
 
 	    // Throws a SQL exception if the order is not authorized:
 	    String ipAddress = IpUtil.getRemoteAddr(request);
+	    batchUpdateListenersCaller = new BatchUpdateListenersCaller(updateListeners, connection, username,
+		    database, ipAddress);
+
+	    int chunkRows = 0;
+	    UpdateCountsAccumulator updateCountsAccumulator = new UpdateCountsAccumulator();
+
+	    // Store in List the SQL orders of the chunk for the update listeners
+	    List<String> sqlOrders = new ArrayList<>();
 
 	    statement = connection.createStatement();
+	    ServerSqlUtil.setQueryTimeout(username, database, statement, databaseConfigurator);
+	    RunningStatements.register(request, statement);
 	    debug("before statement.addBatch() loop");
 	    
 	    try (BufferedReader bufferedReader = new BufferedReader(new FileReader(blobFile));) {
@@ -202,15 +230,33 @@ public class ServerStatementBatch {
 		    checkFirewallGeneral(username, database, sql, ipAddress);
 		    //checkFirewallForAllowExecute(username, database, sql, ipAddress);
 		    statement.addBatch(sql);
+
+		    if (batchUpdateListenersCaller.isSqlOrdersNeeded()) {
+			sqlOrders.add(line.trim());
+		    }
+
+		    if (++chunkRows == batchChunkSize) {
+			executeChunk(statement, updateCountsAccumulator);
+			callOrEvict(chunkTransaction, sqlOrders, batchUpdateListenersCaller);
+			sqlOrders = new ArrayList<>();
+			chunkRows = 0;
+		    }
 		}
 	    }
 
-	    debug("before statement.executeBatch()");
-	    int[] rc = statement.executeBatch();
+	    if (chunkRows > 0 || batchChunkSize == 0) {
+		executeChunk(statement, updateCountsAccumulator);
+		callOrEvict(chunkTransaction, sqlOrders, batchUpdateListenersCaller);
+	    }
 
-	    callUpdateListenersInThread(blobFile, username, database, ipAddress);
+	    if (chunkTransaction) {
+		connection.commit();
+		committed = true;
+		// The SQL orders are read again from the file instead of being kept
+		batchUpdateListenersCaller.callKept(blobFile);
+	    }
 
-	    UpdateCountsArrayDto updateCountsArrayDto = new UpdateCountsArrayDto(rc);
+	    UpdateCountsArrayDto updateCountsArrayDto = new UpdateCountsArrayDto(updateCountsAccumulator.toArray());
 	    String jsonString = GsonWsUtil.getJSonString(updateCountsArrayDto);
 	    ServerSqlManager.writeLine(out, jsonString);
 
@@ -223,7 +269,25 @@ public class ServerStatementBatch {
 	    throw e;
 
 	} finally {
+	    RunningStatements.unregister(request);
+
+	    // Any failure, including a refused statement, cancels all the chunks
+	    if (chunkTransaction) {
+		if (!committed) {
+		    RollbackUtil.rollback(connection);
+		}
+		connection.setAutoCommit(true);
+		QueryResultCache.transactionEnded(connection);
+
+		// Their inserts must not be rolled back with the chunks
+		deferredFirewallTriggers.run(connection);
+		deferredFirewallTriggers = null;
+	    }
+
 	    // NO! IOUtils.closeQuietly(out);
+	    if (batchUpdateListenersCaller != null) {
+		batchUpdateListenersCaller.close();
+	    }
 
 	    if (statement != null) {
 		statement.close();
@@ -235,32 +299,38 @@ public class ServerStatementBatch {
 	}
     }
 
-    private void callUpdateListenersInThread(File blobFile, String username, String database, String ipAddress) {
-
-	Thread t = new Thread() {
-	    @Override
-	    public void run() {
-		try {
-
-		    List<Object> parameterValues = new ArrayList<>();
-
-		    try (BufferedReader bufferedReader = new BufferedReader(new FileReader(blobFile));) {
-			String line = null;
-			while ((line = bufferedReader.readLine()) != null) {
-			    String sqlOrder = line.trim();
+    /**
+     * Sends the added statements to the database.
+     * 
+     * @param statement               the statement with added SQL orders
+     * @param updateCountsAccumulator where to store the update counts
+     * @throws SQLException
+     */
+    private void executeChunk(Statement statement, UpdateCountsAccumulator updateCountsAccumulator)
+	    throws SQLException {
+	debug("before statement.executeBatch()");
+	int[] rc = statement.executeBatch();
+	updateCountsAccumulator.add(rc);
+    }
 
-			    UpdateListenersCaller updateListenersCaller = new UpdateListenersCaller(updateListeners,
-				    connection);
-			    updateListenersCaller.callUpdateListeners(username, database, sqlOrder, parameterValues,
-				    ipAddress, false);
-			}
-		    }
-		} catch (Exception e) {
-		    e.printStackTrace();
-		}
-	    }
-	};
-	t.start();
+    /**
+     * Calls the update listeners for an executed chunk. In a chunk transaction,
+     * only the responses are evicted: the listeners are called once committed,
+     * with the SQL orders read again from the batch file.
+     * 
+     * @param chunkTransaction           if true, the chunks are not yet committed
+     * @param sqlOrders                  the SQL orders of the chunk
+     * @param batchUpdateListenersCaller the update listeners caller
+     * @throws SQLException
+     * @throws IOException
+     */
+    private void callOrEvict(boolean chunkTransaction, List<String> sqlOrders,
+	    BatchUpdateListenersCaller batchUpdateListenersCaller) throws SQLException, IOException {
+	if (chunkTransaction) {
+	    batchUpdateListenersCaller.evict(sqlOrders);
+	} else {
+	    batchUpdateListenersCaller.call(sqlOrders);
+	}
     }
 
 //    /**
@@ -346,7 +416,11 @@ public class ServerStatementBatch {
 	    SqlEvent sqlEvent = SqlEventWrapper.sqlEventBuild(username, database, ipAddress, sqlOrder,
 		    ServerStatementUtil.isPreparedStatement(request), parameterValues, false);
 
-	    SqlFirewallTriggerWrapper.runIfStatementRefused(sqlEvent, sqlFirewallOnDeny, connection);
+	    if (deferredFirewallTriggers != null) {
+		deferredFirewallTriggers.add(sqlEvent, sqlFirewallOnDeny);
+	    } else {
+		SqlFirewallTriggerWrapper.runIfStatementRefused(sqlEvent, sqlFirewallOnDeny, connection);
+	    }
 
 	    if (!operationalMode.equals(OperationalMode.detecting)) {
 		String message = JsonSecurityMessage.statementNotAllowedBuild(sqlOrder, "Statement not allowed",
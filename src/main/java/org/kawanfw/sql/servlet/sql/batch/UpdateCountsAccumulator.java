@@ -0,0 +1,48 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql.batch;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates the update counts returned by the successive
+ * {@code executeBatch()} calls of a chunked batch, in a primitive array.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class UpdateCountsAccumulator {
+
+    private int[] updateCounts = new int[0];
+    private int size = 0;
+
+    /**
+     * Adds the update counts of an {@code executeBatch()} call.
+     *
+     * @param rc the update counts to add
+     */
+    public void add(int[] rc) {
+	if (size + rc.length > updateCounts.length) {
+	    updateCounts = Arrays.copyOf(updateCounts, Math.max(updateCounts.length * 2, size + rc.length));
+	}
+	System.arraycopy(rc, 0, updateCounts, size, rc.length);
+	size += rc.length;
+    }
+
+    /**
+     * @return all the accumulated update counts
+     */
+    public int[] toArray() {
+	return Arrays.copyOf(updateCounts, size);
+    }
+
+}
@@ -14,7 +14,6 @@ package org.kawanfw.sql.servlet.sql.callable;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.StringWriter;
 import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.ResultSet;
@@ -30,6 +29,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.kawanfw.sql.api.server.DatabaseConfigurator;
 import org.kawanfw.sql.api.server.SqlEvent;
 import org.kawanfw.sql.api.server.SqlEventWrapper;
 import org.kawanfw.sql.api.server.firewall.SqlFirewallManager;
@@ -39,11 +39,16 @@ import org.kawanfw.sql.api.util.firewall.SqlFirewallTriggerWrapper;
 import org.kawanfw.sql.servlet.HttpParameter;
 import org.kawanfw.sql.servlet.ServerSqlManager;
 import org.kawanfw.sql.servlet.connection.RollbackUtil;
+import org.kawanfw.sql.servlet.injection.classes.InjectedClassesStore;
 import org.kawanfw.sql.servlet.injection.properties.ConfPropertiesStore;
 import org.kawanfw.sql.servlet.injection.properties.OperationalMode;
 import org.kawanfw.sql.servlet.sql.AceQLParameter;
 import org.kawanfw.sql.servlet.sql.LoggerUtil;
+import org.kawanfw.sql.servlet.sql.MoreResultsWriter;
+import org.kawanfw.sql.servlet.sql.QueryResultCache;
 import org.kawanfw.sql.servlet.sql.ResultSetWriter;
+import org.kawanfw.sql.servlet.sql.RunningStatements;
+import org.kawanfw.sql.servlet.sql.ServerSqlUtil;
 import org.kawanfw.sql.servlet.sql.ServerStatementUtil;
 import org.kawanfw.sql.servlet.sql.StatementFailure;
 import org.kawanfw.sql.servlet.sql.json_return.JsonErrorReturn;
@@ -205,6 +210,11 @@ public class AdvancedServerCallableStatement {
 	    }
 	    callableStatement = connection.prepareCall(sqlOrder);
 
+	    DatabaseConfigurator databaseConfigurator = InjectedClassesStore.get().getDatabaseConfigurators()
+		    .get(database);
+	    ServerSqlUtil.setQueryTimeout(username, database, callableStatement, databaseConfigurator);
+	    RunningStatements.register(request, callableStatement);
+
 	    // Set the IN Parameters
 	    debug("before ServerPreparedStatementParameters");
 	    Map<Integer, AceQLParameter> inOutStatementParameters = ServerPreparedStatementParametersUtil
@@ -226,10 +236,16 @@ public class AdvancedServerCallableStatement {
 	    checkFirewallGeneral(username, database, sqlOrder, serverPreparedStatementParameters);
 	    debug("before executeQuery() / execute()");
 
-	    if (!isExecuteQuery()) {
-		doExecute(out, callableStatement, serverPreparedStatementParameters);
-	    } else {
-		doSelect(out, sqlOrder, callableStatement, serverPreparedStatementParameters);
+	    try {
+		if (!isExecuteQuery()) {
+		    doExecute(out, sqlOrder, callableStatement, serverPreparedStatementParameters);
+		} else {
+		    doSelect(out, sqlOrder, callableStatement, serverPreparedStatementParameters);
+		}
+	    } finally {
+		// The updated tables of a procedure are unknown: the CALL is not
+		// DML, so all the cached responses of the database are evicted
+		QueryResultCache.evict(database, sqlOrder, connection);
 	    }
 	} catch (SQLException e) {
 	    RollbackUtil.rollback(connection);
@@ -241,6 +257,8 @@ public class AdvancedServerCallableStatement {
 	    LoggerUtil.log(request, e, message);
 	    throw e;
 	} finally {
+	    RunningStatements.unregister(request);
+
 	    // Close the ServerPreparedStatementParameters
 	    if (serverPreparedStatementParameters != null) {
 		serverPreparedStatementParameters.close();
@@ -291,7 +309,8 @@ public class AdvancedServerCallableStatement {
 		rs = callableStatement.executeQuery();
 	    }
 
-	    JsonGeneratorFactory jf = JsonUtil.getJsonGeneratorFactory(doPrettyPrinting);
+	    boolean prettyPrinting = ServerStatementUtil.isPrettyPrinting(request, doPrettyPrinting);
+	    JsonGeneratorFactory jf = JsonUtil.getJsonGeneratorFactory(prettyPrinting);
 
 	    JsonGenerator gen = jf.createGenerator(out);
 	    gen.writeStartObject().write("status", "OK");
@@ -302,6 +321,16 @@ public class AdvancedServerCallableStatement {
 	    ResultSetWriter resultSetWriter = new ResultSetWriter(request, sqlOrder, gen, fillResultSetMetaData);
 	    resultSetWriter.write(rs);
 
+	    // The other result sets of the procedure. Oracle returns only the
+	    // REF CURSOR OUT parameter
+	    if (!sqlUtil.isOracle()) {
+		MoreResultsWriter moreResultsWriter = new MoreResultsWriter(request, sqlOrder, gen,
+			fillResultSetMetaData);
+		moreResultsWriter.setSkipLastZeroUpdateCount(true);
+		moreResultsWriter.write(callableStatement);
+	    }
+
+	    gen.flush();
 	    ServerSqlManager.writeLine(out);
 
 	    /*
@@ -330,34 +359,51 @@ public class AdvancedServerCallableStatement {
     }
 
     /**
+     * Executes the procedure and streams all its results: the first result set,
+     * if any, followed by the other result sets and update counts in a
+     * "more_results" array. The OUT parameters are read once all the results
+     * are consumed, as required by some drivers.
+     * 
      * @param out
+     * @param sqlOrder
      * @param callableStatement
      * @param serverPreparedStatementParameters
      * @throws IOException
      * @throws SQLException
      * @throws SecurityException
      */
-    private void doExecute(OutputStream out, CallableStatement callableStatement,
+    private void doExecute(OutputStream out, String sqlOrder, CallableStatement callableStatement,
 	    ServerPreparedStatementParameters serverPreparedStatementParameters)
 	    throws IOException, SQLException, SecurityException {
 
-	callableStatement.execute();
+	boolean isResultSet = callableStatement.execute();
 
-	StringWriter sw = new StringWriter();
-	JsonGeneratorFactory jf = JsonUtil.getJsonGeneratorFactory(JsonUtil.DEFAULT_PRETTY_PRINTING);
-	JsonGenerator gen = jf.createGenerator(sw);
+	boolean prettyPrinting = ServerStatementUtil.isPrettyPrinting(request, JsonUtil.DEFAULT_PRETTY_PRINTING);
+	JsonGeneratorFactory jf = JsonUtil.getJsonGeneratorFactory(prettyPrinting);
+	JsonGenerator gen = jf.createGenerator(out);
 
 	gen.writeStartObject().write("status", "OK");
 
+	String fillResultSetMetaDataStr = request.getParameter(HttpParameter.FILL_RESULT_SET_META_DATA);
+	boolean fillResultSetMetaData = Boolean.parseBoolean(fillResultSetMetaDataStr);
+
+	if (isResultSet) {
+	    ResultSetWriter resultSetWriter = new ResultSetWriter(request, sqlOrder, gen, fillResultSetMetaData);
+	    resultSetWriter.write(callableStatement.getResultSet());
+	} else {
+	    gen.write("row_count", callableStatement.getUpdateCount());
+	}
+
+	MoreResultsWriter moreResultsWriter = new MoreResultsWriter(request, sqlOrder, gen, fillResultSetMetaData);
+	moreResultsWriter.setSkipLastZeroUpdateCount(true);
+	moreResultsWriter.write(callableStatement);
+
 	addToJsonOutParameters(callableStatement, serverPreparedStatementParameters, gen);
 
-	gen.write("row_count", 0);
 	gen.writeEnd(); // .write("status", "OK")
 
 	gen.flush();
 	gen.close();
-
-	ServerSqlManager.write(out, sw.toString());
     }
 
     /**
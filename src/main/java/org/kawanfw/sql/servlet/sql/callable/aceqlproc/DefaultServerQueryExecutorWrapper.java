@@ -36,7 +36,9 @@ import org.kawanfw.sql.metadata.util.GsonWsUtil;
 import org.kawanfw.sql.servlet.HttpParameter;
 import org.kawanfw.sql.servlet.JavaValueBuilder;
 import org.kawanfw.sql.servlet.ServerSqlManager;
+import org.kawanfw.sql.servlet.sql.QueryResultCache;
 import org.kawanfw.sql.servlet.sql.ResultSetWriter;
+import org.kawanfw.sql.servlet.sql.ServerStatementUtil;
 import org.kawanfw.sql.servlet.sql.json_return.JsonUtil;
 import org.kawanfw.sql.util.FrameworkDebug;
 import org.kawanfw.sql.util.IpUtil;
@@ -107,7 +109,13 @@ public class DefaultServerQueryExecutorWrapper implements ServerQueryExecutorWra
 	String ipAddress = IpUtil.getRemoteAddr(request);
 	ClientEvent clientEvent = ClientEventWrapper.builderClientEvent(username, database, ipAddress, params);
 
-	ResultSet rs = serverQueryExecutor.executeQuery(clientEvent, connection);
+	ResultSet rs = null;
+	try {
+	    rs = serverQueryExecutor.executeQuery(clientEvent, connection);
+	} finally {
+	    // The executor may update any table
+	    QueryResultCache.evictAll(database, connection);
+	}
 
 	if (rs == null) {
 	    throw new SQLException(SqlTag.USER_CONFIGURATION
@@ -148,7 +156,7 @@ public class DefaultServerQueryExecutorWrapper implements ServerQueryExecutorWra
 	boolean doGzip = Boolean.parseBoolean(request.getParameter(HttpParameter.GZIP_RESULT));
 	OutputStream outFinal = getFinalOutputStream(out, doGzip);
 
-	boolean doPrettyPrinting = true;
+	boolean doPrettyPrinting = ServerStatementUtil.isPrettyPrinting(request, true);
 	JsonGeneratorFactory jf = JsonUtil.getJsonGeneratorFactory(doPrettyPrinting);
 
 	JsonGenerator gen = jf.createGenerator(outFinal);
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contains the statements of a bundle, each one defined by its request
+ * parameters, as for a single execute_query or execute_update.
+ * 
+ * @author Nicolas de Pomereu
+ *
+ */
+public class StatementsBundleDto {
+
+    private boolean atomic = false;
+    private List<Map<String, String>> statements = new ArrayList<>();
+
+    /**
+     * 
+     * @param atomic     if true, the statements are run in one transaction
+     * @param statements the (parameter name, value) Map of each statement
+     */
+    public StatementsBundleDto(boolean atomic, List<Map<String, String>> statements) {
+	super();
+	this.atomic = atomic;
+	this.statements = statements;
+    }
+
+    /**
+     * @return true if the statements are run in one transaction
+     */
+    public boolean isAtomic() {
+	return atomic;
+    }
+
+    /**
+     * @return the (parameter name, value) Map of each statement
+     */
+    public List<Map<String, String>> getStatements() {
+	return statements;
+    }
+
+    @Override
+    public String toString() {
+	return "StatementsBundleDto [atomic=" + atomic + ", statements=" + statements + "]";
+    }
+
+}
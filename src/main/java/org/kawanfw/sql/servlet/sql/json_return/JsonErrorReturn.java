@@ -32,6 +32,13 @@ public class JsonErrorReturn {
     public static final String ERROR_UPLOADING_BLOB = "An error occurred during Blob upload: ";
     public static final String INVALID_BLOB_ID_DOWNLOAD = "Invalid blob_id. No Blob corresponding to blob_id: ";
     public static final String INVALID_BLOB_ID_UPLOAD = "Invalid blob_id. Cannot be used to create a file: ";
+    public static final String INVALID_UPLOAD_ID = "Invalid upload_id. No upload corresponding to upload_id: ";
+    public static final String INVALID_UPLOAD_OFFSET = "Invalid offset. Must be between 0 and current upload length: ";
+    public static final String INVALID_UPLOAD_LENGTH = "Invalid length. Upload length / expected length: ";
+    public static final String INVALID_UPLOAD_SHA256 = "Invalid sha256. Upload is deleted. Upload SHA-256: ";
+    public static final String UPLOAD_CHUNK_IN_PROGRESS = "Another chunk of this upload is being written.";
+    public static final String INVALID_CURSOR_ID = "Invalid cursor_id. No open cursor corresponding to cursor_id: ";
+    public static final String CURSOR_FETCH_IN_PROGRESS = "Another fetch of this cursor is in progress.";
     public static final String INVALID_SESSION_ID = "Invalid session_id.";
     public static final String INVALID_USERNAME_OR_PASSWORD = "Invalid username or password.";
     public static final String NO_ACTION_FOUND_IN_REQUEST = "No action found in request.";
@@ -11,10 +11,12 @@
  */
 package org.kawanfw.sql.servlet.sql.json_return;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 import javax.json.Json;
+import javax.json.JsonReaderFactory;
 import javax.json.stream.JsonGenerator;
 import javax.json.stream.JsonGeneratorFactory;
 
@@ -27,6 +29,15 @@ public class JsonUtil {
     /** Always force pretty printing */
     public static final boolean DEFAULT_PRETTY_PRINTING = true;
 
+    /**
+     * The factories are thread safe: create them once, as each creation goes
+     * through the JsonProvider lookup
+     */
+    private static final JsonGeneratorFactory PRETTY_GENERATOR_FACTORY = createJsonGeneratorFactory(true);
+    private static final JsonGeneratorFactory COMPACT_GENERATOR_FACTORY = createJsonGeneratorFactory(false);
+    private static final JsonReaderFactory READER_FACTORY = Json
+	    .createReaderFactory(Collections.<String, Object>emptyMap());
+
     /**
      * protected
      */
@@ -35,14 +46,29 @@ public class JsonUtil {
     }
 
     /**
-     * JsonGeneratorFactory getter with pretty printing on/off
+     * JsonGeneratorFactory getter with pretty printing on/off. The returned
+     * factory is shared and must not be modified.
      *
      * @param prettyPrintingif
      *            true, JSON will be pretty printed
-     * @return
+     * @return the shared pretty or compact JsonGeneratorFactory
      */
     public static JsonGeneratorFactory getJsonGeneratorFactory(
 	    boolean prettyPrinting) {
+	return prettyPrinting ? PRETTY_GENERATOR_FACTORY : COMPACT_GENERATOR_FACTORY;
+    }
+
+    /**
+     * Returns the shared JsonReaderFactory to use for parsing JSON.
+     *
+     * @return the shared JsonReaderFactory
+     */
+    public static JsonReaderFactory getJsonReaderFactory() {
+	return READER_FACTORY;
+    }
+
+    private static JsonGeneratorFactory createJsonGeneratorFactory(
+	    boolean prettyPrinting) {
 	Map<String, Object> properties = new HashMap<>(1);
 	if (prettyPrinting) {
 	    // Putting any value sets the pretty printing to true... So test
@@ -50,8 +76,7 @@ public class JsonUtil {
 	    properties.put(JsonGenerator.PRETTY_PRINTING, prettyPrinting);
 	}
 
-	JsonGeneratorFactory jf = Json.createGeneratorFactory(properties);
-	return jf;
+	return Json.createGeneratorFactory(properties);
     }
 
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql.writer;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.json.stream.JsonGenerator;
+
+import org.kawanfw.sql.servlet.sql.BinaryColumnFormater;
+
+/**
+ * Writes binary columns: the content is dumped by the
+ * {@link BinaryColumnFormater} and the returned id is sent to the client.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class BinaryColumnWriter extends ColumnWriter {
+
+    private BinaryColumnFormater binaryColumnFormater;
+
+    public BinaryColumnWriter(JsonGenerator gen, int columnIndex, String columnName, boolean compactFormat,
+	    BinaryColumnFormater binaryColumnFormater) {
+	super(gen, columnIndex, columnName, compactFormat);
+	this.binaryColumnFormater = binaryColumnFormater;
+    }
+
+    @Override
+    public void write(ResultSet resultSet) throws SQLException, IOException {
+	// The column value is a file name with a tag for identification
+	writeValue(binaryColumnFormater.formatAndReturnId());
+    }
+
+}
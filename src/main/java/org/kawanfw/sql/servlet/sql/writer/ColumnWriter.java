@@ -0,0 +1,126 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql.writer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.json.stream.JsonGenerator;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Writes the value of one column of the current row of a result set on the
+ * JSON generator. <br>
+ * A {@code ColumnWriter} is created once per column by
+ * {@link ColumnWriterPlan} and reused for all the rows.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public abstract class ColumnWriter {
+
+    protected JsonGenerator gen;
+    protected int columnIndex;
+    protected String columnName;
+    private boolean compactFormat;
+
+    /**
+     * Constructor.
+     *
+     * @param gen           the JSON generator
+     * @param columnIndex   the column index, starting at 1
+     * @param columnName    the column name
+     * @param compactFormat if true, value is written without the column name
+     */
+    protected ColumnWriter(JsonGenerator gen, int columnIndex, String columnName, boolean compactFormat) {
+	this.gen = gen;
+	this.columnIndex = columnIndex;
+	this.columnName = columnName;
+	this.compactFormat = compactFormat;
+    }
+
+    /**
+     * Writes the column value of the current row of the result set.
+     *
+     * @param resultSet the result set positioned on a row
+     * @throws SQLException
+     * @throws IOException
+     */
+    public abstract void write(ResultSet resultSet) throws SQLException, IOException;
+
+    /**
+     * Writes a String value.
+     *
+     * @param value the value to write
+     */
+    protected void writeValue(String value) {
+	if (compactFormat) {
+	    gen.write(value);
+	} else {
+	    gen.writeStartObject().write(columnName, value).writeEnd();
+	}
+    }
+
+    /**
+     * Writes a long value.
+     *
+     * @param value the value to write
+     */
+    protected void writeValue(long value) {
+	if (compactFormat) {
+	    gen.write(value);
+	} else {
+	    gen.writeStartObject().write(columnName, value).writeEnd();
+	}
+    }
+
+    /**
+     * Writes a BigDecimal value.
+     *
+     * @param value the value to write
+     */
+    protected void writeValue(BigDecimal value) {
+	if (compactFormat) {
+	    gen.write(value);
+	} else {
+	    gen.writeStartObject().write(columnName, value).writeEnd();
+	}
+    }
+
+    /**
+     * Writes a value as a JSON number if its String form is numeric and its type
+     * is a known number class, else as a JSON String.
+     *
+     * @param columnValue    the column value as returned by the result set
+     * @param columnValueStr the column value formated for the client side
+     * @throws NumberFormatException
+     */
+    protected void writeValue(Object columnValue, String columnValueStr) throws NumberFormatException {
+	if (!StringUtils.isNumeric(columnValueStr)) {
+	    writeValue(columnValueStr);
+	    return;
+	}
+
+	if (columnValue instanceof Integer || columnValue instanceof Long) {
+	    writeValue(Long.parseLong(columnValueStr));
+	} else if (columnValue instanceof Double || columnValue instanceof Float
+		|| columnValue instanceof BigDecimal) {
+	    writeValue(new BigDecimal(columnValueStr));
+	} else {
+	    writeValue(columnValueStr);
+	}
+    }
+
+}
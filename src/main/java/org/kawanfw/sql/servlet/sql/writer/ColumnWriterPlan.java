@@ -0,0 +1,150 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql.writer;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.json.stream.JsonGenerator;
+import javax.servlet.http.HttpServletRequest;
+
+import org.kawanfw.sql.servlet.sql.BinaryColumnFormater;
+import org.kawanfw.sql.servlet.sql.ClobColumnFormater;
+import org.kawanfw.sql.servlet.sql.ColumnInfoCreator;
+import org.kawanfw.sql.servlet.sql.ResultSetWriterUtil;
+import org.kawanfw.sql.util.FrameworkDebug;
+
+/**
+ * Builds once per result set the list of {@link ColumnWriter}, one per column,
+ * so that the column type analysis is not redone for each cell.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class ColumnWriterPlan {
+
+    private static boolean DEBUG = FrameworkDebug.isSet(ColumnWriterPlan.class);
+
+    private List<ColumnWriter> columnWriters = new ArrayList<>();
+
+    /** Says if a column value refers to a file or an object of the session */
+    private boolean sessionBound = false;
+
+    /**
+     * Constructor.
+     *
+     * @param request           the http request
+     * @param sqlOrder          the sql order
+     * @param resultSet         the result set to write
+     * @param productName       the database product name
+     * @param columnInfoCreator the column info of the result set
+     * @param gen               the JSON generator
+     * @param compactFormat     if true, values are written without column names
+     * @throws SQLException
+     * @throws IOException
+     */
+    public ColumnWriterPlan(HttpServletRequest request, String sqlOrder, ResultSet resultSet, String productName,
+	    ColumnInfoCreator columnInfoCreator, JsonGenerator gen, boolean compactFormat)
+	    throws SQLException, IOException {
+
+	List<Integer> columnTypeList = columnInfoCreator.getColumnTypeList();
+	List<String> columnTypeNameList = columnInfoCreator.getColumnTypeNameList();
+	List<String> columnNameList = columnInfoCreator.getColumnNameList();
+	List<Boolean> columnSignedList = columnInfoCreator.getColumnSignedList();
+
+	for (int i = 0; i < columnTypeList.size(); i++) {
+	    int columnIndex = i + 1;
+	    int columnType = columnTypeList.get(i);
+	    String columnName = columnNameList.get(i);
+
+	    ColumnWriter columnWriter = null;
+
+	    BinaryColumnFormater binaryColumnFormater = new BinaryColumnFormater(request, resultSet, productName,
+		    columnType, columnIndex, columnName);
+
+	    if (binaryColumnFormater.isBinaryColumn()) {
+		columnWriter = new BinaryColumnWriter(gen, columnIndex, columnName, compactFormat,
+			binaryColumnFormater);
+	    } else if (ResultSetWriterUtil.isNStringColumn(columnType)) {
+		columnWriter = new DefaultColumnWriter(gen, columnIndex, columnName, compactFormat, request,
+			columnType, columnTypeNameList.get(i));
+	    } else if (isClobColumn(sqlOrder, columnType)) {
+		columnWriter = new ClobColumnWriter(gen, columnIndex, columnName, compactFormat,
+			new ClobColumnFormater(request, resultSet, columnIndex));
+	    } else if (columnType == Types.INTEGER || (columnType == Types.BIGINT && columnSignedList.get(i))) {
+		columnWriter = new IntegralColumnWriter(gen, columnIndex, columnName, compactFormat);
+	    } else if (columnType == Types.REAL || columnType == Types.FLOAT || columnType == Types.DOUBLE) {
+		columnWriter = new FloatingColumnWriter(gen, columnIndex, columnName, compactFormat);
+	    } else if (columnType == Types.NUMERIC || columnType == Types.DECIMAL) {
+		columnWriter = new DecimalColumnWriter(gen, columnIndex, columnName, compactFormat);
+	    } else {
+		columnWriter = new DefaultColumnWriter(gen, columnIndex, columnName, compactFormat, request,
+			columnType, columnTypeNameList.get(i));
+	    }
+
+	    if (columnWriter instanceof BinaryColumnWriter || columnWriter instanceof ClobColumnWriter
+		    || columnType == Types.ROWID || columnType == Types.ARRAY) {
+		sessionBound = true;
+	    }
+
+	    debug(columnIndex + " " + columnName + " " + columnTypeNameList.get(i) + ": "
+		    + columnWriter.getClass().getSimpleName());
+	    columnWriters.add(columnWriter);
+	}
+    }
+
+    /**
+     * @return the column writers, in column order
+     */
+    public List<ColumnWriter> getColumnWriters() {
+	return columnWriters;
+    }
+
+    /**
+     * Says if the written values are valid only for the current session: BLOB
+     * and CLOB file names, ROWID and ARRAY ids.
+     *
+     * @return true if a column value refers to a file or an object of the
+     *         session
+     */
+    public boolean isSessionBound() {
+	return sessionBound;
+    }
+
+    /**
+     * return true if the column is a Types.CLOB || Types.NCLOB
+     *
+     * @param sqlOrder   the sql order
+     * @param columnType the sql column type
+     * @return true if it's (N)CLOB
+     */
+    private static boolean isClobColumn(String sqlOrder, int columnType) {
+
+	// 18/11/11 23:20 NDP : ResultSetWriter: no file dump for
+	// ResultSetMetaData queries
+	if (sqlOrder.equals("ResultSetMetaData")) {
+	    return false;
+	}
+
+	return columnType == Types.CLOB || columnType == Types.LONGVARCHAR || columnType == Types.NCLOB;
+    }
+
+    private static void debug(String s) {
+	if (DEBUG) {
+	    System.out.println(s);
+	}
+    }
+}
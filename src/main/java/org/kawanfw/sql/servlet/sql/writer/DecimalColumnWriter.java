@@ -0,0 +1,48 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql.writer;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.json.stream.JsonGenerator;
+
+import org.kawanfw.sql.servlet.sql.ResultSetWriterUtil;
+
+/**
+ * Writes NUMERIC & DECIMAL columns with {@code ResultSet.getBigDecimal()}.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class DecimalColumnWriter extends ColumnWriter {
+
+    public DecimalColumnWriter(JsonGenerator gen, int columnIndex, String columnName, boolean compactFormat) {
+	super(gen, columnIndex, columnName, compactFormat);
+    }
+
+    @Override
+    public void write(ResultSet resultSet) throws SQLException {
+	BigDecimal value = resultSet.getBigDecimal(columnIndex);
+
+	if (resultSet.wasNull() || value == null) {
+	    writeValue(ResultSetWriterUtil.NULL);
+	} else if (value.signum() >= 0 && value.scale() == 0) {
+	    writeValue(value);
+	} else {
+	    // Negative, fractional or exponent values have always been sent as String
+	    writeValue(value.toString());
+	}
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql.writer;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import javax.json.stream.JsonGenerator;
+import javax.servlet.http.HttpServletRequest;
+
+import org.kawanfw.sql.servlet.sql.ResultSetWriterUtil;
+
+/**
+ * Writes all the columns that have no dedicated {@link ColumnWriter}: N
+ * Strings, arrays, date/times, row ids and generic
+ * {@code ResultSet.getObject()} values.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class DefaultColumnWriter extends ColumnWriter {
+
+    private HttpServletRequest request;
+    private int columnType;
+    private String columnTypeName;
+
+    public DefaultColumnWriter(JsonGenerator gen, int columnIndex, String columnName, boolean compactFormat,
+	    HttpServletRequest request, int columnType, String columnTypeName) {
+	super(gen, columnIndex, columnName, compactFormat);
+	this.request = request;
+	this.columnType = columnType;
+	this.columnTypeName = columnTypeName;
+    }
+
+    @Override
+    public void write(ResultSet resultSet) throws SQLException, IOException {
+	Object columnValue = null;
+	String columnValueStr = null;
+
+	if (ResultSetWriterUtil.isNStringColumn(columnType)) {
+	    columnValue = resultSet.getNString(columnIndex);
+	    columnValueStr = ResultSetWriterUtil.treatNullValue(resultSet, columnValue);
+	} else if (columnType == Types.ARRAY) {
+	    columnValueStr = ResultSetWriterUtil.formatArrayColumn(resultSet, columnIndex);
+	} else if (ResultSetWriterUtil.isDateTime(columnType)) {
+	    columnValueStr = ResultSetWriterUtil.formatDateTimeColumn(resultSet, columnType, columnIndex);
+	} else if (columnType == Types.ROWID) {
+	    columnValueStr = ResultSetWriterUtil.formatRowIdColumn(request, resultSet, columnIndex);
+	} else {
+	    try {
+		columnValue = resultSet.getObject(columnIndex);
+	    } catch (Exception e) {
+		throw new SQLException(columnType + "Type/TypeName/ColName " + columnTypeName + " " + columnName, e);
+	    }
+	    columnValueStr = ResultSetWriterUtil.treatNullValue(resultSet, columnValue);
+	}
+
+	writeValue(columnValue, columnValueStr);
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.servlet.sql.writer;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.json.stream.JsonGenerator;
+
+import org.kawanfw.sql.servlet.sql.ResultSetWriterUtil;
+
+/**
+ * Writes REAL, FLOAT & DOUBLE columns with {@code ResultSet.getObject()}. <br>
+ * Float and Double values are sent as String, as their Java representation is
+ * never a plain sequence of digits. Some drivers, such as Oracle, return a
+ * BigDecimal: its integral values are sent as numbers.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class FloatingColumnWriter extends ColumnWriter {
+
+    public FloatingColumnWriter(JsonGenerator gen, int columnIndex, String columnName, boolean compactFormat) {
+	super(gen, columnIndex, columnName, compactFormat);
+    }
+
+    @Override
+    public void write(ResultSet resultSet) throws SQLException {
+	Object columnValue = resultSet.getObject(columnIndex);
+	String columnValueStr = ResultSetWriterUtil.treatNullValue(resultSet, columnValue);
+
+	if (columnValue instanceof Double || columnValue instanceof Float) {
+	    writeValue(columnValueStr);
+	} else {
+	    writeValue(columnValue, columnValueStr);
+	}
+    }
+
+}
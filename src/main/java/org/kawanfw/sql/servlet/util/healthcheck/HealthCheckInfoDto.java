@@ -13,6 +13,9 @@ package org.kawanfw.sql.servlet.util.healthcheck;
 
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
+import java.util.Map;
+
+import org.kawanfw.sql.servlet.RequestLanes;
 
 /**
  * Contains the health check info to send to client side.
@@ -27,6 +30,9 @@ public class HealthCheckInfoDto {
     private long usedMemory;
     private long maxMemory;
     private long committedMemory;
+
+    /** The request lanes metrics. Null if the lanes are not activated */
+    private Map<String, Map<String, Long>> requestLanes;
     
     /**
      * Constructor
@@ -37,6 +43,10 @@ public class HealthCheckInfoDto {
 	usedMemory = memoryMXBean.getHeapMemoryUsage().getUsed();
 	maxMemory = memoryMXBean.getHeapMemoryUsage().getMax();
 	committedMemory = memoryMXBean.getHeapMemoryUsage().getCommitted();
+
+	if (RequestLanes.isActivated()) {
+	    requestLanes = RequestLanes.getLaneInfos();
+	}
     }
 
     /**
@@ -74,10 +84,18 @@ public class HealthCheckInfoDto {
         return committedMemory;
     }
 
+    /**
+     * @return the requestLanes
+     */
+    Map<String, Map<String, Long>> getRequestLanes() {
+        return requestLanes;
+    }
+
     @Override
     public String toString() {
 	return "HealthCheckInfoDto [status=" + status + ", initMemory=" + initMemory + ", usedMemory=" + usedMemory
-		+ ", maxMemory=" + maxMemory + ", committedMemory=" + committedMemory + "]";
+		+ ", maxMemory=" + maxMemory + ", committedMemory=" + committedMemory + ", requestLanes="
+		+ requestLanes + "]";
     }
     
    
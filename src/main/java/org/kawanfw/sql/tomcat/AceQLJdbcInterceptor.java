@@ -12,9 +12,7 @@
 package org.kawanfw.sql.tomcat;
 
 import java.sql.Connection;
-import java.sql.SQLException;
 import java.util.Date;
-import java.util.Map;
 import java.util.Set;
 
 import org.apache.tomcat.jdbc.pool.ConnectionPool;
@@ -23,6 +21,7 @@ import org.apache.tomcat.jdbc.pool.PooledConnection;
 import org.kawanfw.sql.api.server.connectionstore.ConnectionKey;
 import org.kawanfw.sql.servlet.connection.ConnectionStore;
 import org.kawanfw.sql.servlet.injection.properties.ConfPropertiesUtil;
+import org.kawanfw.sql.servlet.sql.PreparedStatementCache;
 import org.kawanfw.sql.util.FrameworkDebug;
 
 /**
@@ -58,6 +57,11 @@ public class AceQLJdbcInterceptor extends JdbcInterceptor {
     public void disconnected(ConnectionPool parent, PooledConnection con, boolean finalizing) {
 
 	try {
+	    // Cached PreparedStatements are useless once the Connection is closed
+	    if (con != null) {
+		PreparedStatementCache.remove(con.getConnection());
+	    }
+
 	    // No clean of course in stateless mode!
 	    if (ConfPropertiesUtil.isStatelessMode()) {
 		debug("AceQLJdbcInterceptor. Stateless mode. Nothing to do.");
@@ -76,39 +80,17 @@ public class AceQLJdbcInterceptor extends JdbcInterceptor {
 		return;
 	    }
 
-	    Map<ConnectionKey, Connection> map = ConnectionStore.getConnectionMap();
-	    Set<ConnectionKey> set = map.keySet();
+	    // The ConnectionStore indexes the keys per physical Connection: no scan
+	    Set<ConnectionKey> connectionKeys = ConnectionStore.getConnectionKeys(connection);
 
-	    if (set == null) {
-		debug("AceQLJdbcInterceptor. ConnectionStore Set<ConnectionKey> is null. Nothing to do.");
+	    if (connectionKeys.isEmpty()) {
+		debug("AceQLJdbcInterceptor. No ConnectionKey for connection. Nothing to do.");
 		return;
 	    }
 
-	    if (set.isEmpty()) {
-		debug("AceQLJdbcInterceptor. ConnectionStore Set<ConnectionKey> is empty. Nothing to do.");
-		return;
-	    }
-
-	    for (Map.Entry<ConnectionKey, Connection> entry : map.entrySet()) {
-
-		Connection unwrappedStoredConnection = getUnwrappedConnection(entry.getValue());
-		
-		if (unwrappedStoredConnection != null) {
-		    ConnectionKey connectionKey = entry.getKey();
-		    
-		    debug("AceQLJdbcInterceptor. JdbcInterceptorTest connection.toString(): " + connection.toString());
-		    debug("AceQLJdbcInterceptor. unwrappedStoredConnection.toString() : " + unwrappedStoredConnection.toString());
-		    
-		    if (connection.equals(unwrappedStoredConnection)) {
-			ConnectionStore.remove(connectionKey);
-			debug("AceQLJdbcInterceptor. ConnectionStore all removed for connectionKey: " + connectionKey);
-		    } else {
-			debug("AceQLJdbcInterceptor. Current connection does not correspond to connectionKey: "
-				+ connectionKey);
-		    }
-		} else {
-		    debug("AceQLJdbcInterceptor. connectionKey is null!");
-		}
+	    for (ConnectionKey connectionKey : connectionKeys) {
+		ConnectionStore.remove(connectionKey);
+		debug("AceQLJdbcInterceptor. ConnectionStore all removed for connectionKey: " + connectionKey);
 	    }
 
 	} catch (Exception e) {
@@ -119,26 +101,6 @@ public class AceQLJdbcInterceptor extends JdbcInterceptor {
 
     }
 
-    /**
-     * Unwraps the Connection if it's a PooledConnection
-     * @param connection the wrapped Connection
-     * @return the unwrapped Connection
-     * @throws SQLException 
-     */
-    public Connection getUnwrappedConnection(Connection connection) throws SQLException {
-	
-	// Try to unwrap following https://tomcat.apache.org/tomcat-9.0-doc/jdbc-pool.html.
-	// Purpose is to be able to compare the two Connections...
-	if (connection instanceof javax.sql.PooledConnection) {
-	    Connection actual = ((javax.sql.PooledConnection)connection).getConnection(); 
-	    return actual;	    
-	}
-	else {
-	    return connection;
-	}
-
-    }
-
     private void debug(String s) {
 	if (DEBUG) {
 	    System.err.println(new Date() + " " + s);
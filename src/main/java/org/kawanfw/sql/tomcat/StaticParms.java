@@ -20,4 +20,16 @@ public class StaticParms {
 
     public static boolean FLUSH_EACH_RESULT_SET_ROW;
 
+    /** Result set rows are flushed every N rows. 0 for no row limit. */
+    public static int FLUSH_RESULT_SET_ROWS = 1000;
+
+    /** Result set rows are flushed every T milliseconds. 0 for no time limit. */
+    public static int FLUSH_RESULT_SET_MILLISECONDS = 1000;
+
+    /**
+     * The response buffer size in bytes: the container sends the response every
+     * M bytes. 0 for the container default.
+     */
+    public static int RESPONSE_BUFFER_SIZE = 64 * 1024;
+
 }
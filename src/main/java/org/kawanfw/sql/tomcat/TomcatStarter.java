@@ -160,13 +160,27 @@ public class TomcatStarter {
 
 	String flushEachResultSetRow = properties.getProperty("flushEachResultSetRow");
 	if (flushEachResultSetRow == null || flushEachResultSetRow.isEmpty()) {
-	    flushEachResultSetRow = "true";
+	    flushEachResultSetRow = "false";
 	}
 
+	StaticParms.FLUSH_EACH_RESULT_SET_ROW = Boolean.parseBoolean(flushEachResultSetRow);
+	StaticParms.FLUSH_RESULT_SET_ROWS = getIntProperty(properties, "flushResultSetRows",
+		StaticParms.FLUSH_RESULT_SET_ROWS);
+	StaticParms.FLUSH_RESULT_SET_MILLISECONDS = getIntProperty(properties, "flushResultSetMilliseconds",
+		StaticParms.FLUSH_RESULT_SET_MILLISECONDS);
+	StaticParms.RESPONSE_BUFFER_SIZE = getIntProperty(properties, "responseBufferSize",
+		StaticParms.RESPONSE_BUFFER_SIZE);
+
 	System.out.println(SqlTag.SQL_PRODUCT_START + " " + "Setting Internal Properties: ");
 	System.out.println(SqlTag.SQL_PRODUCT_START + "  -> tomcatLoggingLevel = " + level);
 	System.out.println(SqlTag.SQL_PRODUCT_START + "  -> flushEachResultSetRow = "
-		+ Boolean.parseBoolean(flushEachResultSetRow));
+		+ StaticParms.FLUSH_EACH_RESULT_SET_ROW);
+	System.out.println(SqlTag.SQL_PRODUCT_START + "  -> flushResultSetRows = "
+		+ StaticParms.FLUSH_RESULT_SET_ROWS);
+	System.out.println(SqlTag.SQL_PRODUCT_START + "  -> flushResultSetMilliseconds = "
+		+ StaticParms.FLUSH_RESULT_SET_MILLISECONDS);
+	System.out.println(SqlTag.SQL_PRODUCT_START + "  -> responseBufferSize = "
+		+ StaticParms.RESPONSE_BUFFER_SIZE);
 
 	// System.out.println("TomcatEmbedUtil.available(" + port + "): " +
 	// TomcatEmbedUtil.available(port));
@@ -194,6 +208,34 @@ public class TomcatStarter {
 	tomcatAfterStart(tomcat, properties);
     }
 
+    /**
+     * Returns the value of an optional positive or zero int property.
+     *
+     * @param properties   the properties
+     * @param propertyName the property name
+     * @param defaultValue the value to use if the property is not set
+     * @return the property value
+     */
+    private static int getIntProperty(Properties properties, String propertyName, int defaultValue) {
+	String value = properties.getProperty(propertyName);
+	if (value == null || value.trim().isEmpty()) {
+	    return defaultValue;
+	}
+
+	int intValue = -1;
+	try {
+	    intValue = Integer.parseInt(value.trim());
+	} catch (NumberFormatException e) {
+	    // Error thrown below
+	}
+
+	if (intValue < 0) {
+	    throw new IllegalArgumentException(SqlTag.USER_CONFIGURATION + " The " + propertyName
+		    + " property must be a positive or zero integer: " + value);
+	}
+	return intValue;
+    }
+
     /**
      * @param tomcat
      * @param properties
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.tomcat.properties.threadpool;
+
+/**
+ * The executor that runs the servlet requests.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public enum RequestExecutorMode {
+    /** The ThreadPoolExecutor created by the ThreadPoolExecutorBuilder */
+    pool,
+    /** One virtual thread per request. Requires Java 21+ */
+    virtual_threads
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.tomcat.properties.threadpool;
+
+import java.util.Objects;
+import java.util.Properties;
+
+import org.apache.commons.lang3.StringUtils;
+import org.kawanfw.sql.api.server.DatabaseConfigurationException;
+import org.kawanfw.sql.util.SqlTag;
+
+/**
+ * The request lanes properties. <br>
+ * When activated, the login, export and blob requests are executed by their
+ * own bounded pools, and the other requests by the main ThreadPoolExecutor.
+ * A request that waits in a queue more than {@code requestLaneWaitTimeoutMillis}
+ * is rejected.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class RequestLanesProperties {
+
+    public static final int DEFAULT_WAIT_TIMEOUT_MILLIS = 30 * 1000;
+
+    /** 0: the maximumPoolSize of the main ThreadPoolExecutor */
+    public static final int DEFAULT_QUERY_LANE_MAXIMUM_POOL_SIZE = 0;
+    public static final int DEFAULT_QUERY_LANE_CAPACITY = 200;
+    public static final int DEFAULT_LOGIN_LANE_MAXIMUM_POOL_SIZE = 10;
+    public static final int DEFAULT_LOGIN_LANE_CAPACITY = 100;
+    public static final int DEFAULT_EXPORT_LANE_MAXIMUM_POOL_SIZE = 5;
+    public static final int DEFAULT_EXPORT_LANE_CAPACITY = 20;
+    public static final int DEFAULT_BLOB_LANE_MAXIMUM_POOL_SIZE = 10;
+    public static final int DEFAULT_BLOB_LANE_CAPACITY = 50;
+
+    private boolean activated = false;
+    private int waitTimeoutMillis = DEFAULT_WAIT_TIMEOUT_MILLIS;
+
+    private int queryLaneMaximumPoolSize = DEFAULT_QUERY_LANE_MAXIMUM_POOL_SIZE;
+    private int queryLaneCapacity = DEFAULT_QUERY_LANE_CAPACITY;
+    private int loginLaneMaximumPoolSize = DEFAULT_LOGIN_LANE_MAXIMUM_POOL_SIZE;
+    private int loginLaneCapacity = DEFAULT_LOGIN_LANE_CAPACITY;
+    private int exportLaneMaximumPoolSize = DEFAULT_EXPORT_LANE_MAXIMUM_POOL_SIZE;
+    private int exportLaneCapacity = DEFAULT_EXPORT_LANE_CAPACITY;
+    private int blobLaneMaximumPoolSize = DEFAULT_BLOB_LANE_MAXIMUM_POOL_SIZE;
+    private int blobLaneCapacity = DEFAULT_BLOB_LANE_CAPACITY;
+
+    public RequestLanesProperties(Properties properties) {
+	Objects.requireNonNull(properties, "properties cannot be null!");
+
+	activated = Boolean.parseBoolean(properties.getProperty("requestLanesActivated"));
+	waitTimeoutMillis = getIntProperty(properties, "requestLaneWaitTimeoutMillis", waitTimeoutMillis);
+
+	queryLaneMaximumPoolSize = getIntProperty(properties, "queryLaneMaximumPoolSize", queryLaneMaximumPoolSize);
+	queryLaneCapacity = getIntProperty(properties, "queryLaneCapacity", queryLaneCapacity);
+	loginLaneMaximumPoolSize = getIntProperty(properties, "loginLaneMaximumPoolSize", loginLaneMaximumPoolSize);
+	loginLaneCapacity = getIntProperty(properties, "loginLaneCapacity", loginLaneCapacity);
+	exportLaneMaximumPoolSize = getIntProperty(properties, "exportLaneMaximumPoolSize",
+		exportLaneMaximumPoolSize);
+	exportLaneCapacity = getIntProperty(properties, "exportLaneCapacity", exportLaneCapacity);
+	blobLaneMaximumPoolSize = getIntProperty(properties, "blobLaneMaximumPoolSize", blobLaneMaximumPoolSize);
+	blobLaneCapacity = getIntProperty(properties, "blobLaneCapacity", blobLaneCapacity);
+
+	throwExceptionIfZero("queryLaneCapacity", queryLaneCapacity);
+	throwExceptionIfZero("loginLaneMaximumPoolSize", loginLaneMaximumPoolSize);
+	throwExceptionIfZero("exportLaneMaximumPoolSize", exportLaneMaximumPoolSize);
+	throwExceptionIfZero("blobLaneMaximumPoolSize", blobLaneMaximumPoolSize);
+    }
+
+    private int getIntProperty(Properties properties, String name, int defaultValue) {
+	String value = properties.getProperty(name);
+	if (value == null || value.trim().isEmpty()) {
+	    return defaultValue;
+	}
+
+	value = value.trim();
+	if (!StringUtils.isNumeric(value)) {
+	    throw new DatabaseConfigurationException(name + " property is not numeric. " + SqlTag.PLEASE_CORRECT);
+	}
+	return Integer.parseInt(value);
+    }
+
+    private void throwExceptionIfZero(String name, int value) {
+	if (value == 0) {
+	    throw new DatabaseConfigurationException(name + " must be > 0. " + SqlTag.PLEASE_CORRECT);
+	}
+    }
+
+    /**
+     * @return true if the requests are dispatched in lanes
+     */
+    public boolean isActivated() {
+	return activated;
+    }
+
+    /**
+     * @return the maximum time in milliseconds a request may wait in a queue.
+     *         0 means no limit.
+     */
+    public int getWaitTimeoutMillis() {
+	return waitTimeoutMillis;
+    }
+
+    /**
+     * @return the maximum number of query lane requests run at once by the main
+     *         executor. 0 means the maximumPoolSize of the main
+     *         ThreadPoolExecutor.
+     */
+    public int getQueryLaneMaximumPoolSize() {
+	return queryLaneMaximumPoolSize;
+    }
+
+    /**
+     * @return the capacity of the queue of the query lane requests
+     */
+    public int getQueryLaneCapacity() {
+	return queryLaneCapacity;
+    }
+
+    public int getLoginLaneMaximumPoolSize() {
+	return loginLaneMaximumPoolSize;
+    }
+
+    public int getLoginLaneCapacity() {
+	return loginLaneCapacity;
+    }
+
+    public int getExportLaneMaximumPoolSize() {
+	return exportLaneMaximumPoolSize;
+    }
+
+    public int getExportLaneCapacity() {
+	return exportLaneCapacity;
+    }
+
+    public int getBlobLaneMaximumPoolSize() {
+	return blobLaneMaximumPoolSize;
+    }
+
+    public int getBlobLaneCapacity() {
+	return blobLaneCapacity;
+    }
+
+}
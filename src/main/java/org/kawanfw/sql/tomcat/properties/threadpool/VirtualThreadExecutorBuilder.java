@@ -0,0 +1,85 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.tomcat.properties.threadpool;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.kawanfw.sql.api.server.DatabaseConfigurationException;
+import org.kawanfw.sql.util.SqlTag;
+
+/**
+ * Creates an executor that runs each task in a new virtual thread. <br>
+ * The server is compiled for Java 8, so the Java 21 API is called with
+ * reflection. With virtual threads, the number of concurrent requests is no
+ * more bounded by the pool size: the real limit is the JDBC pool size of each
+ * database.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class VirtualThreadExecutorBuilder {
+
+    /** The prefix of the virtual thread names */
+    public static final String THREAD_NAME_PREFIX = "AceQL-virtual-";
+
+    /**
+     * Says if the running JVM supports virtual threads.
+     *
+     * @return true if the JVM supports virtual threads
+     */
+    public static boolean isSupported() {
+	try {
+	    Thread.class.getMethod("ofVirtual");
+	    return true;
+	} catch (NoSuchMethodException e) {
+	    return false;
+	}
+    }
+
+    /**
+     * Creates the virtual thread per task executor.
+     *
+     * @return the virtual thread per task executor
+     * @throws DatabaseConfigurationException if the JVM does not support virtual
+     *                                        threads
+     */
+    public ExecutorService build() {
+	if (!isSupported()) {
+	    throw new DatabaseConfigurationException("requestExecutorMode " + RequestExecutorMode.virtual_threads
+		    + " requires Java 21 or higher. Running Java version: " + System.getProperty("java.version") + ". "
+		    + SqlTag.PLEASE_CORRECT);
+	}
+
+	try {
+	    // Thread.ofVirtual().name(THREAD_NAME_PREFIX, 1).factory()
+	    Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+	    Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+	    builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME_PREFIX,
+		    1L);
+	    ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+
+	    // Executors.newThreadPerTaskExecutor(threadFactory)
+	    Method method = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+	    ExecutorService executorService = (ExecutorService) method.invoke(null, threadFactory);
+
+	    System.out.println(SqlTag.SQL_PRODUCT_START + " Loading virtual thread per request executor.");
+	    return executorService;
+	} catch (ReflectiveOperationException e) {
+	    throw new DatabaseConfigurationException(
+		    "Impossible to create the virtual thread executor. Reason: " + e.toString());
+	}
+    }
+
+}
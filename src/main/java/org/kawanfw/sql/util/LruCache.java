@@ -0,0 +1,204 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A thread safe bounded cache that evicts the least recently used entry when
+ * the max size is reached. <br>
+ * The entries are spread on segments, each with its own lock and its own share
+ * of the max size, so that concurrent reads of different keys do not wait for
+ * each other. The eviction order is thus the least recently used order of the
+ * segment of the new entry, which approximates the global one.
+ *
+ * @author Nicolas de Pomereu
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public class LruCache<K, V> {
+
+    /** The maximum number of segments */
+    static final int MAX_SEGMENTS = 16;
+
+    /** The minimum number of entries per segment */
+    static final int MIN_SEGMENT_SIZE = 8;
+
+    private final int maxSize;
+    private final Segment<K, V>[] segments;
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize the maximum number of entries in the cache
+     */
+    public LruCache(final int maxSize) {
+	this(maxSize, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize          the maximum number of entries in the cache
+     * @param evictionListener called with the value of each evicted least
+     *                         recently used entry. May be null.
+     */
+    @SuppressWarnings("unchecked")
+    public LruCache(final int maxSize, final Consumer<V> evictionListener) {
+	if (maxSize <= 0) {
+	    throw new IllegalArgumentException("maxSize must be > 0: " + maxSize);
+	}
+
+	this.maxSize = maxSize;
+
+	// A power of two, so that the segment index is a mask of the hash
+	int segmentCount = 1;
+	while (segmentCount * 2 <= MAX_SEGMENTS && segmentCount * 2 * MIN_SEGMENT_SIZE <= maxSize) {
+	    segmentCount *= 2;
+	}
+
+	// The segment sizes sum up to maxSize
+	this.segments = new Segment[segmentCount];
+	for (int i = 0; i < segmentCount; i++) {
+	    int segmentSize = maxSize / segmentCount + (i < maxSize % segmentCount ? 1 : 0);
+	    segments[i] = new Segment<>(segmentSize, evictionListener);
+	}
+    }
+
+    /**
+     * Returns the value of a key, and marks the entry as the most recently used.
+     *
+     * @param key the key
+     * @return the value, or null if the key is not in cache
+     */
+    public V get(K key) {
+	Segment<K, V> segment = segmentFor(key);
+	synchronized (segment) {
+	    return segment.get(key);
+	}
+    }
+
+    /**
+     * Puts a value in cache.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the previous value, or null if the key was not in cache
+     */
+    public V put(K key, V value) {
+	Segment<K, V> segment = segmentFor(key);
+	synchronized (segment) {
+	    return segment.put(key, value);
+	}
+    }
+
+    /**
+     * Removes a key from cache.
+     *
+     * @param key the key
+     * @return the removed value, or null if the key was not in cache
+     */
+    public V remove(K key) {
+	Segment<K, V> segment = segmentFor(key);
+	synchronized (segment) {
+	    return segment.remove(key);
+	}
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public void clear() {
+	for (Segment<K, V> segment : segments) {
+	    synchronized (segment) {
+		segment.clear();
+	    }
+	}
+    }
+
+    /**
+     * Removes all the entries and returns their values.
+     *
+     * @return the removed values
+     */
+    public List<V> removeAll() {
+	List<V> values = new ArrayList<>();
+	for (Segment<K, V> segment : segments) {
+	    synchronized (segment) {
+		values.addAll(segment.values());
+		segment.clear();
+	    }
+	}
+	return values;
+    }
+
+    /**
+     * @return the number of entries in cache
+     */
+    public int size() {
+	int size = 0;
+	for (Segment<K, V> segment : segments) {
+	    synchronized (segment) {
+		size += segment.size();
+	    }
+	}
+	return size;
+    }
+
+    /**
+     * @return the maximum number of entries in cache
+     */
+    public int getMaxSize() {
+	return maxSize;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+	int hash = key == null ? 0 : key.hashCode();
+	// Spread the high bits, as done by HashMap
+	hash ^= (hash >>> 16);
+	return segments[hash & (segments.length - 1)];
+    }
+
+    /**
+     * An access order map that evicts its least recently used entry. Accessed
+     * under its own lock.
+     */
+    private static class Segment<K, V> extends LinkedHashMap<K, V> {
+
+	private static final long serialVersionUID = 6048735434766393707L;
+
+	private final int segmentMaxSize;
+	private final transient Consumer<V> evictionListener;
+
+	private Segment(int segmentMaxSize, Consumer<V> evictionListener) {
+	    // Access order is used to evict least recently used entry
+	    super(16, 0.75f, true);
+	    this.segmentMaxSize = segmentMaxSize;
+	    this.evictionListener = evictionListener;
+	}
+
+	@Override
+	protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+	    boolean remove = size() > segmentMaxSize;
+	    if (remove && evictionListener != null) {
+		evictionListener.accept(eldest.getValue());
+	    }
+	    return remove;
+	}
+    }
+
+}
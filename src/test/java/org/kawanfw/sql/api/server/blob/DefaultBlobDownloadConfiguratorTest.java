@@ -0,0 +1,188 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.sql.api.server.blob;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+
+/**
+ * Checks the Range header parsing of {@link DefaultBlobDownloadConfigurator},
+ * and the bytes written by its download. <br>
+ * {@code parseRange} returns the {start, end} bounds, an empty array if the
+ * header is ignored, or null if the range is not satisfiable.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class DefaultBlobDownloadConfiguratorTest {
+
+    private static final long LENGTH = 1000;
+    private static final long[] IGNORED = new long[0];
+
+    @Test
+    public void closedRanges() {
+	assertArrayEquals(new long[] { 0, 499 }, DefaultBlobDownloadConfigurator.parseRange("bytes=0-499", LENGTH));
+	assertArrayEquals(new long[] { 500, 999 },
+		DefaultBlobDownloadConfigurator.parseRange(" bytes=500-999 ", LENGTH));
+	assertArrayEquals(new long[] { 999, 999 }, DefaultBlobDownloadConfigurator.parseRange("bytes=999-999", LENGTH));
+
+	// The last position is truncated to the file length
+	assertArrayEquals(new long[] { 900, 999 }, DefaultBlobDownloadConfigurator.parseRange("bytes=900-5000", LENGTH));
+    }
+
+    @Test
+    public void openEndedRanges() {
+	assertArrayEquals(new long[] { 0, 999 }, DefaultBlobDownloadConfigurator.parseRange("bytes=0-", LENGTH));
+	assertArrayEquals(new long[] { 250, 999 }, DefaultBlobDownloadConfigurator.parseRange("bytes=250-", LENGTH));
+    }
+
+    @Test
+    public void suffixRanges() {
+	assertArrayEquals(new long[] { 900, 999 }, DefaultBlobDownloadConfigurator.parseRange("bytes=-100", LENGTH));
+
+	// A suffix longer than the file is the whole file
+	assertArrayEquals(new long[] { 0, 999 }, DefaultBlobDownloadConfigurator.parseRange("bytes=-5000", LENGTH));
+    }
+
+    @Test
+    public void malformedRangesAreIgnored() {
+	assertArrayEquals(IGNORED, DefaultBlobDownloadConfigurator.parseRange("items=0-10", LENGTH));
+	assertArrayEquals(IGNORED, DefaultBlobDownloadConfigurator.parseRange("bytes=10", LENGTH));
+	assertArrayEquals(IGNORED, DefaultBlobDownloadConfigurator.parseRange("bytes=a-b", LENGTH));
+	assertArrayEquals(IGNORED, DefaultBlobDownloadConfigurator.parseRange("bytes=--5", LENGTH));
+	assertArrayEquals(IGNORED, DefaultBlobDownloadConfigurator.parseRange("bytes=500-100", LENGTH));
+
+	// Multiple ranges are not supported: the whole file is sent
+	assertArrayEquals(IGNORED, DefaultBlobDownloadConfigurator.parseRange("bytes=0-10,20-30", LENGTH));
+    }
+
+    @Test
+    public void unsatisfiableRanges() {
+	assertNull(DefaultBlobDownloadConfigurator.parseRange("bytes=1000-", LENGTH));
+	assertNull(DefaultBlobDownloadConfigurator.parseRange("bytes=1000-2000", LENGTH));
+	assertNull(DefaultBlobDownloadConfigurator.parseRange("bytes=-0", LENGTH));
+	assertNull(DefaultBlobDownloadConfigurator.parseRange("bytes=0-", 0));
+	assertNull(DefaultBlobDownloadConfigurator.parseRange("bytes=-10", 0));
+    }
+
+    @Test
+    public void wholeFileIsWritten() throws Exception {
+	byte[] content = buildContent();
+	Map<String, Object> responseValues = new HashMap<>();
+	byte[] written = download(content, new HashMap<>(), responseValues);
+
+	assertArrayEquals(content, written);
+	assertEquals((long) content.length, responseValues.get("setContentLengthLong"));
+	assertNull(responseValues.get("setStatus"));
+    }
+
+    @Test
+    public void rangeIsWritten() throws Exception {
+	byte[] content = buildContent();
+	Map<String, String> headers = new HashMap<>();
+	headers.put("Range", "bytes=100-199");
+	Map<String, Object> responseValues = new HashMap<>();
+	byte[] written = download(content, headers, responseValues);
+
+	assertArrayEquals(Arrays.copyOfRange(content, 100, 200), written);
+	assertEquals(100L, responseValues.get("setContentLengthLong"));
+	assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, responseValues.get("setStatus"));
+	assertEquals("bytes 100-199/" + content.length, responseValues.get("Content-Range"));
+    }
+
+    @Test
+    public void unsatisfiableRangeWritesNothing() throws Exception {
+	byte[] content = buildContent();
+	Map<String, String> headers = new HashMap<>();
+	headers.put("Range", "bytes=" + content.length + "-");
+	Map<String, Object> responseValues = new HashMap<>();
+	byte[] written = download(content, headers, responseValues);
+
+	assertEquals(0, written.length);
+	assertEquals(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, responseValues.get("setStatus"));
+    }
+
+    private static byte[] buildContent() {
+	byte[] content = new byte[100000];
+	for (int i = 0; i < content.length; i++) {
+	    content[i] = (byte) (i % 251);
+	}
+	return content;
+    }
+
+    /**
+     * Downloads a file with the request headers, and returns the bytes written
+     * on the stream. The request says that Tomcat sendfile is supported, as on
+     * the default connector.
+     */
+    private static byte[] download(byte[] content, Map<String, String> headers, Map<String, Object> responseValues)
+	    throws Exception {
+	File file = File.createTempFile("blob-download-", ".bin");
+	try {
+	    Files.write(file.toPath(), content);
+
+	    HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+		    DefaultBlobDownloadConfiguratorTest.class.getClassLoader(),
+		    new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+			switch (method.getName()) {
+			case "getHeader":
+			    return headers.get(args[0]);
+			case "getAttribute":
+			    return "org.apache.tomcat.sendfile.support".equals(args[0]) ? Boolean.TRUE : null;
+			case "isAsyncStarted":
+			    return true;
+			default:
+			    return null;
+			}
+		    });
+
+	    HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+		    DefaultBlobDownloadConfiguratorTest.class.getClassLoader(),
+		    new Class<?>[] { HttpServletResponse.class }, (proxy, method, args) -> {
+			switch (method.getName()) {
+			case "setHeader":
+			    responseValues.put((String) args[0], args[1]);
+			    return null;
+			case "setStatus":
+			case "setContentLengthLong":
+			    responseValues.put(method.getName(), args[0]);
+			    return null;
+			case "isCommitted":
+			    return false;
+			default:
+			    return null;
+			}
+		    });
+
+	    ByteArrayOutputStream out = new ByteArrayOutputStream();
+	    new DefaultBlobDownloadConfigurator().download(request, response, file, out);
+	    return out.toByteArray();
+	} finally {
+	    file.delete();
+	}
+    }
+
+}
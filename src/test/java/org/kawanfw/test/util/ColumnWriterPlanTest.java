@@ -0,0 +1,153 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.test.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Test;
+import org.kawanfw.sql.servlet.sql.ColumnInfoCreator;
+import org.kawanfw.sql.servlet.sql.writer.ColumnWriter;
+import org.kawanfw.sql.servlet.sql.writer.ColumnWriterPlan;
+import org.kawanfw.sql.servlet.sql.writer.DecimalColumnWriter;
+import org.kawanfw.sql.servlet.sql.writer.DefaultColumnWriter;
+import org.kawanfw.sql.servlet.sql.writer.FloatingColumnWriter;
+import org.kawanfw.sql.servlet.sql.writer.IntegralColumnWriter;
+
+/**
+ * Checks the {@link ColumnWriter} chosen per column type and the JSON written
+ * for each of them, which must stay the historical one.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class ColumnWriterPlanTest {
+
+    private static final int[] TYPES = { Types.INTEGER, Types.FLOAT, Types.DOUBLE, Types.DECIMAL, Types.VARCHAR };
+
+    @Test
+    public void writersPerColumnType() throws Exception {
+	ResultSet resultSet = buildResultSet(new Object[] { 1L, 1.5d, 1.5d, BigDecimal.ONE, "a" });
+	ColumnWriterPlan plan = buildPlan(resultSet, Json.createGenerator(new StringWriter()));
+
+	assertEquals(IntegralColumnWriter.class, plan.getColumnWriters().get(0).getClass());
+	assertEquals(FloatingColumnWriter.class, plan.getColumnWriters().get(1).getClass());
+	assertEquals(FloatingColumnWriter.class, plan.getColumnWriters().get(2).getClass());
+	assertEquals(DecimalColumnWriter.class, plan.getColumnWriters().get(3).getClass());
+	assertEquals(DefaultColumnWriter.class, plan.getColumnWriters().get(4).getClass());
+	assertFalse(plan.isSessionBound());
+    }
+
+    @Test
+    public void numbersAndStrings() throws Exception {
+	String json = writeRow(new Object[] { 5L, new BigDecimal("5"), 5.0d, new BigDecimal("5"), "abc" });
+	assertEquals("[5,5,\"5.0\",5,\"abc\"]", json);
+    }
+
+    @Test
+    public void negativeAndFractionalValuesAreStrings() throws Exception {
+	String json = writeRow(
+		new Object[] { -5L, new BigDecimal("-5"), -1.25d, new BigDecimal("5.00"), "12" });
+	assertEquals("[\"-5\",\"-5\",\"-1.25\",\"5.00\",\"12\"]", json);
+    }
+
+    @Test
+    public void nullValues() throws Exception {
+	String json = writeRow(new Object[] { null, null, null, null, null });
+	assertEquals("[\"NULL\",\"NULL\",\"NULL\",\"NULL\",\"NULL\"]", json);
+    }
+
+    private static String writeRow(Object[] values) throws Exception {
+	StringWriter writer = new StringWriter();
+	JsonGenerator gen = Json.createGenerator(writer);
+	ResultSet resultSet = buildResultSet(values);
+	ColumnWriterPlan plan = buildPlan(resultSet, gen);
+
+	gen.writeStartArray();
+	for (ColumnWriter columnWriter : plan.getColumnWriters()) {
+	    columnWriter.write(resultSet);
+	}
+	gen.writeEnd();
+	gen.close();
+	return writer.toString();
+    }
+
+    private static ColumnWriterPlan buildPlan(ResultSet resultSet, JsonGenerator gen) throws Exception {
+	HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+		ColumnWriterPlanTest.class.getClassLoader(), new Class<?>[] { HttpServletRequest.class },
+		(proxy, method, args) -> null);
+	ColumnInfoCreator columnInfoCreator = new ColumnInfoCreator(resultSet, "H2");
+	return new ColumnWriterPlan(request, "select", resultSet, "H2", columnInfoCreator, gen, true);
+    }
+
+    /**
+     * Builds a one row ResultSet with the {@link #TYPES} columns. The values are
+     * returned as is by getObject(), as a JDBC driver would do.
+     */
+    private static ResultSet buildResultSet(Object[] values) {
+	ResultSetMetaData meta = (ResultSetMetaData) Proxy.newProxyInstance(
+		ColumnWriterPlanTest.class.getClassLoader(), new Class<?>[] { ResultSetMetaData.class },
+		(proxy, method, args) -> {
+		    switch (method.getName()) {
+		    case "getColumnCount":
+			return TYPES.length;
+		    case "getColumnType":
+			return TYPES[(int) args[0] - 1];
+		    case "getColumnName":
+			return "col" + args[0];
+		    case "getColumnTypeName":
+		    case "getTableName":
+			return "";
+		    case "isSigned":
+			return true;
+		    default:
+			throw new UnsupportedOperationException(method.getName());
+		    }
+		});
+
+	boolean[] wasNull = new boolean[1];
+	return (ResultSet) Proxy.newProxyInstance(ColumnWriterPlanTest.class.getClassLoader(),
+		new Class<?>[] { ResultSet.class }, (proxy, method, args) -> {
+		    if (method.getName().equals("getMetaData")) {
+			return meta;
+		    }
+		    if (method.getName().equals("wasNull")) {
+			return wasNull[0];
+		    }
+
+		    Object value = values[(int) args[0] - 1];
+		    wasNull[0] = value == null;
+		    switch (method.getName()) {
+		    case "getObject":
+		    case "getString":
+			return value;
+		    case "getLong":
+			return value == null ? 0L : ((Number) value).longValue();
+		    case "getBigDecimal":
+			return value;
+		    default:
+			throw new UnsupportedOperationException(method.getName());
+		    }
+		});
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.test.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.kawanfw.sql.util.LruCache;
+
+/**
+ * Checks the eviction order, the size bound and the thread safety of
+ * {@link LruCache}.
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class LruCacheTest {
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+	List<String> evicted = new ArrayList<>();
+	LruCache<Integer, String> lruCache = new LruCache<>(4, evicted::add);
+
+	for (int i = 1; i <= 4; i++) {
+	    lruCache.put(i, "v" + i);
+	}
+
+	// 1 is now the most recently used
+	assertEquals("v1", lruCache.get(1));
+	lruCache.put(5, "v5");
+
+	assertEquals(4, lruCache.size());
+	assertNull(lruCache.get(2));
+	assertEquals("v1", lruCache.get(1));
+	assertEquals(1, evicted.size());
+	assertEquals("v2", evicted.get(0));
+    }
+
+    @Test
+    public void maxSizeIsNeverExceeded() {
+	AtomicInteger evictions = new AtomicInteger();
+	LruCache<String, Integer> lruCache = new LruCache<>(2000, value -> evictions.incrementAndGet());
+
+	for (int i = 0; i < 10000; i++) {
+	    lruCache.put("select * from table_" + i, i);
+	}
+
+	assertTrue(lruCache.size() <= 2000);
+	assertEquals(10000, lruCache.size() + evictions.get());
+	assertEquals(2000, lruCache.getMaxSize());
+    }
+
+    @Test
+    public void removeAndRemoveAll() {
+	LruCache<String, Integer> lruCache = new LruCache<>(100);
+	for (int i = 0; i < 50; i++) {
+	    lruCache.put("k" + i, i);
+	}
+
+	assertEquals(Integer.valueOf(7), lruCache.remove("k7"));
+	assertNull(lruCache.remove("k7"));
+
+	List<Integer> values = lruCache.removeAll();
+	assertEquals(49, values.size());
+	assertEquals(0, lruCache.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidMaxSize() {
+	new LruCache<String, String>(0);
+    }
+
+    @Test
+    public void concurrentAccess() throws Exception {
+	LruCache<Integer, Integer> lruCache = new LruCache<>(500);
+	ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+	try {
+	    List<Future<?>> futures = new ArrayList<>();
+	    for (int t = 0; t < 8; t++) {
+		final int seed = t;
+		futures.add(executorService.submit(() -> {
+		    for (int i = 0; i < 20000; i++) {
+			int key = (i * 31 + seed) % 1000;
+			Integer value = lruCache.get(key);
+			if (value == null) {
+			    lruCache.put(key, key);
+			} else {
+			    assertEquals(key, value.intValue());
+			}
+		    }
+		}));
+	    }
+
+	    for (Future<?> future : futures) {
+		future.get();
+	    }
+	} finally {
+	    executorService.shutdownNow();
+	}
+
+	assertTrue(lruCache.size() <= 500);
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c)2023 KawanSoft S.A.S. All rights reserved.
+ * 
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file in the project's root directory.
+ *
+ * Change Date: 2026-02-21
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by version 2.0 of the Apache License.
+ */
+package org.kawanfw.test.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.kawanfw.sql.tomcat.properties.threadpool.ThreadPoolProperties;
+import org.kawanfw.sql.tomcat.properties.threadpool.VirtualThreadExecutorBuilder;
+
+/**
+ * Compares the default ThreadPoolExecutor with the virtual thread executor,
+ * for a burst of high latency queries. <br>
+ * Each simulated request borrows a connection from a simulated JDBC pool,
+ * holds it during the query latency, and releases it. The virtual thread
+ * executor requires Java 21+. <br>
+ * The ThreadPoolExecutor has the default maximumPoolSize and a bounded queue
+ * of {@code queue capacity} requests, so that the burst waits for a thread
+ * instead of being rejected, as the virtual thread requests wait for a
+ * connection. The response time of a request includes its wait in the queue.
+ * <br>
+ * Usage: RequestExecutorBenchmark [requests] [query latency ms] [JDBC pool
+ * size] [queue capacity]
+ *
+ * @author Nicolas de Pomereu
+ *
+ */
+public class RequestExecutorBenchmark {
+
+    public static void main(String[] args) throws Exception {
+	int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+	int latencyMillis = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+	int jdbcPoolSize = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+	int queueCapacity = args.length > 3 ? Integer.parseInt(args[3]) : requests;
+
+	System.out.println("requests: " + requests + ", query latency: " + latencyMillis + " ms, JDBC pool size: "
+		+ jdbcPoolSize + ", queue capacity: " + queueCapacity);
+	System.out.println("Java " + System.getProperty("java.version") + ", "
+		+ Runtime.getRuntime().availableProcessors() + " processors");
+
+	int maximumPoolSize = ThreadPoolProperties.DEFAULT_MAXIMUM_POOL_SIZE;
+	ExecutorService threadPoolExecutor = new ThreadPoolExecutor(maximumPoolSize, maximumPoolSize,
+		ThreadPoolProperties.DEFAULT_KEEP_ALIVE_TIME, ThreadPoolProperties.DEFAULT_UNIT,
+		new ArrayBlockingQueue<>(queueCapacity));
+	run("ThreadPoolExecutor (" + maximumPoolSize + " threads)", threadPoolExecutor, requests, latencyMillis,
+		jdbcPoolSize);
+
+	if (!VirtualThreadExecutorBuilder.isSupported()) {
+	    System.out.println("Virtual threads are not supported by Java " + System.getProperty("java.version"));
+	    return;
+	}
+
+	ExecutorService virtualThreadExecutor = new VirtualThreadExecutorBuilder().build();
+	run("Virtual threads", virtualThreadExecutor, requests, latencyMillis, jdbcPoolSize);
+    }
+
+    private static void run(String name, ExecutorService executorService, int requests, int latencyMillis,
+	    int jdbcPoolSize) throws InterruptedException {
+	Semaphore jdbcPool = new Semaphore(jdbcPoolSize);
+	CountDownLatch latch = new CountDownLatch(requests);
+	AtomicInteger rejected = new AtomicInteger();
+	LongAdder totalResponseMillis = new LongAdder();
+	AtomicLong maxResponseMillis = new AtomicLong();
+
+	long begin = System.currentTimeMillis();
+	for (int i = 0; i < requests; i++) {
+	    final long submittedAt = System.nanoTime();
+	    try {
+		executorService.execute(() -> {
+		    try {
+			jdbcPool.acquire();
+			try {
+			    // The high latency query
+			    Thread.sleep(latencyMillis);
+			} finally {
+			    jdbcPool.release();
+			}
+			long responseMillis = (System.nanoTime() - submittedAt) / 1000000;
+			totalResponseMillis.add(responseMillis);
+			maxResponseMillis.accumulateAndGet(responseMillis, Math::max);
+		    } catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		    } finally {
+			latch.countDown();
+		    }
+		});
+	    } catch (RejectedExecutionException e) {
+		// Would be a 503 for the client
+		rejected.incrementAndGet();
+		latch.countDown();
+	    }
+	}
+
+	latch.await();
+	long elapsed = System.currentTimeMillis() - begin;
+	executorService.shutdown();
+	executorService.awaitTermination(1, TimeUnit.MINUTES);
+
+	int completed = requests - rejected.get();
+	System.out.println(name + ": completed: " + completed + ", rejected: " + rejected + ", elapsed: " + elapsed
+		+ " ms, throughput: " + (completed * 1000L / Math.max(1, elapsed)) + " requests/s, response time avg: "
+		+ (totalResponseMillis.sum() / Math.max(1, completed)) + " ms, max: " + maxResponseMillis + " ms");
+    }
+
+}